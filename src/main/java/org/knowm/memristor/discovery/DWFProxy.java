@@ -24,10 +24,33 @@
 package org.knowm.memristor.discovery;
 
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.event.SwingPropertyChangeSupport;
+import org.knowm.memristor.discovery.core.dwf.AD2Device;
+import org.knowm.memristor.discovery.core.dwf.ArmWaiter;
+import org.knowm.memristor.discovery.core.dwf.AwgUploadCache;
+import org.knowm.memristor.discovery.core.dwf.CaptureCompletionWaiter;
+import org.knowm.memristor.discovery.core.dwf.DWFDevice;
+import org.knowm.memristor.discovery.core.dwf.HardwareExecutor;
+import org.knowm.memristor.discovery.core.dwf.HardwareMetrics;
+import org.knowm.memristor.discovery.core.dwf.HardwareOperation;
+import org.knowm.memristor.discovery.core.dwf.HardwareOperations;
+import org.knowm.memristor.discovery.core.dwf.InstrumentedAD2Device;
+import org.knowm.memristor.discovery.core.dwf.SampleBufferPool;
+import org.knowm.memristor.discovery.core.dwf.SwitchSchedule;
+import org.knowm.memristor.discovery.core.dwf.WaitResult;
+import org.knowm.memristor.discovery.core.dwf.sim.SimulatedAD2Device;
+import org.knowm.memristor.discovery.core.dwf.sim.SimulatedBoard;
 import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,25 +63,123 @@ public class DWFProxy {
   // public final static int DEFAULT_SELECTOR_DIO = 0b0000_0000_0000_0000;
   public static final String AD2_STARTUP_CHANGE = "AD2_START_UP";
   public static final String DIGITAL_IO_READ = "DIGITAL_IO_READ";
-  final DWF dwf;
+
+  /** Samples per channel the scope buffer holds for a single capture. */
+  public static final int SCOPE_BUFFER_SIZE = 8192;
+
+  /** System property selecting the device backend: "dwf" (default) or "simulated". */
+  public static final String DEVICE_PROPERTY = "memristor.discovery.device";
+
+  /** System property giving how many simulated boards to create; defaults to one. */
+  public static final String SIMULATED_DEVICE_COUNT_PROPERTY =
+      "memristor.discovery.simulated.devices";
+
+  /** System property naming a file the hardware latency report is written to on shutdown. */
+  public static final String METRICS_FILE_PROPERTY = "memristor.discovery.metrics";
+
+  /** All calls into the device go through this, on a single thread that owns it. */
+  private final HardwareExecutor hardwareExecutor;
+
+  /** Latency and outcome of every device call, for finding where experiment loops spend time. */
+  private final HardwareMetrics hardwareMetrics = new HardwareMetrics();
 
   // ///////////////////////////////////////////////////////////
   // State Variables //////////////////////////////////////////
   // ///////////////////////////////////////////////////////////
   private final Logger logger = LoggerFactory.getLogger(DWFProxy.class);
   private final int boardVersion;
+  private final int deviceIndex;
+  private final ArmWaiter armWaiter = new ArmWaiter();
+  private final CaptureCompletionWaiter captureCompletionWaiter = new CaptureCompletionWaiter();
+  private final AwgUploadCache awgUploadCache = new AwgUploadCache();
+  private final SampleBufferPool sampleBufferPool = new SampleBufferPool();
   private boolean isAD2Running = false;
   private int digitalIOStates = ALL_DIO_OFF;
+  private long avoidedDigitalIOWrites = 0;
+
+  /** DIO writes queued on the hardware thread, and how many of them have run */
+  private long submittedDigitalIOWrites = 0;
+
+  private long completedDigitalIOWrites = 0;
   private SwingPropertyChangeSupport swingPropertyChangeSupport;
 
   /** Constructor */
   public DWFProxy(int boardVersion) {
 
+    this(boardVersion, createDevice(boardVersion));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param device - the real AD2 or a simulated one
+   */
+  public DWFProxy(int boardVersion, AD2Device device) {
+
+    this(boardVersion, device, 0);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param device - the real AD2 or a simulated one
+   * @param deviceIndex - position of the device in {@link #createAll(int)}, used to name its thread
+   */
+  public DWFProxy(int boardVersion, AD2Device device, int deviceIndex) {
+
     this.boardVersion = boardVersion;
-    dwf = new DWF();
+    this.deviceIndex = deviceIndex;
+    String threadName = deviceIndex == 0 ? "AD2 Hardware" : "AD2 Hardware #" + deviceIndex;
+    hardwareExecutor =
+        new HardwareExecutor(new InstrumentedAD2Device(device, hardwareMetrics), threadName);
     swingPropertyChangeSupport = new SwingPropertyChangeSupport(this);
   }
 
+  /**
+   * Enumerate the attached devices and build a proxy, each with its own hardware thread, for every
+   * one of them. The first proxy is the one the GUI shows.
+   *
+   * @param boardVersion
+   * @return at least one proxy
+   */
+  public static List<DWFProxy> createAll(int boardVersion) {
+
+    List<AD2Device> devices = createDevices(boardVersion);
+    List<DWFProxy> dwfProxies = new ArrayList<>(devices.size());
+    for (int i = 0; i < devices.size(); i++) {
+      dwfProxies.add(new DWFProxy(boardVersion, devices.get(i), i));
+    }
+    return dwfProxies;
+  }
+
+  private static AD2Device createDevice(int boardVersion) {
+
+    if ("simulated".equalsIgnoreCase(System.getProperty(DEVICE_PROPERTY))) {
+      return new SimulatedAD2Device(boardVersion);
+    }
+    return new DWFDevice();
+  }
+
+  /**
+   * The waveforms4j binding only opens the first attached AD2, so the real backend always yields
+   * one device. The simulator yields as many boards as asked for, each with its own noise seed.
+   */
+  private static List<AD2Device> createDevices(int boardVersion) {
+
+    List<AD2Device> devices = new ArrayList<>();
+    if ("simulated".equalsIgnoreCase(System.getProperty(DEVICE_PROPERTY))) {
+      int count = Math.max(1, Integer.getInteger(SIMULATED_DEVICE_COUNT_PROPERTY, 1));
+      for (int i = 0; i < count; i++) {
+        devices.add(new SimulatedAD2Device(new SimulatedBoard(boardVersion, i)));
+      }
+    } else {
+      devices.add(new DWFDevice());
+    }
+    return devices;
+  }
+
   /**
    * Here is where the Controller registers itself as a listener to model changes.
    *
@@ -78,78 +199,288 @@ public class DWFProxy {
     new AD2StartupWorker().execute();
   }
 
-  public void waitUntilArmed() {
+  /**
+   * Open and configure the device, blocking until it's done. The GUI goes through {@link
+   * #startupAD2()}; headless runs call this directly.
+   *
+   * @return true if the device is up
+   */
+  public boolean openAD2() {
 
-    // long startTime = System.currentTimeMillis();
-    while (true) {
-      byte status = dwf.FDwfAnalogInStatus(true);
-      // System.out.println("status: " + status);
-      if (status == 1) { // armed
-        // System.out.println("armed.");
-        break;
-      }
+    isAD2Running = hardwareExecutor.execute(this::openDevice);
+    return isAD2Running;
+  }
+
+  /**
+   * Blocks until the oscilloscope is armed, the device reports an error, or the arm deadline
+   * passes.
+   *
+   * @return the outcome of the wait and how long arming took
+   */
+  public WaitResult waitUntilArmed() {
+
+    return checkArmed(hardwareExecutor.execute(HardwareOperations.awaitArmed(armWaiter)));
+  }
+
+  private WaitResult checkArmed(WaitResult result) {
+
+    hardwareMetrics.recordArm(result);
+    if (!result.isDone()) {
+      logger.warn("Oscilloscope failed to arm: " + result);
     }
-    // System.out.println("time = " + (System.currentTimeMillis() - startTime));
+    return result;
+  }
 
+  /**
+   * Blocks until the current acquisition is done, the device reports an error, or the capture is
+   * considered lost.
+   *
+   * @param frequency - the pulse train frequency
+   * @param pulseNumber - the number of pulses in the train
+   * @return the outcome of the wait and how long it took
+   */
+  public WaitResult awaitCapture(double frequency, int pulseNumber) {
+
+    WaitResult result =
+        hardwareExecutor.execute(
+            HardwareOperations.awaitCapture(
+                captureCompletionWaiter,
+                CaptureCompletionWaiter.getExpectedDurationNanos(frequency, pulseNumber)));
+    hardwareMetrics.recordCapture(result);
+    if (!result.isDone()) {
+      logger.warn("Pulse capture failed: " + result);
+    }
+    return result;
   }
 
   public boolean capturePulseData(double frequency, int pulseNumber) {
 
-    // Read In Data
-    int bailCount = 0;
-    while (true) {
-      try {
-        long sleepTime = (long) (1 / frequency * pulseNumber * 1000);
-        // System.out.println("sleepTime = " + sleepTime);
-        Thread.sleep(sleepTime);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
-      byte status = dwf.FDwfAnalogInStatus(true);
-      // System.out.println("status: " + status);
-      if (status == 2) { // done capturing
-        // System.out.println("bailCount = " + bailCount);
-        return true;
-      }
-      if (bailCount++ > 1000) {
-        System.out.println("Bailed!!!");
-        return false;
-      }
-    }
+    return awaitCapture(frequency, pulseNumber).isDone();
   }
 
-  /** This is called when the main board on/off toggle switch is switched to the off position. */
-  public void shutdownAD2() {
+  // ///////////////////////////////////////////////////////////
+  // Hardware Operations //////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
 
-    // ///////////////////////////////////////////////////////////
-    // Digital I/O //////////////////////////////////////////////
-    // ///////////////////////////////////////////////////////////
-    setAllIOStates(ALL_DIO_OFF);
-    dwf.FDwfDigitalIOReset();
-    dwf.FDwfDigitalOutReset();
+  /**
+   * Queue an operation on the hardware thread without waiting for it. Use this to overlap host-side
+   * work with device round trips, then collect the result with {@link HardwareExecutor#await}.
+   * Arbitrary operations may reprogram the AWG, so the next custom pulse train is uploaded again.
+   *
+   * @param operation
+   * @return a future holding the operation's result
+   */
+  public <T> Future<T> submit(HardwareOperation<T> operation) {
 
-    // ///////////////////////////////////////////////////////////
-    // Analog Out ///////////////////////////////////////////////
-    // ///////////////////////////////////////////////////////////
-    dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
+    return hardwareExecutor.submit(
+        dwf -> {
+          awgUploadCache.invalidateAll();
+          return operation.execute(dwf);
+        });
+  }
 
-    // ///////////////////////////////////////////////////////////
-    // Analog In ///////////////////////////////////////////////
-    // ///////////////////////////////////////////////////////////
-    dwf.FDwfAnalogInConfigure(false, false);
+  /**
+   * Run an operation on the hardware thread and wait for its result. Operations run back to back
+   * with nothing else touching the device in between. As with {@link #submit}, the next custom
+   * pulse train is uploaded again.
+   *
+   * @param operation
+   * @return the operation's result
+   */
+  public <T> T execute(HardwareOperation<T> operation) {
 
-    // ///////////////////////////////////////////////////////////
-    // Analog I/O //////////////////////////////////////////////
-    // ///////////////////////////////////////////////////////////
-    dwf.setPowerSupply(0, 0.0);
-    dwf.setPowerSupply(1, 0.0);
+    return hardwareExecutor.execute(
+        dwf -> {
+          awgUploadCache.invalidateAll();
+          return operation.execute(dwf);
+        });
+  }
+
+  /**
+   * Start both scope channels triggering on the AWG and wait for the scope to arm.
+   *
+   * @return the outcome of the arm wait
+   */
+  public WaitResult armScopeOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V) {
+
+    return checkArmed(
+        hardwareExecutor.execute(
+            HardwareOperations.armScopeOnWaveformGenerator(
+                channel, sampleFrequency, bufferSize, isScale2V, armWaiter)));
+  }
+
+  /**
+   * Same as {@link #armScopeOnWaveformGenerator} but doesn't wait, so the caller can build the
+   * waveform while the scope arms.
+   *
+   * @return a future holding the outcome of the arm wait
+   */
+  public Future<WaitResult> submitArmScopeOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V) {
+
+    return hardwareExecutor.submit(
+        dwf ->
+            checkArmed(
+                HardwareOperations.armScopeOnWaveformGenerator(
+                        channel, sampleFrequency, bufferSize, isScale2V, armWaiter)
+                    .execute(dwf)));
+  }
+
+  /**
+   * Start both scope channels triggering on a rising level and wait for the scope to arm.
+   *
+   * @return the outcome of the arm wait
+   */
+  public WaitResult armScopeOnLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    return checkArmed(
+        hardwareExecutor.execute(
+            HardwareOperations.armScopeOnLevelTrigger(
+                sampleFrequency, triggerLevel, bufferSize, armWaiter)));
+  }
+
+  public boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    return hardwareExecutor.execute(
+        HardwareOperations.startScopeImmediately(sampleFrequency, bufferSize, acquisitionMode));
+  }
+
+  public boolean stopAnalogCaptureBothChannels() {
+
+    return hardwareExecutor.execute(HardwareOperations.stopScope());
+  }
+
+  public boolean startWave(
+      int channel,
+      DWF.Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    return hardwareExecutor.execute(
+        HardwareOperations.startWave(
+            channel, waveform, frequency, amplitude, offset, dutyCycle, awgUploadCache));
+  }
+
+  public boolean stopWave(int channel) {
+
+    return hardwareExecutor.execute(HardwareOperations.stopAwg(channel));
+  }
+
+  /** Stop the AWG channel and the scope in one trip to the hardware thread. */
+  public void stopWaveAndCapture(int channel) {
+
+    hardwareExecutor.execute(
+        dwf -> {
+          dwf.stopWave(channel);
+          return dwf.stopAnalogCaptureBothChannels();
+        });
+  }
+
+  public boolean setCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    return hardwareExecutor.execute(
+        HardwareOperations.configureAwg(
+            channel, frequency, offset, numPulses, waveform, awgUploadCache));
+  }
+
+  public boolean startPulseTrain(int channel) {
+
+    return hardwareExecutor.execute(HardwareOperations.startAwg(channel));
+  }
+
+  public boolean startCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    return hardwareExecutor.execute(
+        HardwareOperations.startCustomPulseTrain(
+            channel, frequency, offset, numPulses, waveform, awgUploadCache));
+  }
+
+  /**
+   * Read the valid samples of both scope channels from the last completed capture.
+   *
+   * @return {V1, V2}
+   */
+  public double[][] fetchSamples() {
+
+    return hardwareExecutor.execute(HardwareOperations.fetchSamples());
+  }
+
+  /**
+   * Read the scope status and whatever samples are valid so far.
+   *
+   * @return {V1, V2}, or null if there are no valid samples yet
+   */
+  public double[][] pollSamples() {
+
+    return hardwareExecutor.execute(HardwareOperations.pollSamples());
+  }
+
+  /**
+   * Read the valid samples of both scope channels into arrays from {@link #getSampleBufferPool()}.
+   * Release them back into the pool once they're no longer needed.
+   *
+   * @return {V1, V2}
+   */
+  public double[][] fetchPooledSamples() {
+
+    return hardwareExecutor.execute(HardwareOperations.fetchSamples(sampleBufferPool));
+  }
+
+  /**
+   * Poll the scope and read whatever is valid into arrays from {@link #getSampleBufferPool()}.
+   * Release them back into the pool once they're no longer needed.
+   *
+   * @return {V1, V2}, or null if there are no valid samples yet
+   */
+  public double[][] pollPooledSamples() {
+
+    return hardwareExecutor.execute(HardwareOperations.pollSamples(sampleBufferPool));
+  }
+
+  /** This is called when the main board on/off toggle switch is switched to the off position. */
+  public void shutdownAD2() {
 
     // ///////////////////////////////////////////////////////////
-    // Device //////////////////////////////////////////////
+    // Digital I/O //////////////////////////////////////////////
     // ///////////////////////////////////////////////////////////
+    setAllIOStates(ALL_DIO_OFF);
+    hardwareExecutor.execute(
+        dwf -> {
+          dwf.FDwfDigitalIOReset();
+          dwf.FDwfDigitalOutReset();
+
+          // ///////////////////////////////////////////////////////////
+          // Analog Out ///////////////////////////////////////////////
+          // ///////////////////////////////////////////////////////////
+          dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
+
+          // ///////////////////////////////////////////////////////////
+          // Analog In ///////////////////////////////////////////////
+          // ///////////////////////////////////////////////////////////
+          dwf.FDwfAnalogInConfigure(false, false);
+
+          // ///////////////////////////////////////////////////////////
+          // Analog I/O //////////////////////////////////////////////
+          // ///////////////////////////////////////////////////////////
+          dwf.setPowerSupply(0, 0.0);
+          dwf.setPowerSupply(1, 0.0);
+
+          // ///////////////////////////////////////////////////////////
+          // Device //////////////////////////////////////////////
+          // ///////////////////////////////////////////////////////////
+          dwf.FDwfDeviceCloseAll();
+          awgUploadCache.invalidateAll();
+          return null;
+        });
     boolean oldValDevice = isAD2Running;
     isAD2Running = false;
-    dwf.FDwfDeviceCloseAll();
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.AD2_STARTUP_CHANGE, oldValDevice, isAD2Running);
 
@@ -160,7 +491,13 @@ public class DWFProxy {
     // }
   }
 
-  public void turnOffAllSwitches(int boardVersion) {
+  /** Release the hardware thread once everything already queued has run. Call after shutdownAD2. */
+  public void dispose() {
+
+    hardwareExecutor.shutdown();
+  }
+
+  public synchronized void turnOffAllSwitches(int boardVersion) {
     int oldValDigitalIO = digitalIOStates;
     Integer mask;
     if (boardVersion == 2) {
@@ -170,14 +507,13 @@ public class DWFProxy {
     }
 
     digitalIOStates = digitalIOStates & mask;
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    dwf.FDwfDigitalIOConfigure();
-    digitalIOStates = dwf.getDigitalIOStatus();
+    flushDigitalIOStates(oldValDigitalIO, 1);
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
   }
 
-  public void update2DigitalIOStatesAtOnce(List<Integer> mask, int offset, boolean isOn) {
+  public synchronized void update2DigitalIOStatesAtOnce(
+      List<Integer> mask, int offset, boolean isOn) {
 
     // logger.debug("toggleClickedID: " + toggleClickedID);
     int oldValDigitalIO = digitalIOStates;
@@ -191,11 +527,7 @@ public class DWFProxy {
       }
     }
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
+    flushDigitalIOStates(oldValDigitalIO, 1);
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
 
@@ -203,7 +535,7 @@ public class DWFProxy {
 
   }
 
-  public void update2DigitalIOStatesAtOnce(List<Integer> mask, boolean isOn) {
+  public synchronized void update2DigitalIOStatesAtOnce(List<Integer> mask, boolean isOn) {
 
     // logger.debug("toggleClickedID: " + toggleClickedID);
     int oldValDigitalIO = digitalIOStates;
@@ -217,11 +549,7 @@ public class DWFProxy {
       }
     }
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
+    flushDigitalIOStates(oldValDigitalIO, 1);
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
 
@@ -236,7 +564,7 @@ public class DWFProxy {
    * @param toggleClickedID
    * @param isOn
    */
-  public void update2DigitalIOStatesAtOnce(int toggleClickedID, boolean isOn) {
+  public synchronized void update2DigitalIOStatesAtOnce(int toggleClickedID, boolean isOn) {
 
     System.out.println("Old state: " + digitalIOStates);
     int oldValDigitalIO = digitalIOStates;
@@ -254,16 +582,13 @@ public class DWFProxy {
     System.out.println("isOn: " + isOn);
     System.out.println("digitalIOStates: " + Integer.toBinaryString(digitalIOStates));
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
+    flushDigitalIOStates(oldValDigitalIO, 1);
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
   }
 
-  public void update2DigitalIOStatesAtOnce(int io1, int io2, boolean value1, boolean value2) {
+  public synchronized void update2DigitalIOStatesAtOnce(
+      int io1, int io2, boolean value1, boolean value2) {
 
     // logger.debug("toggleClickedID: " + toggleClickedID);
     int oldValDigitalIO = digitalIOStates;
@@ -282,16 +607,13 @@ public class DWFProxy {
 
     logger.debug("new state: " + Integer.toBinaryString(digitalIOStates));
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
+    flushDigitalIOStates(oldValDigitalIO, 1);
+    logger.debug("AD2 Device Digital I/O read back: " + Integer.toBinaryString(digitalIOStates));
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
   }
 
-  public void setUpper8IOStates(int upper8SetMask) {
+  public synchronized void setUpper8IOStates(int upper8SetMask) {
 
     logger.debug("upper8SetMask: " + Integer.toBinaryString(upper8SetMask));
     int oldValDigitalIO = digitalIOStates;
@@ -307,16 +629,12 @@ public class DWFProxy {
 
     // logger.debug("new state: " + digitalIOStates);
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
+    flushDigitalIOStates(oldValDigitalIO, 1);
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
   }
 
-  public void setAllIOStates(int outputSetMask) {
+  public synchronized void setAllIOStates(int outputSetMask) {
 
     // logger.debug("outputSetMask: " + outputSetMask);
     int oldValDigitalIO = digitalIOStates;
@@ -326,20 +644,285 @@ public class DWFProxy {
 
     // logger.debug("new state: " + digitalIOStates);
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
+    flushDigitalIOStates(oldValDigitalIO, 1);
+    swingPropertyChangeSupport.firePropertyChange(
+        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+  }
+
+  /**
+   * Start batching switch and mux changes. Nothing is written until {@link
+   * DigitalIOTransaction#commit()}, which sends every change in a single device write.
+   *
+   * @return a transaction starting from the current DIO states
+   */
+  public synchronized DigitalIOTransaction beginDigitalIOTransaction() {
+
+    return new DigitalIOTransaction(this, digitalIOStates);
+  }
+
+  /**
+   * Apply the bits a transaction touched on top of the current states, leaving the other bits as
+   * they are now in case something else changed them in the meantime.
+   */
+  synchronized int commitDigitalIOTransaction(int states, int touchedMask, int updates) {
 
-    digitalIOStates = dwf.getDigitalIOStatus();
+    int oldValDigitalIO = digitalIOStates;
+    digitalIOStates = (digitalIOStates & ~touchedMask) | (states & touchedMask);
+    flushDigitalIOStates(oldValDigitalIO, updates);
     swingPropertyChangeSupport.firePropertyChange(
         DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    return digitalIOStates;
+  }
+
+  /**
+   * Capture one play of a custom pulse train at every step of a switch schedule, all in a single
+   * operation on the hardware thread. Each step writes its DIO states if they changed, lets the
+   * switches settle, arms the scope on the AWG, plays the pulse train and fetches the capture, so a
+   * multi-device program costs one hand-off to the hardware thread rather than one per call.
+   *
+   * @param schedule
+   * @param channel
+   * @param scopeSampleFrequency
+   * @param scopeBufferSize
+   * @param frequency - the pulse train frequency
+   * @param waveform
+   * @return {V1, V2} for each step, or null for a step whose capture failed
+   */
+  public double[][][] captureSwitchSchedule(
+      SwitchSchedule schedule,
+      int channel,
+      double scopeSampleFrequency,
+      int scopeBufferSize,
+      double frequency,
+      double[] waveform) {
+
+    long expectedDurationNanos = CaptureCompletionWaiter.getExpectedDurationNanos(frequency, 1);
+    HardwareOperation<WaitResult> arm =
+        HardwareOperations.armScopeOnWaveformGenerator(
+            channel, scopeSampleFrequency, scopeBufferSize, true, armWaiter);
+    HardwareOperation<Boolean> play =
+        HardwareOperations.startCustomPulseTrain(
+            channel, frequency, 0, 1, waveform, awgUploadCache);
+    HardwareOperation<WaitResult> capture =
+        HardwareOperations.awaitCapture(captureCompletionWaiter, expectedDurationNanos);
+    HardwareOperation<double[][]> fetch = HardwareOperations.fetchSamples();
+
+    // the schedule runs without the monitor, so the GUI can still change switches meanwhile
+    int oldValDigitalIO;
+    long writesBefore;
+    synchronized (this) {
+      oldValDigitalIO = digitalIOStates;
+      writesBefore = submittedDigitalIOWrites;
+    }
+
+    // what the device holds and how many writes were skipped, both only touched in the operation
+    int[] deviceStates = {oldValDigitalIO};
+    long[] avoidedWrites = {0};
+
+    double[][][] captures =
+        hardwareExecutor.execute(
+            dwf -> {
+              double[][][] stepCaptures = new double[schedule.size()][][];
+              for (int step = 0; step < schedule.size(); step++) {
+                // only a DIO change needs time to settle
+                if (writeDigitalIOStates(
+                    dwf, schedule.getStates(step), deviceStates, avoidedWrites)) {
+                  schedule.settle();
+                }
+
+                if (!checkArmed(arm.execute(dwf)).isDone()) {
+                  dwf.stopAnalogCaptureBothChannels();
+                  continue;
+                }
+                if (!play.execute(dwf)) {
+                  continue;
+                }
+                WaitResult result = capture.execute(dwf);
+                hardwareMetrics.recordCapture(result);
+                if (result.isDone()) {
+                  stepCaptures[step] = fetch.execute(dwf);
+                } else {
+                  logger.warn("Pulse capture failed at switch step " + step + ": " + result);
+                }
+              }
+              writeDigitalIOStates(dwf, schedule.getFinalStates(), deviceStates, avoidedWrites);
+              return stepCaptures;
+            });
+
+    int newValDigitalIO;
+    synchronized (this) {
+      avoidedDigitalIOWrites += avoidedWrites[0];
+      // a DIO change queued during the schedule runs after it and has the last word
+      if (submittedDigitalIOWrites == writesBefore) {
+        digitalIOStates = deviceStates[0];
+      }
+      newValDigitalIO = digitalIOStates;
+    }
+    swingPropertyChangeSupport.firePropertyChange(
+        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, newValDigitalIO);
+    return captures;
+  }
+
+  /**
+   * Runs on the hardware thread, inside {@link #captureSwitchSchedule}.
+   *
+   * @return true if the states were written, false if the device already had them
+   */
+  private static boolean writeDigitalIOStates(
+      AD2Device dwf, int states, int[] deviceStates, long[] avoidedWrites) {
+
+    if (states == deviceStates[0]) {
+      avoidedWrites[0]++;
+      return false;
+    }
+    deviceStates[0] = HardwareOperations.setDIO(states).execute(dwf);
+    return true;
+  }
+
+  /**
+   * Write digitalIOStates to the device unless it's what the device already has. Called with the
+   * monitor held, but gives it up while the write waits its turn on the hardware thread, and the
+   * event dispatch thread doesn't wait for the write at all. A long operation on the hardware
+   * thread therefore never blocks the GUI on this lock.
+   *
+   * @param deviceStates - the states last read back from the device
+   * @param updates - how many DIO updates are folded into this write
+   */
+  private void flushDigitalIOStates(int deviceStates, int updates) {
+
+    if (digitalIOStates == deviceStates) {
+      avoidedDigitalIOWrites += updates;
+      return;
+    }
+    avoidedDigitalIOWrites += updates - 1;
+
+    int states = digitalIOStates;
+    long ticket = ++submittedDigitalIOWrites;
+    Future<Integer> write =
+        hardwareExecutor.submit(
+            dwf -> {
+              int readBack = states;
+              try {
+                readBack = HardwareOperations.setDIO(states).execute(dwf);
+                return readBack;
+              } finally {
+                completeDigitalIOWrite(ticket, readBack);
+              }
+            });
+    if (SwingUtilities.isEventDispatchThread()) {
+      return;
+    }
+
+    boolean interrupted = false;
+    while (completedDigitalIOWrites < ticket) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    HardwareExecutor.await(write);
   }
 
-  public int getDigitalIOStates() {
+  /** Runs on the hardware thread once a queued DIO write is done. */
+  private synchronized void completeDigitalIOWrite(long ticket, int readBack) {
+
+    completedDigitalIOWrites = ticket;
+    // only the newest write knows what the device ends up with
+    if (ticket == submittedDigitalIOWrites) {
+      digitalIOStates = readBack;
+    }
+    notifyAll();
+  }
+
+  public synchronized int getDigitalIOStates() {
 
     return digitalIOStates;
   }
 
+  /** @return the number of DIO round trips skipped because they were unchanged or batched */
+  public synchronized long getAvoidedDigitalIOWrites() {
+
+    return avoidedDigitalIOWrites;
+  }
+
+  /** @return the number of custom pulse train uploads skipped because the AWG already had it */
+  public long getAvoidedAwgUploads() {
+
+    return awgUploadCache.getAvoidedUploads();
+  }
+
+  /** Runs on the hardware thread. */
+  private boolean openDevice(AD2Device dwf) {
+
+    awgUploadCache.invalidateAll();
+
+    // ///////////////////////////////////////////////////////////
+    // Device ///////////////////////////////////////////////////
+    // ///////////////////////////////////////////////////////////
+    boolean isOpen = dwf.FDwfDeviceOpen();
+
+    if (isOpen) {
+
+      // Some device read out stuff
+      // System.out.println("Analog Out Custom Waveform Buffer Size Channel 1:
+      // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_1)));
+      // System.out.println("Analog Out Custom Waveform Buffer Size Channel 2:
+      // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_2)));
+      // System.out.println("Analog In Trigger Position Info: "+
+      // Arrays.toString(dwf.FDwfAnalogInTriggerPositionInfo()));
+
+      // ///////////////////////////////////////////////////////////
+      // Digital I/O //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      dwf.FDwfDigitalIOOutputEnableSet(SWITCHES_MASK);
+      if (boardVersion == 1) {
+        dwf.FDwfDigitalIOOutputSet(DEFAULT_SELECTOR_DIO);
+      } else {
+        dwf.FDwfDigitalIOOutputSet(ALL_DIO_OFF);
+      }
+      dwf.FDwfDigitalIOConfigure();
+      int readBack = dwf.getDigitalIOStatus();
+      synchronized (this) {
+        digitalIOStates = readBack;
+      }
+      swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, true, false);
+
+      // ///////////////////////////////////////////////////////////
+      // Analog I/O //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      dwf.setPowerSupply(0, 5.0);
+      dwf.setPowerSupply(1, -5.0);
+
+      // ///////////////////////////////////////////////////////////
+      // Analog Out //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      // set analog out offset to zero, as it seems like it's not quite there by default
+      dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_1, 0);
+      dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_2, 0);
+      // dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
+
+      // ///////////////////////////////////////////////////////////
+      // Analog In //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_1, true);
+      dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_1, 2.5);
+      dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_2, true);
+      dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_2, 2.5);
+
+      // Set this to false (default=true). Need to call FDwfAnalogOutConfigure(true),
+      // FDwfAnalogInConfigure(true) in order for *Set* methods to take effect.
+      dwf.FDwfDeviceAutoConfigureSet(false);
+    } else {
+
+      System.out.println(dwf.FDwfGetLastErrorMsg());
+    }
+    return isOpen;
+  }
+
   // //////////////////////////////////////////////////////////
   // Getters and Setters //////////////////////////////////////
   // //////////////////////////////////////////////////////////
@@ -349,14 +932,50 @@ public class DWFProxy {
     return isAD2Running;
   }
 
-  public DWF getDwf() {
+  public int getBoardVersion() {
 
-    return dwf;
+    return boardVersion;
   }
 
-  public int getBoardVersion() {
+  /**
+   * @return the position of this device in {@link #createAll(int)}
+   */
+  public int getDeviceIndex() {
 
-    return boardVersion;
+    return deviceIndex;
+  }
+
+  public HardwareMetrics getHardwareMetrics() {
+
+    return hardwareMetrics;
+  }
+
+  /**
+   * @return the per-operation latencies and counters, plus the device round trips the DIO shadow
+   *     register and the AWG upload cache saved
+   */
+  public String getHardwareMetricsReport() {
+
+    return hardwareMetrics.report()
+        + String.format("%-16s %10d%n", "DIO_WRITE_SAVED", getAvoidedDigitalIOWrites())
+        + String.format("%-16s %10d%n", "AWG_UPLOAD_SAVED", getAvoidedAwgUploads());
+  }
+
+  /**
+   * Dump {@link #getHardwareMetricsReport()} to a file, e.g. at the end of a run.
+   *
+   * @param path
+   * @throws IOException
+   */
+  public void writeHardwareMetrics(Path path) throws IOException {
+
+    Files.write(path, getHardwareMetricsReport().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** @return the pool that pooled captures are read into */
+  public SampleBufferPool getSampleBufferPool() {
+
+    return sampleBufferPool;
   }
 
   private class AD2StartupWorker extends SwingWorker<Boolean, Void> {
@@ -364,64 +983,7 @@ public class DWFProxy {
     @Override
     protected Boolean doInBackground() {
 
-      // ///////////////////////////////////////////////////////////
-      // Device ///////////////////////////////////////////////////
-      // ///////////////////////////////////////////////////////////
-      isAD2Running = dwf.FDwfDeviceOpen();
-
-      if (isAD2Running) {
-
-        // Some device read out stuff
-        // System.out.println("Analog Out Custom Waveform Buffer Size Channel 1:
-        // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_1)));
-        // System.out.println("Analog Out Custom Waveform Buffer Size Channel 2:
-        // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_2)));
-        // System.out.println("Analog In Trigger Position Info: "+
-        // Arrays.toString(dwf.FDwfAnalogInTriggerPositionInfo()));
-
-        // ///////////////////////////////////////////////////////////
-        // Digital I/O //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        dwf.FDwfDigitalIOOutputEnableSet(SWITCHES_MASK);
-        if (boardVersion == 1) {
-          digitalIOStates = DEFAULT_SELECTOR_DIO;
-        } else {
-          digitalIOStates = ALL_DIO_OFF;
-        }
-        dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-        dwf.FDwfDigitalIOConfigure();
-        digitalIOStates = dwf.getDigitalIOStatus();
-        swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, true, false);
-
-        // ///////////////////////////////////////////////////////////
-        // Analog I/O //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        dwf.setPowerSupply(0, 5.0);
-        dwf.setPowerSupply(1, -5.0);
-
-        // ///////////////////////////////////////////////////////////
-        // Analog Out //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        // set analog out offset to zero, as it seems like it's not quite there by default
-        dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_1, 0);
-        dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_2, 0);
-        // dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
-
-        // ///////////////////////////////////////////////////////////
-        // Analog In //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_1, true);
-        dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_1, 2.5);
-        dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_2, true);
-        dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_2, 2.5);
-
-        // Set this to false (default=true). Need to call FDwfAnalogOutConfigure(true),
-        // FDwfAnalogInConfigure(true) in order for *Set* methods to take effect.
-        dwf.FDwfDeviceAutoConfigureSet(false);
-      } else {
-
-        System.out.println(dwf.FDwfGetLastErrorMsg());
-      }
+      openAD2();
       // swingPropertyChangeSupport.firePropertyChange(DWFProxy.AD2_STARTUP_CHANGE, !isAD2Running,
       // isAD2Running);
       return isAD2Running;
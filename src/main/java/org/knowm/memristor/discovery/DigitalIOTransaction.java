@@ -0,0 +1,102 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.List;
+
+/**
+ * Collects switch and mux changes so they go to the AD2 as one digital I/O write. Changes are
+ * made against a local copy of the DIO states and only the bits touched here are applied on
+ * {@link #commit()}. Get one from {@link DWFProxy#beginDigitalIOTransaction()}.
+ */
+public class DigitalIOTransaction {
+
+  private final DWFProxy dwfProxy;
+  private int states;
+  private int touchedMask = 0;
+  private int updates = 0;
+
+  DigitalIOTransaction(DWFProxy dwfProxy, int states) {
+
+    this.dwfProxy = dwfProxy;
+    this.states = states;
+  }
+
+  public DigitalIOTransaction set(int io, boolean isOn) {
+
+    return setMasked(1 << io, isOn);
+  }
+
+  public DigitalIOTransaction set(List<Integer> ios, int offset, boolean isOn) {
+
+    int mask = 0;
+    for (int io : ios) {
+      mask |= 1 << (io + offset);
+    }
+    return setMasked(mask, isOn);
+  }
+
+  public DigitalIOTransaction set(List<Integer> ios, boolean isOn) {
+
+    return set(ios, 0, isOn);
+  }
+
+  /** Same as {@link DWFProxy#setUpper8IOStates(int)}. */
+  public DigitalIOTransaction setUpper8(int upper8SetMask) {
+
+    int upper8 = 0b1111_1111_0000_0000;
+    states = (states & ~upper8) | (upper8SetMask & upper8);
+    touchedMask |= upper8;
+    updates++;
+    return this;
+  }
+
+  /** Same as {@link DWFProxy#turnOffAllSwitches(int)}. */
+  public DigitalIOTransaction turnOffAllSwitches(int boardVersion) {
+
+    return setMasked(boardVersion == 2 ? DWFProxy.SWITCHES_MASK : 0b0000_0000_1111_1111, false);
+  }
+
+  private DigitalIOTransaction setMasked(int mask, boolean isOn) {
+
+    if (isOn) {
+      states |= mask;
+    } else {
+      states &= ~mask;
+    }
+    touchedMask |= mask;
+    updates++;
+    return this;
+  }
+
+  /**
+   * Write the collected changes. The write is skipped if they don't change anything.
+   *
+   * @return the DIO states read back from the device
+   */
+  public int commit() {
+
+    return dwfProxy.commitDigitalIOTransaction(states, touchedMask, updates);
+  }
+}
@@ -32,7 +32,10 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
+import java.util.List;
 import javax.swing.AbstractAction;
 import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
@@ -100,7 +103,9 @@ public class MemristorDiscovery
 
   private int boardVersion;
 
+  // the GUI's board, and every board for the experiments that can run several at once
   private DWFProxy dwf;
+  private List<DWFProxy> dwfs;
   private Experiment experiment;
   private String experimentName;
 
@@ -164,7 +169,8 @@ public class MemristorDiscovery
       mainFrame.dispose(); // Destroy the JFrame object
       shutdownDWF();
     }
-    this.dwf = new DWFProxy(boardVersion);
+    this.dwfs = DWFProxy.createAll(boardVersion);
+    this.dwf = dwfs.get(0);
 
     GenericApplicationSpecification specification = new GenericApplicationSpecification();
     specification.getQuitEventListeners().add(this);
@@ -284,11 +290,7 @@ public class MemristorDiscovery
                 @Override
                 public void actionPerformed(ActionEvent e) {
 
-                  try {
-                    dwf.shutdownAD2();
-                  } catch (DWFException e1) {
-                    e1.printStackTrace();
-                  }
+                  shutdownBoards();
                   Container mainFrameContainer = mainFrame.getContentPane();
                   mainFrameContainer.removeAll();
                   mainFrameContainer.revalidate();
@@ -315,11 +317,11 @@ public class MemristorDiscovery
                       break;
                     case "BoardCheck":
                       experiment =
-                          new BoardCheckExperiment(dwf, mainFrame.getContentPane(), boardVersion);
+                          new BoardCheckExperiment(dwfs, mainFrame.getContentPane(), boardVersion);
                       break;
                     case "ShelfLife":
                       experiment =
-                          new ShelfLifeExperiment(dwf, mainFrame.getContentPane(), boardVersion);
+                          new ShelfLifeExperiment(dwfs, mainFrame.getContentPane(), boardVersion);
                       break;
 
                     default:
@@ -330,7 +332,7 @@ public class MemristorDiscovery
                   // for result message from experiments
                   experiment.getControlModel().addListener(MemristorDiscovery.this);
 
-                  dwf.startupAD2();
+                  startupBoards();
 
                   mainFrame.setTitle(FRAME_TITLE_BASE + e.getActionCommand());
                 }
@@ -354,11 +356,7 @@ public class MemristorDiscovery
                   @Override
                   public void actionPerformed(ActionEvent e) {
 
-                    try {
-                      dwf.shutdownAD2();
-                    } catch (DWFException e1) {
-                      e1.printStackTrace();
-                    }
+                    shutdownBoards();
                     Container mainFrameContainer = mainFrame.getContentPane();
                     mainFrameContainer.removeAll();
                     mainFrameContainer.revalidate();
@@ -387,7 +385,7 @@ public class MemristorDiscovery
                     // for result message from experiments
                     experiment.getControlModel().addListener(MemristorDiscovery.this);
 
-                    dwf.startupAD2();
+                    startupBoards();
 
                     mainFrame.setTitle(FRAME_TITLE_BASE + e.getActionCommand());
                   }
@@ -414,11 +412,7 @@ public class MemristorDiscovery
                   @Override
                   public void actionPerformed(ActionEvent e) {
 
-                    try {
-                      dwf.shutdownAD2();
-                    } catch (DWFException e1) {
-                      e1.printStackTrace();
-                    }
+                    shutdownBoards();
                     Container mainFrameContainer = mainFrame.getContentPane();
                     mainFrameContainer.removeAll();
                     mainFrameContainer.revalidate();
@@ -453,7 +447,7 @@ public class MemristorDiscovery
                     // for result message from experiments
                     experiment.getControlModel().addListener(MemristorDiscovery.this);
 
-                    dwf.startupAD2();
+                    startupBoards();
 
                     mainFrame.setTitle(FRAME_TITLE_BASE + e.getActionCommand());
                   }
@@ -531,11 +525,11 @@ public class MemristorDiscovery
 
     switch (memristorDiscoveryPreferences.getExperiment()) {
       case "ShelfLife":
-        experiment = new ShelfLifeExperiment(dwf, mainFrameContainer, boardVersion);
+        experiment = new ShelfLifeExperiment(dwfs, mainFrameContainer, boardVersion);
         experimentName = "ShelfLife";
         break;
       case "BoardCheck":
-        experiment = new BoardCheckExperiment(dwf, mainFrameContainer, boardVersion);
+        experiment = new BoardCheckExperiment(dwfs, mainFrameContainer, boardVersion);
         experimentName = "BoardCheck";
         break;
       case "DC":
@@ -591,7 +585,7 @@ public class MemristorDiscovery
     // center the jframe on screen
     mainFrame.setLocationRelativeTo(null);
 
-    dwf.startupAD2();
+    startupBoards();
   }
 
   private void updateBoardPreferences(String boardVersion) {
@@ -630,11 +624,53 @@ public class MemristorDiscovery
     System.exit(0);
   }
 
+  private void startupBoards() {
+
+    for (DWFProxy boardProxy : dwfs) {
+      boardProxy.startupAD2();
+    }
+  }
+
+  private void shutdownBoards() {
+
+    for (DWFProxy boardProxy : dwfs) {
+      try {
+        boardProxy.shutdownAD2();
+      } catch (DWFException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
   private void shutdownDWF() {
     try {
-      dwf.shutdownAD2();
-    } catch (DWFException e) {
-      e.printStackTrace();
+      shutdownBoards();
+    } finally {
+      writeHardwareMetrics();
+      for (DWFProxy boardProxy : dwfs) {
+        boardProxy.dispose();
+      }
+    }
+  }
+
+  /**
+   * Dump the device latency report, if a file for it was given on the command line. Boards after
+   * the first get the file name with their index appended.
+   */
+  private void writeHardwareMetrics() {
+
+    String metricsFile = System.getProperty(DWFProxy.METRICS_FILE_PROPERTY);
+    if (metricsFile == null) {
+      return;
+    }
+    for (DWFProxy boardProxy : dwfs) {
+      int deviceIndex = boardProxy.getDeviceIndex();
+      try {
+        boardProxy.writeHardwareMetrics(
+            Paths.get(deviceIndex == 0 ? metricsFile : metricsFile + "." + deviceIndex));
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
     }
   }
 
@@ -0,0 +1,205 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+/**
+ * Turns a raw two channel scope capture into everything the experiment charts plot: time, the two
+ * channels, the voltage across the memristor, the current through it and its conductance. All of it
+ * is computed in one pass over the samples by {@link SampleKernels#deriveSeries}, and trimming the
+ * idle lead-in and tail is just a window into the raw arrays rather than a copy of them.
+ *
+ * <p>V2 boards are wired 'upside down and backwards' from the others: the resistor-memristor node
+ * is on scope channel 1, the source on channel 2, and the memristor polarity is reversed.
+ */
+public class CaptureProcessor {
+
+  private final int boardVersion;
+  private final double seriesResistance;
+  private final double timeStep;
+  private final double currentDivisor;
+  private final double conductanceDivisor;
+
+  private boolean normalizeChannels = false;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param seriesResistance - in Ohms
+   * @param timeStep - time between samples, in the time unit the charts use
+   * @param currentDivisor - from the experiment's current unit
+   * @param conductanceDivisor - from the experiment's conductance unit
+   */
+  public CaptureProcessor(
+      int boardVersion,
+      double seriesResistance,
+      double timeStep,
+      double currentDivisor,
+      double conductanceDivisor) {
+
+    this.boardVersion = boardVersion;
+    this.seriesResistance = seriesResistance;
+    this.timeStep = timeStep;
+    this.currentDivisor = currentDivisor;
+    this.conductanceDivisor = conductanceDivisor;
+  }
+
+  /**
+   * On V2 boards, hand back the channels the way a V0/V1 board would show them: V1 is the negated
+   * source and V2 the negated memristor node. Has no effect on other boards.
+   *
+   * @param normalizeChannels
+   * @return this
+   */
+  public CaptureProcessor setNormalizeChannels(boolean normalizeChannels) {
+
+    this.normalizeChannels = normalizeChannels;
+    return this;
+  }
+
+  /** Process the whole capture. */
+  public Series process(double[] v1, double[] v2) {
+
+    return process(v1, v2, 0, v1.length);
+  }
+
+  /**
+   * Process only the part of the capture where something is happening, as {@link
+   * PostProcessDataUtils#trimIdleData(double[], double[], double, int)} would trim it.
+   *
+   * @param v1
+   * @param v2
+   * @param vThreshold
+   * @param windowBuffer - how many data points outside the window should be included
+   */
+  public Series processActive(double[] v1, double[] v2, double vThreshold, int windowBuffer) {
+
+    int[] window = PostProcessDataUtils.findActiveWindow(v1, v2, vThreshold, windowBuffer);
+    return process(v1, v2, window[0], window[1]);
+  }
+
+  /**
+   * Process the samples in [offset, offset + length).
+   *
+   * @param v1
+   * @param v2
+   * @param offset
+   * @param length
+   */
+  public Series process(double[] v1, double[] v2, int offset, int length) {
+
+    Series series = new Series(offset, length);
+    SampleKernels.get()
+        .deriveSeries(
+            v1,
+            v2,
+            offset,
+            length,
+            boardVersion == 2,
+            normalizeChannels,
+            timeStep,
+            currentDivisor / seriesResistance,
+            conductanceDivisor / seriesResistance,
+            new double[][] {
+              series.time,
+              series.v1,
+              series.v2,
+              series.vMemristor,
+              series.current,
+              series.conductance
+            });
+    return series;
+  }
+
+  /** The derived series of one capture, all of the same length. */
+  public static class Series {
+
+    private final int offset;
+    private final int length;
+    private final double[] time;
+    private final double[] v1;
+    private final double[] v2;
+    private final double[] vMemristor;
+    private final double[] current;
+    private final double[] conductance;
+
+    private Series(int offset, int length) {
+
+      this.offset = offset;
+      this.length = length;
+      this.time = new double[length];
+      this.v1 = new double[length];
+      this.v2 = new double[length];
+      this.vMemristor = new double[length];
+      this.current = new double[length];
+      this.conductance = new double[length];
+    }
+
+    /**
+     * @return where in the raw capture the series start
+     */
+    public int getOffset() {
+
+      return offset;
+    }
+
+    public int getLength() {
+
+      return length;
+    }
+
+    public double[] getTime() {
+
+      return time;
+    }
+
+    public double[] getV1() {
+
+      return v1;
+    }
+
+    public double[] getV2() {
+
+      return v2;
+    }
+
+    public double[] getVMemristor() {
+
+      return vMemristor;
+    }
+
+    public double[] getCurrent() {
+
+      return current;
+    }
+
+    /**
+     * @return the conductance, clamped at zero
+     */
+    public double[] getConductance() {
+
+      return conductance;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+/**
+ * Thins a series down to what a chart can actually show. The series is cut into one bucket per
+ * pixel column and only the smallest and largest sample of each bucket are kept, in their original
+ * order, so narrow spikes survive and the plotted envelope looks the same as the full data. Charts
+ * then get about twice their width in points no matter how long the capture is.
+ */
+public class ChartDecimator {
+
+  /** used when the chart hasn't been laid out yet and has no width */
+  public static final int DEFAULT_WIDTH = 1000;
+
+  private ChartDecimator() {}
+
+  /**
+   * @param pixelWidth - of the chart, 0 or less if unknown
+   * @return how many buckets to cut a series into
+   */
+  public static int bucketsFor(int pixelWidth) {
+
+    return pixelWidth > 0 ? pixelWidth : DEFAULT_WIDTH;
+  }
+
+  /**
+   * Pick the samples to plot: the first and last, and the min and max of y in each bucket.
+   *
+   * @param y
+   * @param buckets
+   * @return the indices to keep, ascending; every index if y is already short enough
+   */
+  public static int[] minMaxIndices(double[] y, int buckets) {
+
+    int n = y.length;
+    if (n <= 2 * buckets + 2) {
+      int[] all = new int[n];
+      for (int i = 0; i < n; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+
+    int[] indices = new int[2 * buckets + 2];
+    int count = 0;
+    indices[count++] = 0;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+
+      int from = (int) ((long) bucket * n / buckets);
+      int to = (int) ((long) (bucket + 1) * n / buckets);
+      int minIndex = from;
+      int maxIndex = from;
+      for (int i = from + 1; i < to; i++) {
+        if (y[i] < y[minIndex]) {
+          minIndex = i;
+        } else if (y[i] > y[maxIndex]) {
+          maxIndex = i;
+        }
+      }
+
+      int first = Math.min(minIndex, maxIndex);
+      int second = Math.max(minIndex, maxIndex);
+      if (first > indices[count - 1]) {
+        indices[count++] = first;
+      }
+      if (second > indices[count - 1]) {
+        indices[count++] = second;
+      }
+    }
+    if (indices[count - 1] != n - 1) {
+      indices[count++] = n - 1;
+    }
+
+    int[] trimmed = new int[count];
+    System.arraycopy(indices, 0, trimmed, 0, count);
+    return trimmed;
+  }
+
+  /**
+   * @param values
+   * @param indices - from {@link #minMaxIndices(double[], int)}
+   * @return values[indices[0]], values[indices[1]] ...
+   */
+  public static double[] gather(double[] values, int[] indices) {
+
+    double[] gathered = new double[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      gathered[i] = values[indices[i]];
+    }
+    return gathered;
+  }
+
+  /**
+   * Decimate an (x, y) series by its y values.
+   *
+   * @param x - may be null, for charts that number the samples themselves
+   * @param y
+   * @param pixelWidth - of the chart, 0 or less if unknown
+   * @return {x, y} to plot; the arrays passed in if there's nothing to drop. A null x comes back
+   *     as the 1-based sample numbers that were kept, so the points stay where they were.
+   */
+  public static double[][] decimate(double[] x, double[] y, int pixelWidth) {
+
+    int buckets = bucketsFor(pixelWidth);
+    if (y.length <= 2 * buckets + 2) {
+      return new double[][] {x, y};
+    }
+    int[] indices = minMaxIndices(y, buckets);
+    double[] decimatedX;
+    if (x == null) {
+      decimatedX = new double[indices.length];
+      for (int i = 0; i < indices.length; i++) {
+        decimatedX[i] = indices[i] + 1;
+      }
+    } else {
+      decimatedX = gather(x, indices);
+    }
+    return new double[][] {decimatedX, gather(y, indices)};
+  }
+}
@@ -89,6 +89,30 @@ public class PostProcessDataUtils {
   public static double[][] trimIdleData(
       double[] v1, double[] v2, double vThreshold, int windowBuffer) {
 
+    int[] window = findActiveWindow(v1, v2, vThreshold, windowBuffer);
+    int startIndex = window[0];
+    int bufferLength = window[1];
+
+    double[] V1Cleaned = new double[bufferLength];
+    double[] V2Cleaned = new double[bufferLength];
+    System.arraycopy(v1, startIndex, V1Cleaned, 0, bufferLength);
+    System.arraycopy(v2, startIndex, V2Cleaned, 0, bufferLength);
+    return new double[][] {V1Cleaned, V2Cleaned};
+  }
+
+  /**
+   * Find the window {@link #trimIdleData(double[], double[], double, int)} would keep, without
+   * copying anything.
+   *
+   * @param v1
+   * @param v2
+   * @param vThreshold
+   * @param windowBuffer - how many data points outside the window should be included
+   * @return {offset, length}
+   */
+  public static int[] findActiveWindow(
+      double[] v1, double[] v2, double vThreshold, int windowBuffer) {
+
     double vThresholdAbs = Math.abs(vThreshold);
     int startIndex = 0;
     for (int i = 0; i < v1.length; i++) {
@@ -109,15 +133,7 @@ public class PostProcessDataUtils {
     // add a little extra to the end so we can capture RC effects.
     // System.out.println("endIndex = " + endIndex);
 
-    int bufferLength = endIndex - startIndex;
-
-    double[] V1Cleaned = new double[bufferLength];
-    double[] V2Cleaned = new double[bufferLength];
-    for (int i = 0; i < bufferLength; i++) {
-      V1Cleaned[i] = v1[i + startIndex];
-      V2Cleaned[i] = v2[i + startIndex];
-    }
-    return new double[][] {V1Cleaned, V2Cleaned};
+    return new int[] {startIndex, Math.max(0, endIndex - startIndex)};
   }
 
   /**
@@ -129,38 +145,51 @@ public class PostProcessDataUtils {
    */
   public static double[] zeroIdleData(double[] v1, double[] v2, double v1Threshold) {
 
-    double vThresholdAbs = Math.abs(v1Threshold);
-
     double[] V2Zeroed = new double[v1.length];
-    V2Zeroed[0] = 0;
-    V2Zeroed[V2Zeroed.length - 1] = 0;
-    for (int i = 1; i < V2Zeroed.length - 1; i++) {
-      if (Math.abs(v1[i]) > vThresholdAbs) {
-        V2Zeroed[i] = v2[i];
-      } else {
-        V2Zeroed[i - 1] = 0;
-        V2Zeroed[i] = 0;
-        V2Zeroed[i + 1] = 0;
-      }
-    }
+    SampleKernels.get().zeroIdle(v1, v2, Math.abs(v1Threshold), V2Zeroed);
     return V2Zeroed;
   }
 
   public static double[] invert(double[] v) {
 
     double[] vminus = new double[v.length];
-    for (int i = 0; i < v.length; i++) {
-      vminus[i] = -v[i];
-    }
+    SampleKernels.get().negate(v, vminus, v.length);
+    return vminus;
+  }
+
+  /**
+   * Invert into a caller-owned array, e.g. one from a {@link
+   * org.knowm.memristor.discovery.core.dwf.SampleBufferPool}.
+   *
+   * @param v
+   * @param vminus - receives -v, at least as long as v
+   * @return vminus
+   */
+  public static double[] invert(double[] v, double[] vminus) {
+
+    SampleKernels.get().negate(v, vminus, v.length);
     return vminus;
   }
 
   public static double[] getV1MinusV2(double[] v1, double[] v2) {
 
     double[] V2MinusV1 = new double[v1.length];
-    for (int i = 0; i < V2MinusV1.length; i++) {
-      V2MinusV1[i] = v1[i] - v2[i];
-    }
+    SampleKernels.get().subtract(v1, v2, V2MinusV1, V2MinusV1.length);
     return V2MinusV1;
   }
+
+  /**
+   * Subtract into a caller-owned array, e.g. one from a {@link
+   * org.knowm.memristor.discovery.core.dwf.SampleBufferPool}.
+   *
+   * @param v1
+   * @param v2
+   * @param v1MinusV2 - receives v1 - v2, at least as long as v1
+   * @return v1MinusV2
+   */
+  public static double[] getV1MinusV2(double[] v1, double[] v2, double[] v1MinusV2) {
+
+    SampleKernels.get().subtract(v1, v2, v1MinusV2, v1.length);
+    return v1MinusV2;
+  }
 }
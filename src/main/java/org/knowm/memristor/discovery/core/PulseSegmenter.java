@@ -0,0 +1,359 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import java.util.Arrays;
+
+/**
+ * Splits a capture of a pulse train into its pulses and measures each one: peak current, the
+ * charge and energy it delivered, and the memristor conductance at its end. The drive voltage goes
+ * through a Schmitt trigger so noise on the idle baseline or on a pulse's top doesn't chop it up: a
+ * pulse starts where |drive| climbs above the low threshold, only counts once it also clears the
+ * high threshold, and ends where it falls back below the low one. Both thresholds are fractions of
+ * the capture's peak drive, never below {@link #NOISE_FLOOR}, and spikes narrower than {@link
+ * #MIN_WIDTH} samples are dropped. All metrics are accumulated in the same single pass over the
+ * samples that finds the edges.
+ */
+public class PulseSegmenter {
+
+  /** drives smaller than this are taken as noise, same as the idle trimming threshold */
+  public static final double NOISE_FLOOR = 0.05;
+
+  /** fraction of the peak drive a pulse has to reach */
+  public static final double HIGH_FRACTION = 0.5;
+
+  /** fraction of the peak drive below which a pulse has ended */
+  public static final double LOW_FRACTION = 0.2;
+
+  /** anything narrower than this many samples is a glitch, not a pulse */
+  public static final int MIN_WIDTH = 3;
+
+  /** samples averaged for the end-of-pulse conductance */
+  public static final int END_SAMPLES = 4;
+
+  private final double timeStep;
+  private final double currentDivisor;
+
+  /**
+   * Constructor
+   *
+   * @param timeStep - between samples, in seconds
+   * @param currentDivisor - of the unit the current series is in, to get charge and energy in SI
+   */
+  public PulseSegmenter(double timeStep, double currentDivisor) {
+
+    this.timeStep = timeStep;
+    this.currentDivisor = currentDivisor;
+  }
+
+  /**
+   * @param series - a processed capture
+   * @param drive - the voltage applied across memristor and series resistor, same length as the
+   *     series
+   * @return the pulses found
+   */
+  public Pulses segment(CaptureProcessor.Series series, double[] drive) {
+
+    return segment(drive, series.getCurrent(), series.getConductance(), series.getLength());
+  }
+
+  /**
+   * @param drive - the voltage applied across memristor and series resistor
+   * @param current
+   * @param conductance - may be null
+   * @param length - samples to look at
+   * @return the pulses found
+   */
+  public Pulses segment(double[] drive, double[] current, double[] conductance, int length) {
+
+    // only the samples looked at, the array may be a longer pooled one
+    double peakDrive = 0;
+    for (int i = 0; i < length; i++) {
+      double d = Math.abs(drive[i]);
+      if (d > peakDrive) {
+        peakDrive = d;
+      }
+    }
+    if (peakDrive < NOISE_FLOOR) {
+      return new Pulses(0);
+    }
+    double high = Math.max(peakDrive * HIGH_FRACTION, NOISE_FLOOR);
+    double low = Math.max(peakDrive * LOW_FRACTION, NOISE_FLOOR / 2);
+
+    Pulses pulses = new Pulses(16);
+    boolean inPulse = false;
+    boolean confirmed = false;
+    int start = 0;
+    int peakIndex = 0;
+    double peakCurrent = 0;
+    double charge = 0;
+    double energy = 0;
+    double coulombsPerSample = timeStep / currentDivisor;
+
+    for (int i = 0; i < length; i++) {
+
+      double d = Math.abs(drive[i]);
+      if (!inPulse) {
+        if (d <= low) {
+          continue;
+        }
+        inPulse = true;
+        confirmed = false;
+        start = i;
+        peakIndex = i;
+        peakCurrent = 0;
+        charge = 0;
+        energy = 0;
+      } else if (d < low) {
+        if (confirmed && i - start >= MIN_WIDTH) {
+          pulses.add(
+              start,
+              i,
+              peakIndex,
+              peakCurrent,
+              charge,
+              energy,
+              endConductance(conductance, start, i));
+        }
+        inPulse = false;
+        continue;
+      }
+
+      confirmed |= d >= high;
+      double c = current[i];
+      if (Math.abs(c) > Math.abs(peakCurrent)) {
+        peakCurrent = c;
+        peakIndex = i;
+      }
+      charge += c * coulombsPerSample;
+      energy += Math.abs(drive[i] * c) * coulombsPerSample;
+    }
+
+    // a pulse cut off by the end of the capture is still a pulse, just a truncated one
+    if (inPulse && confirmed && length - start >= MIN_WIDTH) {
+      pulses.add(
+          start,
+          length,
+          peakIndex,
+          peakCurrent,
+          charge,
+          energy,
+          endConductance(conductance, start, length));
+    }
+    return pulses;
+  }
+
+  private static double endConductance(double[] conductance, int start, int end) {
+
+    if (conductance == null) {
+      return Double.NaN;
+    }
+    int from = Math.max(start, end - END_SAMPLES);
+    double sum = 0;
+    for (int i = from; i < end; i++) {
+      sum += conductance[i];
+    }
+    return sum / (end - from);
+  }
+
+  /** The pulses found in one capture, in order. Indices are into the arrays segmented. */
+  public static class Pulses {
+
+    private int count = 0;
+    private int[] start;
+    private int[] end;
+    private int[] peakIndex;
+    private double[] peakCurrent;
+    private double[] charge;
+    private double[] energy;
+    private double[] endConductance;
+
+    private Pulses(int capacity) {
+
+      start = new int[capacity];
+      end = new int[capacity];
+      peakIndex = new int[capacity];
+      peakCurrent = new double[capacity];
+      charge = new double[capacity];
+      energy = new double[capacity];
+      endConductance = new double[capacity];
+    }
+
+    private void add(
+        int start,
+        int end,
+        int peakIndex,
+        double peakCurrent,
+        double charge,
+        double energy,
+        double endConductance) {
+
+      if (count == this.start.length) {
+        int capacity = Math.max(16, count * 2);
+        this.start = Arrays.copyOf(this.start, capacity);
+        this.end = Arrays.copyOf(this.end, capacity);
+        this.peakIndex = Arrays.copyOf(this.peakIndex, capacity);
+        this.peakCurrent = Arrays.copyOf(this.peakCurrent, capacity);
+        this.charge = Arrays.copyOf(this.charge, capacity);
+        this.energy = Arrays.copyOf(this.energy, capacity);
+        this.endConductance = Arrays.copyOf(this.endConductance, capacity);
+      }
+      this.start[count] = start;
+      this.end[count] = end;
+      this.peakIndex[count] = peakIndex;
+      this.peakCurrent[count] = peakCurrent;
+      this.charge[count] = charge;
+      this.energy[count] = energy;
+      this.endConductance[count] = endConductance;
+      count++;
+    }
+
+    public int getCount() {
+
+      return count;
+    }
+
+    /**
+     * @return index of the first sample of pulse i
+     */
+    public int getStart(int i) {
+
+      return start[i];
+    }
+
+    /**
+     * @return index one past the last sample of pulse i
+     */
+    public int getEnd(int i) {
+
+      return end[i];
+    }
+
+    /**
+     * @return index of the sample with the largest |current| in pulse i
+     */
+    public int getPeakIndex(int i) {
+
+      return peakIndex[i];
+    }
+
+    /**
+     * @return the current with the largest magnitude in pulse i, in the units of the series
+     */
+    public double getPeakCurrent(int i) {
+
+      return peakCurrent[i];
+    }
+
+    /**
+     * @return the charge pulse i moved, in C
+     */
+    public double getCharge(int i) {
+
+      return charge[i];
+    }
+
+    /**
+     * @return the energy pulse i delivered to memristor and series resistor, in J
+     */
+    public double getEnergy(int i) {
+
+      return energy[i];
+    }
+
+    /**
+     * @return the conductance over the last samples of pulse i, in the units of the series, NaN if
+     *     there was no conductance series
+     */
+    public double getEndConductance(int i) {
+
+      return endConductance[i];
+    }
+
+    /**
+     * @return the energy of all pulses, in J
+     */
+    public double getTotalEnergy() {
+
+      double total = 0;
+      for (int i = 0; i < count; i++) {
+        total += energy[i];
+      }
+      return total;
+    }
+
+    /**
+     * @param values - a series the pulses were found in, such as time
+     * @return values at each pulse's peak
+     */
+    public double[] atPeaks(double[] values) {
+
+      double[] atPeaks = new double[count];
+      for (int i = 0; i < count; i++) {
+        atPeaks[i] = values[peakIndex[i]];
+      }
+      return atPeaks;
+    }
+
+    /**
+     * @return the peak currents, one per pulse
+     */
+    public double[] getPeakCurrents() {
+
+      return Arrays.copyOf(peakCurrent, count);
+    }
+
+    /**
+     * @param currentUnit - label of the peak current's unit
+     * @param conductanceUnit - label of the end conductance's unit
+     * @return the pulses as CSV, one line per pulse after a header line
+     */
+    public String toCsv(String currentUnit, String conductanceUnit) {
+
+      StringBuilder sb = new StringBuilder();
+      sb.append("Pulse,Start,End,Peak Current [")
+          .append(currentUnit)
+          .append("],Charge [C],Energy [J],End Conductance [")
+          .append(conductanceUnit)
+          .append("]\n");
+      for (int i = 0; i < count; i++) {
+        sb.append(i + 1)
+            .append(',')
+            .append(start[i])
+            .append(',')
+            .append(end[i])
+            .append(',')
+            .append(peakCurrent[i])
+            .append(',')
+            .append(charge[i])
+            .append(',')
+            .append(energy[i])
+            .append(',')
+            .append(endConductance[i])
+            .append('\n');
+      }
+      return sb.toString();
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+/**
+ * Mean, variance, min and max of a stream of samples, updated one sample at a time with Welford's
+ * method in double precision. Works straight off a range of a capture buffer without copying it,
+ * and two accumulators over disjoint data can be merged, e.g. after a parallel reduction.
+ */
+public class RunningStats {
+
+  private long count = 0;
+  private double mean = 0;
+  private double m2 = 0; // sum of squared deviations from the mean
+
+  private double min = Double.NaN;
+  private long minIndex = 0;
+  private double max = Double.NaN;
+  private long maxIndex = 0;
+
+  /**
+   * @param values
+   * @param from - inclusive
+   * @param to - exclusive
+   * @return the statistics of values[from, to)
+   */
+  public static RunningStats of(double[] values, int from, int to) {
+
+    RunningStats runningStats = new RunningStats();
+    runningStats.addAll(values, from, to);
+    return runningStats;
+  }
+
+  /**
+   * Add a sample. Its index, as reported by {@link #getMinIndex()} and {@link #getMaxIndex()}, is
+   * the number of samples added before it.
+   *
+   * @param x
+   */
+  public void add(double x) {
+
+    if (count == 0 || x < min) {
+      min = x;
+      minIndex = count;
+    }
+    if (count == 0 || x > max) {
+      max = x;
+      maxIndex = count;
+    }
+
+    count++;
+    double delta = x - mean;
+    mean += delta / count;
+    m2 += delta * (x - mean);
+  }
+
+  /**
+   * @param values
+   * @param from - inclusive
+   * @param to - exclusive
+   */
+  public void addAll(double[] values, int from, int to) {
+
+    for (int i = from; i < to; i++) {
+      add(values[i]);
+    }
+  }
+
+  /**
+   * Fold in the statistics of other samples, as if they had been added after the ones already here.
+   *
+   * @param other
+   */
+  public void merge(RunningStats other) {
+
+    if (other.count == 0) {
+      return;
+    }
+    if (count == 0 || other.min < min) {
+      min = other.min;
+      minIndex = count + other.minIndex;
+    }
+    if (count == 0 || other.max > max) {
+      max = other.max;
+      maxIndex = count + other.maxIndex;
+    }
+
+    long total = count + other.count;
+    double delta = other.mean - mean;
+    mean += delta * other.count / total;
+    m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+    count = total;
+  }
+
+  public void reset() {
+
+    count = 0;
+    mean = 0;
+    m2 = 0;
+    min = Double.NaN;
+    minIndex = 0;
+    max = Double.NaN;
+    maxIndex = 0;
+  }
+
+  public long getCount() {
+
+    return count;
+  }
+
+  /**
+   * @return the mean, 0 if empty
+   */
+  public double getAve() {
+
+    return mean;
+  }
+
+  /**
+   * @return the population variance, 0 if empty
+   */
+  public double getVar() {
+
+    return count == 0 ? 0 : m2 / count;
+  }
+
+  /**
+   * @return the sample variance, 0 with fewer than two samples
+   */
+  public double getSampleVar() {
+
+    return count < 2 ? 0 : m2 / (count - 1);
+  }
+
+  public double getStd() {
+
+    return Math.sqrt(getVar());
+  }
+
+  /**
+   * @return the smallest sample, NaN if empty
+   */
+  public double getMin() {
+
+    return min;
+  }
+
+  /**
+   * @return the largest sample, NaN if empty
+   */
+  public double getMax() {
+
+    return max;
+  }
+
+  public long getMinIndex() {
+
+    return minIndex;
+  }
+
+  public long getMaxIndex() {
+
+    return maxIndex;
+  }
+}
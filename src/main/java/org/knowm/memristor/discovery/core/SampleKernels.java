@@ -0,0 +1,103 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+/**
+ * The element-wise math run over every capture. There is a plain scalar implementation and, when
+ * the app runs on JDK 17+ with {@code --add-modules jdk.incubator.vector}, one built on the Vector
+ * API that lives in {@code META-INF/versions/17} of the multi-release jar. Everything else goes
+ * through {@link #get()}, which picks the best one that loads.
+ */
+public interface SampleKernels {
+
+  /** System property that, set to "false", keeps the scalar kernels even when SIMD is available. */
+  String SIMD_PROPERTY = "memristor.discovery.simd";
+
+  /**
+   * @return the fastest kernels this runtime can load
+   */
+  static SampleKernels get() {
+
+    return SampleKernelsLoader.INSTANCE;
+  }
+
+  /**
+   * @return the scalar kernels, e.g. to check the SIMD ones against
+   */
+  static SampleKernels scalar() {
+
+    return ScalarSampleKernels.INSTANCE;
+  }
+
+  String getName();
+
+  /** out[i] = -v[i] */
+  void negate(double[] v, double[] out, int length);
+
+  /** out[i] = a[i] - b[i] */
+  void subtract(double[] a, double[] b, double[] out, int length);
+
+  /**
+   * Copy V2, zeroing it wherever V1 is within the threshold and on both sides of such a sample. See
+   * {@link PostProcessDataUtils#zeroIdleData(double[], double[], double)}.
+   *
+   * @param v1
+   * @param v2
+   * @param vThresholdAbs
+   * @param out - as long as v1
+   */
+  void zeroIdle(double[] v1, double[] v2, double vThresholdAbs, double[] out);
+
+  /**
+   * @return the element with the largest magnitude, keeping its sign; 0 if all are 0
+   */
+  double maxAbs(double[] x);
+
+  /**
+   * The fused loop behind {@link CaptureProcessor}: time, both channels, memristor voltage, current
+   * and clamped conductance for the samples in [offset, offset + length).
+   *
+   * @param v1
+   * @param v2
+   * @param offset
+   * @param length
+   * @param isV2Board
+   * @param swapChannels - write the V2 board channels negated and swapped
+   * @param timeStep
+   * @param currentScale - current divisor over series resistance
+   * @param conductanceScale - conductance divisor over series resistance
+   * @param out - {time, v1, v2, vMemristor, current, conductance}, each at least length long
+   */
+  void deriveSeries(
+      double[] v1,
+      double[] v2,
+      int offset,
+      int length,
+      boolean isV2Board,
+      boolean swapChannels,
+      double timeStep,
+      double currentScale,
+      double conductanceScale,
+      double[][] out);
+}
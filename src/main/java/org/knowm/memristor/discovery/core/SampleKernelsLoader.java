@@ -0,0 +1,55 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Picks the {@link SampleKernels} implementation the first time one is asked for. */
+final class SampleKernelsLoader {
+
+  private static final String VECTOR_KERNELS =
+      "org.knowm.memristor.discovery.core.VectorSampleKernels";
+
+  static final SampleKernels INSTANCE = load();
+
+  private SampleKernelsLoader() {}
+
+  private static SampleKernels load() {
+
+    Logger logger = LoggerFactory.getLogger(SampleKernels.class);
+    if (!"false".equalsIgnoreCase(System.getProperty(SampleKernels.SIMD_PROPERTY))) {
+      try {
+        // only present in the Java 17 part of the jar, and only links with the incubator module
+        SampleKernels kernels =
+            (SampleKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+        logger.debug("Using {} sample kernels", kernels.getName());
+        return kernels;
+      } catch (ReflectiveOperationException | LinkageError e) {
+        logger.debug("Vector API not available, using scalar sample kernels: {}", e.toString());
+      }
+    }
+    return ScalarSampleKernels.INSTANCE;
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+/** Plain loops, for any runtime. Simple enough that C2 usually auto-vectorizes the first two. */
+class ScalarSampleKernels implements SampleKernels {
+
+  static final ScalarSampleKernels INSTANCE = new ScalarSampleKernels();
+
+  @Override
+  public String getName() {
+
+    return "scalar";
+  }
+
+  @Override
+  public void negate(double[] v, double[] out, int length) {
+
+    for (int i = 0; i < length; i++) {
+      out[i] = -v[i];
+    }
+  }
+
+  @Override
+  public void subtract(double[] a, double[] b, double[] out, int length) {
+
+    for (int i = 0; i < length; i++) {
+      out[i] = a[i] - b[i];
+    }
+  }
+
+  @Override
+  public void zeroIdle(double[] v1, double[] v2, double vThresholdAbs, double[] out) {
+
+    out[0] = 0;
+    out[out.length - 1] = 0;
+    for (int i = 1; i < out.length - 1; i++) {
+      if (Math.abs(v1[i]) > vThresholdAbs) {
+        out[i] = v2[i];
+      } else {
+        out[i - 1] = 0;
+        out[i] = 0;
+        out[i + 1] = 0;
+      }
+    }
+  }
+
+  @Override
+  public double maxAbs(double[] x) {
+
+    double max = Float.MIN_VALUE;
+    double b = 0;
+    for (int i = 0; i < x.length; i++) {
+      double a = Math.abs(x[i]);
+      if (a > max) {
+        max = a;
+        b = x[i];
+      }
+    }
+    return b;
+  }
+
+  @Override
+  public void deriveSeries(
+      double[] v1,
+      double[] v2,
+      int offset,
+      int length,
+      boolean isV2Board,
+      boolean swapChannels,
+      double timeStep,
+      double currentScale,
+      double conductanceScale,
+      double[][] out) {
+
+    double[] time = out[0];
+    double[] outV1 = out[1];
+    double[] outV2 = out[2];
+    double[] vMemristor = out[3];
+    double[] current = out[4];
+    double[] conductance = out[5];
+    boolean swap = isV2Board && swapChannels;
+
+    for (int i = 0; i < length; i++) {
+
+      double a = v1[offset + i];
+      double b = v2[offset + i];
+
+      double dv;
+      double vm;
+      if (isV2Board) {
+        dv = a - b;
+        vm = -a;
+      } else {
+        dv = b;
+        vm = a - b;
+      }
+      double g = dv / vm * conductanceScale;
+
+      time[i] = i * timeStep;
+      outV1[i] = swap ? -b : a;
+      outV2[i] = swap ? -a : b;
+      vMemristor[i] = vm;
+      current[i] = dv * currentScale;
+      conductance[i] = g < 0 ? 0 : g;
+    }
+  }
+}
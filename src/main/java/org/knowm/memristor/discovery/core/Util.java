@@ -97,16 +97,7 @@ public class Util {
 
   public static double maxAbs(double[] x) {
 
-    double max = Float.MIN_VALUE;
-    double b = 0;
-    for (int i = 0; i < x.length; i++) {
-      double a = Math.abs(x[i]);
-      if (a > max) {
-        max = a;
-        b = x[i];
-      }
-    }
-    return b;
+    return SampleKernels.get().maxAbs(x);
   }
 
   public static double round(double value, int places) {
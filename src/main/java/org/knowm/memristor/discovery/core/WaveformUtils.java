@@ -23,6 +23,9 @@
  */
 package org.knowm.memristor.discovery.core;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.knowm.memristor.discovery.core.driver.Driver;
 import org.knowm.memristor.discovery.core.driver.pulse.HalfSinePulse;
 import org.knowm.memristor.discovery.core.driver.pulse.QuarterSinePulse;
@@ -42,11 +45,120 @@ import org.knowm.memristor.discovery.core.driver.waveform.TriangleUpDown;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
 import org.knowm.waveforms4j.DWF;
 
+/**
+ * Builds the custom waveforms uploaded to the AWG. A custom waveform is one period sampled at
+ * {@link #CUSTOM_WAVEFORM_LENGTH} points. The amplitude is a linear scale, so each waveform is
+ * worked out once at unit amplitude, kept in a table, and every call after that is a single
+ * multiply per sample into the caller's buffer. The tables are keyed on the exact pulse width or
+ * frequency as well as the shape: those only set how fast the AWG plays a period back, but the
+ * floating point sample times they give decide which side of an edge a sample right on it falls.
+ */
 public class WaveformUtils {
 
+  /** samples in one period of a custom waveform */
+  public static final int CUSTOM_WAVEFORM_LENGTH = 4096;
+
+  /** widths, frequencies and duty cycles come off sliders, so only keep the most recently used */
+  private static final int MAX_TABLES = 32;
+
+  private static final Map<TableKey, double[]> WAVEFORM_TABLES = newTableCache();
+
+  private static final Map<TableKey, double[]> PULSE_TABLES = newTableCache();
+
   public static double[] generateCustomPulse(
       Waveform waveform, double amplitude, double pulseWidthInNS, double dutyCycle) {
 
+    return generateCustomPulse(
+        waveform, amplitude, pulseWidthInNS, dutyCycle, new double[CUSTOM_WAVEFORM_LENGTH]);
+  }
+
+  /**
+   * Same as {@link #generateCustomPulse(Waveform, double, double, double)}, written into a buffer
+   * the caller reuses.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param pulseWidthInNS
+   * @param dutyCycle
+   * @param buffer - at least {@link #CUSTOM_WAVEFORM_LENGTH} long
+   * @return buffer
+   */
+  public static double[] generateCustomPulse(
+      Waveform waveform,
+      double amplitude,
+      double pulseWidthInNS,
+      double dutyCycle,
+      double[] buffer) {
+
+    double[] table =
+        PULSE_TABLES.computeIfAbsent(
+            new TableKey(waveform, pulseWidthInNS, dutyCycle),
+            key -> sample(newPulseDriver(waveform, 1, pulseWidthInNS, dutyCycle)));
+    return scale(table, amplitude, buffer);
+  }
+
+  public static double[] generateCustomWaveform(
+      Waveform waveform, double amplitude, double frequency) {
+
+    return generateCustomWaveform(
+        waveform, amplitude, frequency, new double[CUSTOM_WAVEFORM_LENGTH]);
+  }
+
+  /**
+   * Same as {@link #generateCustomWaveform(Waveform, double, double)}, written into a buffer the
+   * caller reuses.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param frequency
+   * @param buffer - at least {@link #CUSTOM_WAVEFORM_LENGTH} long
+   * @return buffer
+   */
+  public static double[] generateCustomWaveform(
+      Waveform waveform, double amplitude, double frequency, double[] buffer) {
+
+    double[] table =
+        WAVEFORM_TABLES.computeIfAbsent(
+            new TableKey(waveform, frequency, 0),
+            key -> sample(newWaveformDriver(waveform, 1, frequency)));
+    return scale(table, amplitude, buffer);
+  }
+
+  private static Map<TableKey, double[]> newTableCache() {
+
+    return Collections.synchronizedMap(
+        new LinkedHashMap<TableKey, double[]>(16, 0.75f, true) {
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<TableKey, double[]> eldest) {
+
+            return size() > MAX_TABLES;
+          }
+        });
+  }
+
+  private static double[] scale(double[] table, double amplitude, double[] buffer) {
+
+    for (int i = 0; i < CUSTOM_WAVEFORM_LENGTH; i++) {
+      buffer[i] = table[i] * amplitude;
+    }
+    return buffer;
+  }
+
+  /** One period of the driver at {@link #CUSTOM_WAVEFORM_LENGTH} points. */
+  private static double[] sample(Driver driver) {
+
+    double[] customWaveform = new double[CUSTOM_WAVEFORM_LENGTH];
+    driver.getSignal(0, driver.getPeriod() / CUSTOM_WAVEFORM_LENGTH, customWaveform);
+    for (int i = 0; i < CUSTOM_WAVEFORM_LENGTH; i++) {
+      customWaveform[i] /= 5.0; // / 5.0 to scale between 1 and -1
+    }
+    return customWaveform;
+  }
+
+  private static Driver newPulseDriver(
+      Waveform waveform, double amplitude, double pulseWidthInNS, double dutyCycle) {
+
     //    System.out.println("generateCustomPulse");
     //    System.out.println("pulseWidth=" + pulseWidthInNS);
     //    System.out.println("dutyCycle=" + dutyCycle);
@@ -90,22 +202,10 @@ public class WaveformUtils {
         driver = new SquarePulse("Square", 0, pulseWidthInNS, dutyCycle, amplitude);
         break;
     }
-
-    int counter = 0;
-    double[] customWaveform = new double[4096];
-    double timeInc = driver.getPeriod() / 4096;
-
-    do {
-      double time = counter * timeInc;
-      customWaveform[counter] = driver.getSignal(time) / 5.0; // / 5.0 to scale between 1 and -1
-      // driver.getSignal(time);
-
-    } while (++counter < 4096);
-    return customWaveform;
+    return driver;
   }
 
-  public static double[] generateCustomWaveform(
-      Waveform waveform, double amplitude, double frequency) {
+  private static Driver newWaveformDriver(Waveform waveform, double amplitude, double frequency) {
 
     Driver driver;
     switch (waveform) {
@@ -140,17 +240,7 @@ public class WaveformUtils {
         driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
         break;
     }
-
-    int counter = 0;
-    double[] customWaveform = new double[4096];
-    double timeInc = 1.0 / frequency / 4096;
-
-    do {
-      double time = counter * timeInc;
-      customWaveform[counter] = driver.getSignal(time) / 5.0; // / 5.0 to scale between 1 and -1
-      // driver.getSignal(time);
-    } while (++counter < 4096);
-    return customWaveform;
+    return driver;
   }
 
   public static DWF.Waveform getDWFWaveform(Waveform waveform) {
@@ -182,4 +272,38 @@ public class WaveformUtils {
     System.arraycopy(b, 0, c, aLen, bLen);
     return c;
   }
+
+  /** What a table depends on: the waveform, its pulse width or frequency, and its duty cycle. */
+  private static final class TableKey {
+
+    private final Waveform waveform;
+    private final double timing;
+    private final double dutyCycle;
+
+    TableKey(Waveform waveform, double timing, double dutyCycle) {
+
+      this.waveform = waveform;
+      this.timing = timing;
+      this.dutyCycle = dutyCycle;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (!(o instanceof TableKey)) {
+        return false;
+      }
+      TableKey other = (TableKey) o;
+      return waveform == other.waveform
+          && Double.compare(timing, other.timing) == 0
+          && Double.compare(dutyCycle, other.dutyCycle) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return (31 * waveform.hashCode() + Double.hashCode(timing)) * 31
+          + Double.hashCode(dutyCycle);
+    }
+  }
 }
@@ -0,0 +1,280 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.analysis;
+
+/**
+ * Turns the stream of windows a running hysteresis capture polls out of the scope into one compact
+ * record per drive cycle, so a run can go on for hours and leave a drift trace behind instead of
+ * screenshots.
+ *
+ * <p>The scope runs in scan-shift mode, so every poll hands back the most recent whole number of
+ * periods, at whatever phase the poll happened to land. The drive frequency and the scope's sample
+ * rate say how many samples a period takes, so the rising zero crossing of the drive, about its
+ * mean over the window, marks phase 0. Each window is rotated to start there, so every record's
+ * loop is traced from the same point of the drive, and because the window holds whole periods the
+ * rotation doesn't break the waveform.
+ *
+ * <p>Records are numbered by drive cycle: the crossing is placed in time from the poll time and
+ * its distance from the end of the window, and the number of whole periods since the first
+ * recorded crossing is rounded. Scan-shift mode doesn't report a device sample count, so this is
+ * only exact while the host's poll timing is off by less than half a drive period; at higher
+ * frequencies the numbers are estimates. A window whose cycle was already recorded is skipped.
+ */
+public class HysteresisCycleTracker {
+
+  /** the header line for {@link CycleRecord#toCsv()} */
+  public static final String CSV_HEADER =
+      "Frequency [Hz],Cycle,Time [s],Loop Area [V*I],Set Voltage [V],Reset Voltage [V],"
+          + "High Resistance [Ohm],Low Resistance [Ohm]";
+
+  private final double frequency;
+  private final double sampleFrequency;
+  private final double currentDivisor;
+
+  private long referenceNanos = Long.MIN_VALUE;
+  private long lastCycle = -1;
+  private long recorded = 0;
+
+  /** the window rotated to start at phase 0 */
+  private double[] phaseVoltage = new double[0];
+
+  private double[] phaseCurrent = new double[0];
+
+  /**
+   * Constructor
+   *
+   * @param frequency - of the drive, in Hz
+   * @param sampleFrequency - of the scope, in Hz
+   * @param currentDivisor - of the unit the current comes in, to get resistances in Ohms
+   */
+  public HysteresisCycleTracker(double frequency, double sampleFrequency, double currentDivisor) {
+
+    this.frequency = frequency;
+    this.sampleFrequency = sampleFrequency;
+    this.currentDivisor = currentDivisor;
+  }
+
+  /**
+   * @param drive - the applied voltage, in phase with the drive
+   * @param voltage - across the memristor, the most recent whole periods
+   * @param current - through the memristor
+   * @param length - samples in the window
+   * @param polledNanos - {@link System#nanoTime()} when the window was read
+   * @return the cycle's record, or null if the window has no rising crossing of the drive or its
+   *     cycle was already recorded
+   */
+  public CycleRecord accept(
+      double[] drive, double[] voltage, double[] current, int length, long polledNanos) {
+
+    int crossing = findRisingCrossing(drive, length);
+    if (crossing < 0) {
+      return null;
+    }
+
+    // the last sample of the window is the most recent one
+    long crossingNanos = polledNanos - Math.round((length - crossing) / sampleFrequency * 1E9);
+    if (referenceNanos == Long.MIN_VALUE) {
+      referenceNanos = crossingNanos;
+    }
+    long cycle = Math.round((crossingNanos - referenceNanos) / 1E9 * frequency);
+    if (cycle <= lastCycle) {
+      return null;
+    }
+    lastCycle = cycle;
+    recorded++;
+
+    if (phaseVoltage.length != length) {
+      phaseVoltage = new double[length];
+      phaseCurrent = new double[length];
+    }
+    int tail = length - crossing;
+    System.arraycopy(voltage, crossing, phaseVoltage, 0, tail);
+    System.arraycopy(voltage, 0, phaseVoltage, tail, crossing);
+    System.arraycopy(current, crossing, phaseCurrent, 0, tail);
+    System.arraycopy(current, 0, phaseCurrent, tail, crossing);
+
+    IVLoopMetrics metrics = IVLoopMetrics.of(phaseVoltage, phaseCurrent, length);
+    return new CycleRecord(
+        frequency,
+        cycle,
+        cycle / frequency,
+        metrics.getLoopArea(),
+        metrics.getSetThreshold(),
+        metrics.getResetThreshold(),
+        currentDivisor / metrics.getOffConductance(),
+        currentDivisor / metrics.getOnConductance());
+  }
+
+  /**
+   * @return the first sample at or above the drive's mean right after one below it, -1 if none
+   */
+  private static int findRisingCrossing(double[] drive, int length) {
+
+    if (length < 3) {
+      return -1;
+    }
+    double mean = 0;
+    for (int i = 0; i < length; i++) {
+      mean += drive[i];
+    }
+    mean /= length;
+    for (int i = 1; i < length; i++) {
+      if (drive[i - 1] < mean && drive[i] >= mean) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public double getFrequency() {
+
+    return frequency;
+  }
+
+  /**
+   * @return how many cycles have been recorded
+   */
+  public long getRecorded() {
+
+    return recorded;
+  }
+
+  /**
+   * @return the number of the last cycle recorded, counted from the first one, -1 if none yet
+   */
+  public long getLastCycle() {
+
+    return lastCycle;
+  }
+
+  /** The features of one drive cycle. */
+  public static class CycleRecord {
+
+    private final double frequency;
+    private final long cycle;
+    private final double time;
+    private final double loopArea;
+    private final double setVoltage;
+    private final double resetVoltage;
+    private final double highResistance;
+    private final double lowResistance;
+
+    CycleRecord(
+        double frequency,
+        long cycle,
+        double time,
+        double loopArea,
+        double setVoltage,
+        double resetVoltage,
+        double highResistance,
+        double lowResistance) {
+
+      this.frequency = frequency;
+      this.cycle = cycle;
+      this.time = time;
+      this.loopArea = loopArea;
+      this.setVoltage = setVoltage;
+      this.resetVoltage = resetVoltage;
+      this.highResistance = highResistance;
+      this.lowResistance = lowResistance;
+    }
+
+    /**
+     * @return of the drive, in Hz
+     */
+    public double getFrequency() {
+
+      return frequency;
+    }
+
+    /**
+     * @return the drive cycle, counted from the first one recorded
+     */
+    public long getCycle() {
+
+      return cycle;
+    }
+
+    /**
+     * @return seconds of drive since the first cycle recorded, the cycle over the frequency
+     */
+    public double getTime() {
+
+      return time;
+    }
+
+    public double getLoopArea() {
+
+      return loopArea;
+    }
+
+    public double getSetVoltage() {
+
+      return setVoltage;
+    }
+
+    public double getResetVoltage() {
+
+      return resetVoltage;
+    }
+
+    /**
+     * @return the OFF state resistance, in Ohms
+     */
+    public double getHighResistance() {
+
+      return highResistance;
+    }
+
+    /**
+     * @return the ON state resistance, in Ohms
+     */
+    public double getLowResistance() {
+
+      return lowResistance;
+    }
+
+    /**
+     * @return the record as a CSV line matching {@link #CSV_HEADER}, without a line break
+     */
+    public String toCsv() {
+
+      return frequency
+          + ","
+          + cycle
+          + ","
+          + time
+          + ","
+          + loopArea
+          + ","
+          + setVoltage
+          + ","
+          + resetVoltage
+          + ","
+          + highResistance
+          + ","
+          + lowResistance;
+    }
+  }
+}
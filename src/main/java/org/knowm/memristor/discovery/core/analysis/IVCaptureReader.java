@@ -0,0 +1,227 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.analysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads a two column (voltage, current) CSV export straight into primitive arrays. Numbers are
+ * parsed from the raw bytes without building a String per field, which is most of the cost of
+ * reading these files with a general CSV importer. A leading header line is skipped. Values with
+ * more than 18 significant digits may differ from {@link Double#parseDouble(String)} in the last
+ * bit or two, far below what the captures resolve.
+ */
+public class IVCaptureReader {
+
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final Path path;
+  private final byte[] bytes;
+  private int pos;
+  private int line;
+
+  private IVCaptureReader(Path path, byte[] bytes) {
+
+    this.path = path;
+    this.bytes = bytes;
+  }
+
+  /**
+   * @param path
+   * @return {voltage, current}
+   * @throws IOException if the file can't be read or a data line doesn't hold two numbers
+   */
+  public static double[][] read(Path path) throws IOException {
+
+    return new IVCaptureReader(path, Files.readAllBytes(path)).parse();
+  }
+
+  private double[][] parse() throws IOException {
+
+    double[] voltage = new double[256];
+    double[] current = new double[256];
+    int count = 0;
+
+    // UTF-8 byte order mark
+    if (bytes.length >= 3
+        && bytes[0] == (byte) 0xEF
+        && bytes[1] == (byte) 0xBB
+        && bytes[2] == (byte) 0xBF) {
+      pos = 3;
+    }
+
+    while (pos < bytes.length) {
+
+      line++;
+      skipBlanks();
+      if (pos >= bytes.length || isLineEnd(bytes[pos])) {
+        skipLine();
+        continue;
+      }
+      double v = parseNumber();
+      boolean ok = !Double.isNaN(v) && skipSeparator();
+      double i = ok ? parseNumber() : Double.NaN;
+      if (!ok || Double.isNaN(i)) {
+        if (count == 0 && line == 1) {
+          // header
+          skipLine();
+          continue;
+        }
+        throw new IOException("Malformed line " + line + " in " + path);
+      }
+      skipLine();
+
+      if (count == voltage.length) {
+        voltage = Arrays.copyOf(voltage, count * 2);
+        current = Arrays.copyOf(current, count * 2);
+      }
+      voltage[count] = v;
+      current[count] = i;
+      count++;
+    }
+    return new double[][] {Arrays.copyOf(voltage, count), Arrays.copyOf(current, count)};
+  }
+
+  /** @return the number at pos, or NaN if there isn't one */
+  private double parseNumber() {
+
+    skipBlanks();
+    boolean negative = false;
+    if (pos < bytes.length && (bytes[pos] == '-' || bytes[pos] == '+')) {
+      negative = bytes[pos] == '-';
+      pos++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean any = false;
+    for (; pos < bytes.length && isDigit(bytes[pos]); pos++) {
+      any = true;
+      if (digits < 18) {
+        if (mantissa != 0 || bytes[pos] != '0') {
+          mantissa = mantissa * 10 + (bytes[pos] - '0');
+          digits++;
+        }
+      } else {
+        exponent++;
+      }
+    }
+    if (pos < bytes.length && bytes[pos] == '.') {
+      pos++;
+      for (; pos < bytes.length && isDigit(bytes[pos]); pos++) {
+        any = true;
+        if (digits < 18) {
+          if (mantissa != 0 || bytes[pos] != '0') {
+            mantissa = mantissa * 10 + (bytes[pos] - '0');
+            digits++;
+          }
+          exponent--;
+        }
+      }
+    }
+    if (!any) {
+      return Double.NaN;
+    }
+    if (pos < bytes.length && (bytes[pos] == 'e' || bytes[pos] == 'E')) {
+      pos++;
+      boolean negativeExponent = false;
+      if (pos < bytes.length && (bytes[pos] == '-' || bytes[pos] == '+')) {
+        negativeExponent = bytes[pos] == '-';
+        pos++;
+      }
+      if (pos >= bytes.length || !isDigit(bytes[pos])) {
+        return Double.NaN;
+      }
+      int e = 0;
+      for (; pos < bytes.length && isDigit(bytes[pos]); pos++) {
+        e = Math.min(e * 10 + (bytes[pos] - '0'), 1000);
+      }
+      exponent += negativeExponent ? -e : e;
+    }
+
+    double value = scale(mantissa, exponent);
+    return negative ? -value : value;
+  }
+
+  private static double scale(long mantissa, int exponent) {
+
+    if (mantissa == 0) {
+      return 0;
+    }
+    if (exponent >= 0) {
+      return exponent < POWERS_OF_TEN.length
+          ? mantissa * POWERS_OF_TEN[exponent]
+          : mantissa * Math.pow(10, exponent);
+    }
+    return -exponent < POWERS_OF_TEN.length
+        ? mantissa / POWERS_OF_TEN[-exponent]
+        : mantissa / Math.pow(10, -exponent);
+  }
+
+  private boolean skipSeparator() {
+
+    skipBlanks();
+    if (pos < bytes.length && (bytes[pos] == ',' || bytes[pos] == ';')) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void skipBlanks() {
+
+    while (pos < bytes.length && (bytes[pos] == ' ' || bytes[pos] == '\t')) {
+      pos++;
+    }
+  }
+
+  private void skipLine() {
+
+    while (pos < bytes.length && bytes[pos] != '\n') {
+      pos++;
+    }
+    pos++;
+  }
+
+  private static boolean isDigit(byte b) {
+
+    return b >= '0' && b <= '9';
+  }
+
+  private static boolean isLineEnd(byte b) {
+
+    return b == '\n' || b == '\r';
+  }
+}
@@ -0,0 +1,392 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.analysis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.knowm.memristor.discovery.core.RunningStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless batch analysis of a directory tree of I-V captures, laid out like {@code data/}: one
+ * folder per run named {@code SeriesResistor_AmplitudeV_FrequencyHz_Memristor} holding a {@code
+ * Memristor.csv} and a {@code Resistor+Memristor.csv}. Every CSV is read with {@link
+ * IVCaptureReader} and measured with {@link IVLoopMetrics} on a fork-join pool, and the results go
+ * into one summary table: a row per capture, then the mean and sample standard deviation of each
+ * metric over the memristors of every (series resistor, amplitude, frequency, trace) group.
+ *
+ * <p>Run it with the corpus directory and, optionally, the file to write the table to; without
+ * one the table goes to stdout.
+ */
+public class IVCorpusAnalyzer {
+
+  private static final Logger logger = LoggerFactory.getLogger(IVCorpusAnalyzer.class);
+
+  private static final Pattern RUN_FOLDER =
+      Pattern.compile("(.+?)_([0-9]*\\.?[0-9]+)V_([0-9]*\\.?[0-9]+)Hz_(.+)");
+
+  /** files one fork-join leaf reads before it stops splitting */
+  private static final int FILES_PER_TASK = 8;
+
+  private final Path root;
+  private final ForkJoinPool pool;
+
+  /**
+   * Analyse on the common fork-join pool.
+   *
+   * @param root
+   */
+  public IVCorpusAnalyzer(Path root) {
+
+    this(root, ForkJoinPool.commonPool());
+  }
+
+  public IVCorpusAnalyzer(Path root, ForkJoinPool pool) {
+
+    this.root = root;
+    this.pool = pool;
+  }
+
+  public static void main(String[] args) throws IOException {
+
+    Path root = Paths.get(args.length > 0 ? args[0] : "data");
+    IVCorpusAnalyzer analyzer = new IVCorpusAnalyzer(root);
+
+    long start = System.nanoTime();
+    List<Capture> captures = analyzer.analyze();
+    long elapsed = System.nanoTime() - start;
+    logger.info(
+        "Analysed {} captures under {} in {} ms", captures.size(), root, elapsed / 1_000_000);
+
+    if (args.length > 1) {
+      try (PrintWriter out =
+          new PrintWriter(Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8))) {
+        writeSummary(captures, out);
+      }
+    } else {
+      PrintWriter out =
+          new PrintWriter(
+              new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+      writeSummary(captures, out);
+      out.flush();
+    }
+  }
+
+  /**
+   * Find, read and measure every CSV under the root. Files that can't be read are logged and left
+   * out.
+   *
+   * @return one entry per capture, sorted by series resistor, amplitude, frequency, trace and
+   *     memristor
+   * @throws IOException if the directory tree can't be walked
+   */
+  public List<Capture> analyze() throws IOException {
+
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(root)) {
+      files =
+          walk.filter(Files::isRegularFile)
+              .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".csv"))
+              .sorted()
+              .collect(Collectors.toList());
+    }
+
+    List<Capture> captures = pool.invoke(new AnalyzeTask(files, 0, files.size()));
+    captures.sort(
+        Comparator.comparing(Capture::getSeriesResistor)
+            .thenComparingDouble(Capture::getAmplitude)
+            .thenComparingDouble(Capture::getFrequency)
+            .thenComparing(Capture::getTrace)
+            .thenComparing(Capture::getMemristor));
+    return captures;
+  }
+
+  /**
+   * @param path
+   * @return the capture's metrics, null if the file couldn't be read
+   */
+  static Capture analyze(Path path) {
+
+    double[][] iv;
+    try {
+      iv = IVCaptureReader.read(path);
+    } catch (IOException e) {
+      logger.warn("Skipping " + path + ": " + e.getMessage());
+      return null;
+    }
+
+    String trace = path.getFileName().toString();
+    trace = trace.substring(0, trace.length() - ".csv".length());
+    Path parent = path.getParent();
+    String folder = parent == null ? "" : parent.getFileName().toString();
+    Matcher matcher = RUN_FOLDER.matcher(folder);
+    if (matcher.matches()) {
+      return new Capture(
+          path,
+          matcher.group(1),
+          Double.parseDouble(matcher.group(2)),
+          Double.parseDouble(matcher.group(3)),
+          trace,
+          matcher.group(4),
+          IVLoopMetrics.of(iv[0], iv[1]));
+    }
+    return new Capture(
+        path, folder, Double.NaN, Double.NaN, trace, "", IVLoopMetrics.of(iv[0], iv[1]));
+  }
+
+  /**
+   * Write the summary table as CSV.
+   *
+   * @param captures - sorted as {@link #analyze()} returns them
+   * @param out
+   */
+  public static void writeSummary(List<Capture> captures, PrintWriter out) {
+
+    out.println(
+        "Series Resistor,Amplitude [V],Frequency [Hz],Trace,Memristor,Captures,Points,"
+            + "Loop Area [V*I],ON/OFF Ratio,Set Threshold [V],Reset Threshold [V]");
+
+    int groupStart = 0;
+    for (int i = 1; i <= captures.size(); i++) {
+      if (i == captures.size() || !captures.get(i).sameGroup(captures.get(groupStart))) {
+        writeGroup(captures.subList(groupStart, i), out);
+        groupStart = i;
+      }
+    }
+  }
+
+  private static void writeGroup(List<Capture> group, PrintWriter out) {
+
+    RunningStats points = new RunningStats();
+    RunningStats loopArea = new RunningStats();
+    RunningStats onOffRatio = new RunningStats();
+    RunningStats setThreshold = new RunningStats();
+    RunningStats resetThreshold = new RunningStats();
+
+    for (Capture capture : group) {
+      IVLoopMetrics metrics = capture.getMetrics();
+      out.println(
+          capture.prefix()
+              + ","
+              + capture.getMemristor()
+              + ",1,"
+              + metrics.getPoints()
+              + ","
+              + metrics.getLoopArea()
+              + ","
+              + metrics.getOnOffRatio()
+              + ","
+              + metrics.getSetThreshold()
+              + ","
+              + metrics.getResetThreshold());
+      addIfFinite(points, metrics.getPoints());
+      addIfFinite(loopArea, metrics.getLoopArea());
+      addIfFinite(onOffRatio, metrics.getOnOffRatio());
+      addIfFinite(setThreshold, metrics.getSetThreshold());
+      addIfFinite(resetThreshold, metrics.getResetThreshold());
+    }
+
+    String prefix = group.get(0).prefix();
+    out.println(
+        prefix
+            + ",mean,"
+            + group.size()
+            + ","
+            + mean(points)
+            + ","
+            + mean(loopArea)
+            + ","
+            + mean(onOffRatio)
+            + ","
+            + mean(setThreshold)
+            + ","
+            + mean(resetThreshold));
+    out.println(
+        prefix
+            + ",std,"
+            + group.size()
+            + ","
+            + std(points)
+            + ","
+            + std(loopArea)
+            + ","
+            + std(onOffRatio)
+            + ","
+            + std(setThreshold)
+            + ","
+            + std(resetThreshold));
+  }
+
+  private static void addIfFinite(RunningStats stats, double value) {
+
+    if (Double.isFinite(value)) {
+      stats.add(value);
+    }
+  }
+
+  private static double mean(RunningStats stats) {
+
+    return stats.getCount() == 0 ? Double.NaN : stats.getAve();
+  }
+
+  private static double std(RunningStats stats) {
+
+    return stats.getCount() < 2 ? Double.NaN : Math.sqrt(stats.getSampleVar());
+  }
+
+  // //////////////////////////////////////////////////////////////////////////////////////////////
+
+  /** Splits the file list in halves until a leaf is small enough to read in one go. */
+  private static class AnalyzeTask extends RecursiveTask<List<Capture>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Path> files;
+    private final int from;
+    private final int to;
+
+    AnalyzeTask(List<Path> files, int from, int to) {
+
+      this.files = files;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<Capture> compute() {
+
+      if (to - from <= FILES_PER_TASK) {
+        List<Capture> captures = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+          Capture capture = analyze(files.get(i));
+          if (capture != null) {
+            captures.add(capture);
+          }
+        }
+        return captures;
+      }
+
+      int middle = (from + to) >>> 1;
+      AnalyzeTask left = new AnalyzeTask(files, from, middle);
+      left.fork();
+      List<Capture> captures = new AnalyzeTask(files, middle, to).compute();
+      captures.addAll(0, left.join());
+      return captures;
+    }
+  }
+
+  /** One analysed CSV and the run parameters taken from its folder name. */
+  public static class Capture {
+
+    private final Path path;
+    private final String seriesResistor;
+    private final double amplitude;
+    private final double frequency;
+    private final String trace;
+    private final String memristor;
+    private final IVLoopMetrics metrics;
+
+    Capture(
+        Path path,
+        String seriesResistor,
+        double amplitude,
+        double frequency,
+        String trace,
+        String memristor,
+        IVLoopMetrics metrics) {
+
+      this.path = path;
+      this.seriesResistor = seriesResistor;
+      this.amplitude = amplitude;
+      this.frequency = frequency;
+      this.trace = trace;
+      this.memristor = memristor;
+      this.metrics = metrics;
+    }
+
+    private boolean sameGroup(Capture other) {
+
+      return seriesResistor.equals(other.seriesResistor)
+          && Double.compare(amplitude, other.amplitude) == 0
+          && Double.compare(frequency, other.frequency) == 0
+          && trace.equals(other.trace);
+    }
+
+    private String prefix() {
+
+      return seriesResistor + "," + amplitude + "," + frequency + "," + trace;
+    }
+
+    public Path getPath() {
+
+      return path;
+    }
+
+    public String getSeriesResistor() {
+
+      return seriesResistor;
+    }
+
+    public double getAmplitude() {
+
+      return amplitude;
+    }
+
+    public double getFrequency() {
+
+      return frequency;
+    }
+
+    public String getTrace() {
+
+      return trace;
+    }
+
+    public String getMemristor() {
+
+      return memristor;
+    }
+
+    public IVLoopMetrics getMetrics() {
+
+      return metrics;
+    }
+  }
+}
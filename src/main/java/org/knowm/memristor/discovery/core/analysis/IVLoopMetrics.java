@@ -0,0 +1,222 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.analysis;
+
+/**
+ * Figures of merit for one pinched hysteresis loop, a periodic (voltage, current) capture such as
+ * the hysteresis experiment exports. Everything is worked out in a couple of linear passes.
+ *
+ * <ul>
+ *   <li>loop area: the area of the positive lobe plus the area of the negative lobe, in the
+ *       capture's voltage x current units. The two lobes turn in opposite directions, so a single
+ *       signed integral around the loop would cancel them out.
+ *   <li>ON/OFF ratio: largest over smallest chord conductance I/V, only counting samples above
+ *       {@link #MIN_VOLTAGE_FRACTION} of the peak voltage where I/V is meaningful.
+ *   <li>set and reset thresholds: the voltages where the chord conductance crosses the geometric
+ *       midpoint between OFF and ON, upward on the positive half and downward on the negative half.
+ * </ul>
+ *
+ * Metrics that can't be worked out for a capture, for example a reset on a loop that never
+ * switches, are NaN.
+ */
+public class IVLoopMetrics {
+
+  /** samples below this fraction of the peak |V| are left out of I/V */
+  public static final double MIN_VOLTAGE_FRACTION = 0.1;
+
+  private final int points;
+  private final double loopArea;
+  private final double onConductance;
+  private final double offConductance;
+  private final double setThreshold;
+  private final double resetThreshold;
+
+  private IVLoopMetrics(
+      int points,
+      double loopArea,
+      double onConductance,
+      double offConductance,
+      double setThreshold,
+      double resetThreshold) {
+
+    this.points = points;
+    this.loopArea = loopArea;
+    this.onConductance = onConductance;
+    this.offConductance = offConductance;
+    this.setThreshold = setThreshold;
+    this.resetThreshold = resetThreshold;
+  }
+
+  /**
+   * @param voltage - one or more whole periods
+   * @param current
+   * @return the loop's metrics
+   */
+  public static IVLoopMetrics of(double[] voltage, double[] current) {
+
+    return of(voltage, current, Math.min(voltage.length, current.length));
+  }
+
+  /**
+   * @param voltage - one or more whole periods in the first n samples
+   * @param current
+   * @param n - samples to use
+   * @return the loop's metrics
+   */
+  public static IVLoopMetrics of(double[] voltage, double[] current, int n) {
+
+    if (n < 3) {
+      return new IVLoopMetrics(n, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    // lobe areas by the shoelace formula over the samples on either side of 0V, and the peak |V|
+    double positiveArea = 0;
+    double negativeArea = 0;
+    int lastPositive = -1;
+    int firstPositive = -1;
+    int lastNegative = -1;
+    int firstNegative = -1;
+    double peakVoltage = 0;
+    for (int k = 0; k < n; k++) {
+      double v = voltage[k];
+      peakVoltage = Math.max(peakVoltage, Math.abs(v));
+      if (v >= 0) {
+        if (lastPositive >= 0) {
+          positiveArea += cross(voltage, current, lastPositive, k);
+        } else {
+          firstPositive = k;
+        }
+        lastPositive = k;
+      } else {
+        if (lastNegative >= 0) {
+          negativeArea += cross(voltage, current, lastNegative, k);
+        } else {
+          firstNegative = k;
+        }
+        lastNegative = k;
+      }
+    }
+    if (firstPositive >= 0) {
+      positiveArea += cross(voltage, current, lastPositive, firstPositive);
+    }
+    if (firstNegative >= 0) {
+      negativeArea += cross(voltage, current, lastNegative, firstNegative);
+    }
+    double loopArea = (Math.abs(positiveArea) + Math.abs(negativeArea)) / 2;
+
+    // chord conductance extremes
+    double minVoltage = peakVoltage * MIN_VOLTAGE_FRACTION;
+    double gOn = Double.NEGATIVE_INFINITY;
+    double gOff = Double.POSITIVE_INFINITY;
+    int offIndex = -1;
+    for (int k = 0; k < n; k++) {
+      if (Math.abs(voltage[k]) > minVoltage) {
+        double g = current[k] / voltage[k];
+        if (g > gOn) {
+          gOn = g;
+        }
+        if (g < gOff) {
+          gOff = g;
+          offIndex = k;
+        }
+      }
+    }
+    if (offIndex < 0 || !(gOff > 0)) {
+      return new IVLoopMetrics(n, loopArea, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    // walk once around the loop starting from the OFF state
+    double gMid = Math.sqrt(gOn * gOff);
+    double setThreshold = Double.NaN;
+    double resetThreshold = Double.NaN;
+    boolean on = false;
+    for (int step = 1; step <= n; step++) {
+      int k = (offIndex + step) % n;
+      double v = voltage[k];
+      if (Math.abs(v) <= minVoltage) {
+        continue;
+      }
+      double g = current[k] / v;
+      if (!on && v > 0 && g > gMid) {
+        on = true;
+        if (Double.isNaN(setThreshold)) {
+          setThreshold = v;
+        }
+      } else if (on && v < 0 && g < gMid) {
+        on = false;
+        if (Double.isNaN(resetThreshold)) {
+          resetThreshold = v;
+        }
+      }
+    }
+
+    return new IVLoopMetrics(n, loopArea, gOn, gOff, setThreshold, resetThreshold);
+  }
+
+  private static double cross(double[] x, double[] y, int a, int b) {
+
+    return x[a] * y[b] - x[b] * y[a];
+  }
+
+  public int getPoints() {
+
+    return points;
+  }
+
+  public double getLoopArea() {
+
+    return loopArea;
+  }
+
+  public double getOnOffRatio() {
+
+    return onConductance / offConductance;
+  }
+
+  /**
+   * @return the largest chord conductance, in current units per volt
+   */
+  public double getOnConductance() {
+
+    return onConductance;
+  }
+
+  /**
+   * @return the smallest chord conductance, in current units per volt
+   */
+  public double getOffConductance() {
+
+    return offConductance;
+  }
+
+  public double getSetThreshold() {
+
+    return setThreshold;
+  }
+
+  public double getResetThreshold() {
+
+    return resetThreshold;
+  }
+}
@@ -63,6 +63,51 @@ public abstract class Driver {
 
   public abstract double getSignal(double time);
 
+  /**
+   * Fills signal with samples at startTime, startTime + timeStep, and so on. The drivers override
+   * this with a loop that carries the phase from one sample to the next, so filling a buffer costs
+   * no virtual call and no modulo per sample.
+   *
+   * @param startTime
+   * @param timeStep
+   * @param signal - filled to its full length
+   */
+  public void getSignal(double startTime, double timeStep, double[] signal) {
+
+    for (int i = 0; i < signal.length; i++) {
+      signal[i] = getSignal(startTime + i * timeStep);
+    }
+  }
+
+  /**
+   * Fills cycleTimes with how far into its period each sample falls, the same as {@code
+   * (startTime + i * timeStep) % period}. Only the first sample takes a modulo; after that the time
+   * is advanced by timeStep and wrapped by subtraction, restarting from the wrapped time every
+   * period so rounding doesn't build up.
+   *
+   * @param startTime
+   * @param timeStep
+   * @param period
+   * @param cycleTimes
+   */
+  protected static void fillCycleTimes(
+      double startTime, double timeStep, double period, double[] cycleTimes) {
+
+    double cycleStart = startTime % period;
+    long step = 0;
+    for (int i = 0; i < cycleTimes.length; i++, step++) {
+      double t = cycleStart + step * timeStep;
+      if (t >= period) {
+        do {
+          t -= period;
+        } while (t >= period);
+        cycleStart = t;
+        step = 0;
+      }
+      cycleTimes[i] = t;
+    }
+  }
+
   public double getFrequency() {
     return frequency;
   }
@@ -34,7 +34,22 @@ public class SquarePulse extends PulseDriver {
 
   @Override
   public double getSignal(double time) {
-    double t = time % getPeriod();
+
+    return getCycleSignal(time % getPeriod());
+  }
+
+  @Override
+  public void getSignal(double startTime, double timeStep, double[] signal) {
+
+    fillCycleTimes(startTime, timeStep, getPeriod(), signal);
+    for (int i = 0; i < signal.length; i++) {
+      signal[i] = getCycleSignal(signal[i]);
+    }
+  }
+
+  /** @param t - time into the period */
+  private double getCycleSignal(double t) {
+
     if (t < pulseWidth) {
       return dcOffset + amplitude;
     } else {
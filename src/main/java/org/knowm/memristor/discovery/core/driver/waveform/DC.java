@@ -23,6 +23,8 @@
  */
 package org.knowm.memristor.discovery.core.driver.waveform;
 
+import java.util.Arrays;
+
 public class DC extends WaveformDriver {
 
   /**
@@ -41,4 +43,10 @@ public class DC extends WaveformDriver {
 
     return dcOffset;
   }
+
+  @Override
+  public void getSignal(double startTime, double timeStep, double[] signal) {
+
+    Arrays.fill(signal, dcOffset);
+  }
 }
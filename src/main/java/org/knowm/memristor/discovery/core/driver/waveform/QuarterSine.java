@@ -43,8 +43,23 @@ public class QuarterSine extends WaveformDriver {
   @Override
   public double getSignal(double time) {
 
-    double T = 1 / frequency;
-    double remainderTime = (time + phase) % T;
+    return getCycleSignal(time, (time + phase) % T);
+  }
+
+  @Override
+  public void getSignal(double startTime, double timeStep, double[] signal) {
+
+    fillCycleTimes(startTime + phase, timeStep, T, signal);
+    for (int i = 0; i < signal.length; i++) {
+      signal[i] = getCycleSignal(startTime + i * timeStep, signal[i]);
+    }
+  }
+
+  /**
+   * @param time
+   * @param remainderTime - time into the period
+   */
+  private double getCycleSignal(double time, double remainderTime) {
 
     // up phase
     if (0 <= remainderTime && remainderTime * T < .50 / frequency * T) {
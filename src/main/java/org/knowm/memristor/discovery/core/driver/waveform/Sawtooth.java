@@ -42,8 +42,20 @@ public class Sawtooth extends WaveformDriver {
   @Override
   public double getSignal(double time) {
 
-    double T = 1 / frequency;
-    double remainderTime = (time + phase) % T;
+    return getCycleSignal((time + phase) % T);
+  }
+
+  @Override
+  public void getSignal(double startTime, double timeStep, double[] signal) {
+
+    fillCycleTimes(startTime + phase, timeStep, T, signal);
+    for (int i = 0; i < signal.length; i++) {
+      signal[i] = getCycleSignal(signal[i]);
+    }
+  }
+
+  /** @param remainderTime - time into the period */
+  private double getCycleSignal(double remainderTime) {
 
     return frequency * amplitude * (remainderTime) + dcOffset;
   }
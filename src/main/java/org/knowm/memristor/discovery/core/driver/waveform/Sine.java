@@ -44,4 +44,13 @@ public class Sine extends WaveformDriver {
 
     return amplitude * Math.sin(2 * Math.PI * frequency * time - phase) + dcOffset;
   }
+
+  @Override
+  public void getSignal(double startTime, double timeStep, double[] signal) {
+
+    double omega = 2 * Math.PI * frequency;
+    for (int i = 0; i < signal.length; i++) {
+      signal[i] = amplitude * Math.sin(omega * (startTime + i * timeStep) - phase) + dcOffset;
+    }
+  }
 }
@@ -30,11 +30,15 @@ public abstract class WaveformDriver extends Driver {
   protected final double phase;
   protected final double frequency;
 
+  /** 1 / frequency, worked out once rather than for every sample */
+  protected final double T;
+
   public WaveformDriver(
       String id, double dcOffset, double phase, double amplitude, double frequency) {
     super(id, dcOffset, amplitude, frequency);
     this.phase = phase;
     this.frequency = frequency;
+    this.T = 1 / frequency;
   }
 
   public double getPhase() {
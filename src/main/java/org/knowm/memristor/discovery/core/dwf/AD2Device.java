@@ -0,0 +1,136 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/**
+ * The subset of the waveforms4j {@link DWF} API the app drives. Method names and semantics mirror
+ * {@link DWF} so operations read the same against the real AD2 ({@link DWFDevice}) and the
+ * simulated one ({@link org.knowm.memristor.discovery.core.dwf.sim.SimulatedAD2Device}).
+ */
+public interface AD2Device {
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfDeviceOpen();
+
+  boolean FDwfDeviceCloseAll();
+
+  boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure);
+
+  String FDwfGetLastErrorMsg();
+
+  boolean setPowerSupply(int channel, double voltage);
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfDigitalIOReset();
+
+  boolean FDwfDigitalOutReset();
+
+  boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask);
+
+  boolean FDwfDigitalIOOutputSet(int outputSetMask);
+
+  boolean FDwfDigitalIOConfigure();
+
+  int getDigitalIOStatus();
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfAnalogOutConfigure(int channel, boolean start);
+
+  boolean FDwfAnalogOutNodeOffsetSet(int channel, double offset);
+
+  boolean startWave(
+      int channel,
+      DWF.Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle);
+
+  boolean stopWave(int channel);
+
+  boolean setCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform);
+
+  boolean startPulseTrain(int channel);
+
+  boolean startCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform);
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start);
+
+  boolean FDwfAnalogInChannelEnableSet(int channel, boolean enable);
+
+  boolean FDwfAnalogInChannelRangeSet(int channel, double range);
+
+  byte FDwfAnalogInStatus(boolean readData);
+
+  int FDwfAnalogInStatusSamplesValid();
+
+  double[] FDwfAnalogInStatusData(int channel, int samples);
+
+  /**
+   * Read samples into a caller-owned buffer. The DWF binding always returns a fresh array, so by
+   * default this copies out of one and still allocates per read; backends that can write in place
+   * override it. {@link DWFDevice} doesn't.
+   *
+   * @param channel
+   * @param buffer - receives the samples, starting at index 0
+   * @param samples - how many samples to read
+   * @return the number of samples written to the buffer
+   */
+  default int FDwfAnalogInStatusData(int channel, double[] buffer, int samples) {
+
+    double[] data = FDwfAnalogInStatusData(channel, Math.min(samples, buffer.length));
+    int count = Math.min(data.length, Math.min(samples, buffer.length));
+    System.arraycopy(data, 0, buffer, 0, count);
+    return count;
+  }
+
+  boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode);
+
+  boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize);
+
+  boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V);
+
+  boolean stopAnalogCaptureBothChannels();
+}
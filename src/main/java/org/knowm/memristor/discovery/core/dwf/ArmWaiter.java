@@ -0,0 +1,108 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.concurrent.locks.LockSupport;
+import org.knowm.memristor.discovery.core.dwf.WaitResult.Outcome;
+
+/**
+ * Waits for the oscilloscope to arm after a capture has been configured. The status is polled back
+ * to back for a short spin window, which covers the common case of the scope arming right away,
+ * and after that the thread parks between polls with a growing interval so that a slow prefill
+ * doesn't burn a whole core. Gives up at the deadline instead of hanging forever.
+ */
+public class ArmWaiter {
+
+  private final long spinNanos;
+  private final long initialParkNanos;
+  private final long maxParkNanos;
+  private final long timeoutNanos;
+
+  /** Spin for 200 us, then park from 50 us up to 500 us between polls, give up after 5 s. */
+  public ArmWaiter() {
+
+    this(200_000L, 50_000L, 500_000L, 5_000_000_000L);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param spinNanos - how long to poll without parking
+   * @param initialParkNanos - first park interval after the spin window
+   * @param maxParkNanos - the park interval doubles up to this value
+   * @param timeoutNanos - how long to wait in total before giving up
+   */
+  public ArmWaiter(long spinNanos, long initialParkNanos, long maxParkNanos, long timeoutNanos) {
+
+    this.spinNanos = Math.max(0, spinNanos);
+    this.initialParkNanos = Math.max(1, initialParkNanos);
+    this.maxParkNanos = Math.max(this.initialParkNanos, maxParkNanos);
+    this.timeoutNanos = timeoutNanos;
+  }
+
+  public WaitResult await(AD2Device dwf) {
+
+    long start = System.nanoTime();
+    long spinEnd = start + spinNanos;
+    long deadline = start + timeoutNanos;
+
+    boolean interrupted = false;
+    int polls = 0;
+    byte status;
+    long parkInterval = initialParkNanos;
+
+    try {
+      while (true) {
+        status = dwf.FDwfAnalogInStatus(true);
+        polls++;
+        long now = System.nanoTime();
+
+        // already triggered or done also means we are past arming
+        if (status == DwfState.ARMED || status == DwfState.RUNNING || status == DwfState.DONE) {
+          return new WaitResult(Outcome.DONE, now - start, polls, status);
+        }
+        if (!DwfState.isValid(status)) {
+          return new WaitResult(Outcome.ERROR, now - start, polls, status);
+        }
+        if (now >= deadline) {
+          return new WaitResult(Outcome.TIMEOUT, now - start, polls, status);
+        }
+
+        if (now < spinEnd) {
+          Thread.onSpinWait();
+        } else {
+          LockSupport.parkNanos(Math.min(parkInterval, deadline - now));
+          if (Thread.interrupted()) {
+            interrupted = true;
+          }
+          parkInterval = Math.min(parkInterval * 2, maxParkNanos);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.Arrays;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Remembers which custom pulse train is loaded on each AWG channel so that an identical one doesn't
+ * have to be uploaded again. A custom pulse train is identified by its content: the samples plus
+ * the frequency, offset and number of pulses that the device's run time and repeat settings are
+ * derived from.
+ *
+ * <p>Only touched on the hardware thread. Anything that reprograms a channel some other way must
+ * call {@link #invalidate(int)} or {@link #invalidateAll()}.
+ */
+public class AwgUploadCache {
+
+  private final CustomPulseTrain[] loaded = new CustomPulseTrain[2];
+
+  private volatile long uploads = 0;
+  private volatile long avoidedUploads = 0;
+
+  /**
+   * @param channel - a waveform channel, or {@link DWF#WAVEFORM_CHANNEL_BOTH}
+   * @return true if this exact pulse train is already loaded on the channel(s)
+   */
+  public boolean isLoaded(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    int hash = Arrays.hashCode(waveform);
+    if (channel == DWF.WAVEFORM_CHANNEL_BOTH) {
+      return matches(DWF.WAVEFORM_CHANNEL_1, hash, frequency, offset, numPulses, waveform)
+          && matches(DWF.WAVEFORM_CHANNEL_2, hash, frequency, offset, numPulses, waveform);
+    }
+    return matches(channel, hash, frequency, offset, numPulses, waveform);
+  }
+
+  /** Record a pulse train that was just uploaded to the channel(s). */
+  public void uploaded(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    // copy, so that a caller reusing its buffer can't change what we think is loaded
+    CustomPulseTrain pulseTrain =
+        new CustomPulseTrain(frequency, offset, numPulses, waveform.clone());
+    if (channel == DWF.WAVEFORM_CHANNEL_BOTH) {
+      loaded[DWF.WAVEFORM_CHANNEL_1] = pulseTrain;
+      loaded[DWF.WAVEFORM_CHANNEL_2] = pulseTrain;
+    } else {
+      loaded[channel] = pulseTrain;
+    }
+    uploads++;
+  }
+
+  /** Record an upload that was skipped because the pulse train was already loaded. */
+  public void avoided() {
+
+    avoidedUploads++;
+  }
+
+  /** Forget what is loaded on the channel(s), e.g. after a standard waveform was started on it. */
+  public void invalidate(int channel) {
+
+    if (channel == DWF.WAVEFORM_CHANNEL_BOTH) {
+      invalidateAll();
+    } else {
+      loaded[channel] = null;
+    }
+  }
+
+  /** Forget everything, e.g. after the device was opened, closed or reset. */
+  public void invalidateAll() {
+
+    Arrays.fill(loaded, null);
+  }
+
+  public long getUploads() {
+
+    return uploads;
+  }
+
+  public long getAvoidedUploads() {
+
+    return avoidedUploads;
+  }
+
+  private boolean matches(
+      int channel, int hash, double frequency, double offset, int numPulses, double[] waveform) {
+
+    CustomPulseTrain pulseTrain = loaded[channel];
+    return pulseTrain != null
+        && pulseTrain.hash == hash
+        && pulseTrain.frequency == frequency
+        && pulseTrain.offset == offset
+        && pulseTrain.numPulses == numPulses
+        && Arrays.equals(pulseTrain.waveform, waveform);
+  }
+
+  private static class CustomPulseTrain {
+
+    private final double frequency;
+    private final double offset;
+    private final int numPulses;
+    private final double[] waveform;
+    private final int hash;
+
+    CustomPulseTrain(double frequency, double offset, int numPulses, double[] waveform) {
+
+      this.frequency = frequency;
+      this.offset = offset;
+      this.numPulses = numPulses;
+      this.waveform = waveform;
+      this.hash = Arrays.hashCode(waveform);
+    }
+  }
+}
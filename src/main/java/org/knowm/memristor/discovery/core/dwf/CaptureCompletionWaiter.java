@@ -0,0 +1,130 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.concurrent.locks.LockSupport;
+import org.knowm.memristor.discovery.core.dwf.WaitResult.Outcome;
+
+/**
+ * Waits for an analog-in acquisition to finish. Since the caller knows how long the pulse train
+ * will take, we park until the expected end of the acquisition and only then start polling the
+ * device, first every few microseconds and then with exponential backoff until a hard deadline.
+ * Short reads therefore return within a poll or two of completing, while a capture that never
+ * completes is given up on in bounded time.
+ */
+public class CaptureCompletionWaiter {
+
+  private final long initialPollNanos;
+  private final long maxPollNanos;
+  private final long minTimeoutNanos;
+  private final double timeoutFactor;
+
+  /** Poll 20 us after the expected end, back off to 10 ms, give up 1 s or 4x late. */
+  public CaptureCompletionWaiter() {
+
+    this(20_000L, 10_000_000L, 1_000_000_000L, 4.0);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param initialPollNanos - first poll interval once the expected end time has passed
+   * @param maxPollNanos - the poll interval doubles up to this value
+   * @param minTimeoutNanos - minimum time allowed past the expected end before giving up
+   * @param timeoutFactor - the time allowed past the expected end, as a multiple of the expected
+   *     duration, if larger than minTimeoutNanos
+   */
+  public CaptureCompletionWaiter(
+      long initialPollNanos, long maxPollNanos, long minTimeoutNanos, double timeoutFactor) {
+
+    this.initialPollNanos = Math.max(1, initialPollNanos);
+    this.maxPollNanos = Math.max(this.initialPollNanos, maxPollNanos);
+    this.minTimeoutNanos = minTimeoutNanos;
+    this.timeoutFactor = timeoutFactor;
+  }
+
+  /**
+   * Given the frequency and number of pulses of a pulse train, the time it takes to play it out.
+   *
+   * @param frequency
+   * @param pulseNumber
+   * @return
+   */
+  public static long getExpectedDurationNanos(double frequency, int pulseNumber) {
+
+    if (frequency <= 0) {
+      return 0;
+    }
+    return (long) (pulseNumber / frequency * 1_000_000_000L);
+  }
+
+  public WaitResult await(AD2Device dwf, long expectedDurationNanos) {
+
+    long start = System.nanoTime();
+    long expectedEnd = start + Math.max(0, expectedDurationNanos);
+    long deadline =
+        expectedEnd
+            + Math.max(minTimeoutNanos, (long) (Math.max(0, expectedDurationNanos) * timeoutFactor));
+
+    boolean interrupted = false;
+    int polls = 0;
+    byte status = DwfState.READY;
+    long pollInterval = initialPollNanos;
+
+    try {
+      // nothing can be done before the pulse train has played out
+      long now;
+      while ((now = System.nanoTime()) < expectedEnd) {
+        LockSupport.parkNanos(expectedEnd - now);
+        if (Thread.interrupted()) {
+          interrupted = true;
+        }
+      }
+
+      while (true) {
+        status = dwf.FDwfAnalogInStatus(true);
+        polls++;
+        now = System.nanoTime();
+        if (status == DwfState.DONE) {
+          return new WaitResult(Outcome.DONE, now - start, polls, status);
+        }
+        if (!DwfState.isValid(status)) {
+          return new WaitResult(Outcome.ERROR, now - start, polls, status);
+        }
+        if (now >= deadline) {
+          return new WaitResult(Outcome.TIMEOUT, now - start, polls, status);
+        }
+        LockSupport.parkNanos(Math.min(pollInterval, deadline - now));
+        if (Thread.interrupted()) {
+          interrupted = true;
+        }
+        pollInterval = Math.min(pollInterval * 2, maxPollNanos);
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/** The real Analog Discovery 2, driven through waveforms4j. */
+public class DWFDevice implements AD2Device {
+
+  private final DWF dwf;
+
+  public DWFDevice() {
+
+    this(new DWF());
+  }
+
+  public DWFDevice(DWF dwf) {
+
+    this.dwf = dwf;
+  }
+
+  @Override
+  public boolean FDwfDeviceOpen() {
+
+    return dwf.FDwfDeviceOpen();
+  }
+
+  @Override
+  public boolean FDwfDeviceCloseAll() {
+
+    return dwf.FDwfDeviceCloseAll();
+  }
+
+  @Override
+  public boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return dwf.FDwfDeviceAutoConfigureSet(autoConfigure);
+  }
+
+  @Override
+  public String FDwfGetLastErrorMsg() {
+
+    return dwf.FDwfGetLastErrorMsg();
+  }
+
+  @Override
+  public boolean setPowerSupply(int channel, double voltage) {
+
+    return dwf.setPowerSupply(channel, voltage);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOReset() {
+
+    return dwf.FDwfDigitalIOReset();
+  }
+
+  @Override
+  public boolean FDwfDigitalOutReset() {
+
+    return dwf.FDwfDigitalOutReset();
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    return dwf.FDwfDigitalIOOutputEnableSet(outputEnableMask);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    return dwf.FDwfDigitalIOOutputSet(outputSetMask);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOConfigure() {
+
+    return dwf.FDwfDigitalIOConfigure();
+  }
+
+  @Override
+  public int getDigitalIOStatus() {
+
+    return dwf.getDigitalIOStatus();
+  }
+
+  @Override
+  public boolean FDwfAnalogOutConfigure(int channel, boolean start) {
+
+    return dwf.FDwfAnalogOutConfigure(channel, start);
+  }
+
+  @Override
+  public boolean FDwfAnalogOutNodeOffsetSet(int channel, double offset) {
+
+    return dwf.FDwfAnalogOutNodeOffsetSet(channel, offset);
+  }
+
+  @Override
+  public boolean startWave(
+      int channel,
+      DWF.Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    return dwf.startWave(channel, waveform, frequency, amplitude, offset, dutyCycle);
+  }
+
+  @Override
+  public boolean stopWave(int channel) {
+
+    return dwf.stopWave(channel);
+  }
+
+  @Override
+  public boolean setCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    return dwf.setCustomPulseTrain(channel, frequency, offset, numPulses, waveform);
+  }
+
+  @Override
+  public boolean startPulseTrain(int channel) {
+
+    return dwf.startPulseTrain(channel);
+  }
+
+  @Override
+  public boolean startCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    return dwf.startCustomPulseTrain(channel, frequency, offset, numPulses, waveform);
+  }
+
+  @Override
+  public boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    return dwf.FDwfAnalogInConfigure(reconfigure, start);
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelEnableSet(int channel, boolean enable) {
+
+    return dwf.FDwfAnalogInChannelEnableSet(channel, enable);
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelRangeSet(int channel, double range) {
+
+    return dwf.FDwfAnalogInChannelRangeSet(channel, range);
+  }
+
+  @Override
+  public byte FDwfAnalogInStatus(boolean readData) {
+
+    return dwf.FDwfAnalogInStatus(readData);
+  }
+
+  @Override
+  public int FDwfAnalogInStatusSamplesValid() {
+
+    return dwf.FDwfAnalogInStatusSamplesValid();
+  }
+
+  @Override
+  public double[] FDwfAnalogInStatusData(int channel, int samples) {
+
+    return dwf.FDwfAnalogInStatusData(channel, samples);
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    return dwf.startAnalogCaptureBothChannelsImmediately(sampleFrequency, bufferSize, acquisitionMode);
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    return dwf.startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, triggerLevel, bufferSize);
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V) {
+
+    return dwf.startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(channel, sampleFrequency, bufferSize, isScale2V);
+  }
+
+  @Override
+  public boolean stopAnalogCaptureBothChannels() {
+
+    return dwf.stopAnalogCaptureBothChannels();
+  }
+}
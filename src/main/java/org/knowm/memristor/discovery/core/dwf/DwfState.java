@@ -0,0 +1,44 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+/** The DwfState values returned by FDwfAnalogInStatus. */
+public final class DwfState {
+
+  public static final byte READY = 0;
+  public static final byte ARMED = 1;
+  public static final byte DONE = 2;
+  public static final byte RUNNING = 3; // a.k.a. triggered
+  public static final byte CONFIG = 4;
+  public static final byte PREFILL = 5;
+  public static final byte NOT_DONE = 6;
+  public static final byte WAIT = 7;
+
+  private DwfState() {}
+
+  public static boolean isValid(byte status) {
+
+    return status >= READY && status <= WAIT;
+  }
+}
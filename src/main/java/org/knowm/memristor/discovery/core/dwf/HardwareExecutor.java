@@ -0,0 +1,131 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Owns the single thread that is allowed to talk to the AD2. Callers submit {@link
+ * HardwareOperation}s and get a {@link Future} back, so independent host-side work (e.g. building
+ * the next waveform or post-processing the last capture) can overlap with the USB round trips.
+ * Operations submitted from the hardware thread itself are run inline to avoid self-deadlock.
+ */
+public class HardwareExecutor {
+
+  private final AD2Device dwf;
+  private final ExecutorService executorService;
+  private volatile Thread hardwareThread;
+
+  public HardwareExecutor(AD2Device dwf, String threadName) {
+
+    this.dwf = dwf;
+    this.executorService =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, threadName);
+              thread.setDaemon(true);
+              hardwareThread = thread;
+              return thread;
+            });
+  }
+
+  public boolean isHardwareThread() {
+
+    return Thread.currentThread() == hardwareThread;
+  }
+
+  /**
+   * Queue an operation behind everything submitted before it.
+   *
+   * @param operation
+   * @return a future holding the operation's result
+   */
+  public <T> Future<T> submit(HardwareOperation<T> operation) {
+
+    if (isHardwareThread()) {
+      FutureTask<T> task = new FutureTask<>(() -> operation.execute(dwf));
+      task.run();
+      return task;
+    }
+    return executorService.submit(() -> operation.execute(dwf));
+  }
+
+  /**
+   * Run an operation on the hardware thread and wait for its result.
+   *
+   * @param operation
+   * @return the operation's result
+   */
+  public <T> T execute(HardwareOperation<T> operation) {
+
+    if (isHardwareThread()) {
+      return operation.execute(dwf);
+    }
+    return await(executorService.submit(() -> operation.execute(dwf)));
+  }
+
+  /**
+   * Wait for a submitted operation. The device can't be interrupted half way through an
+   * operation, so an interrupt doesn't abandon the wait; the interrupt status is restored once the
+   * result is in. Exceptions thrown by the operation are rethrown on the calling thread.
+   *
+   * @param future
+   * @return the operation's result
+   */
+  public static <T> T await(Future<T> future) {
+
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** Stop the hardware thread once everything already submitted has run. */
+  public void shutdown() {
+
+    executorService.shutdown();
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms and outcome counters for everything that goes to the device, so it's possible
+ * to see where an experiment loop spends its time. Device calls are timed by {@link
+ * InstrumentedAD2Device}; arm and capture waits are recorded from their {@link WaitResult}s.
+ */
+public class HardwareMetrics {
+
+  public enum Operation {
+    DEVICE_OPEN, // FDwfDeviceOpen
+    SCOPE_CONFIGURE, // setting up a capture, before waiting for it to arm
+    ARM_WAIT, // configure done until the scope reports armed
+    STATUS_POLL, // one FDwfAnalogInStatus
+    CAPTURE_WAIT, // AWG started until the acquisition is done
+    SAMPLE_FETCH, // reading one channel's samples
+    AWG_UPLOAD, // uploading a custom pulse train
+    AWG_START, // starting the AWG
+    DIO_WRITE, // applying the digital outputs
+    DIO_READ // reading the digital inputs back
+  }
+
+  public enum Counter {
+    ARM_TIMEOUT,
+    ARM_ERROR,
+    CAPTURE_TIMEOUT,
+    CAPTURE_ERROR
+  }
+
+  private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+  private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+  public HardwareMetrics() {
+
+    for (int i = 0; i < histograms.length; i++) {
+      histograms[i] = new LatencyHistogram();
+    }
+  }
+
+  public void record(Operation operation, long nanos) {
+
+    histograms[operation.ordinal()].record(nanos);
+  }
+
+  public void increment(Counter counter) {
+
+    counters.incrementAndGet(counter.ordinal());
+  }
+
+  public void recordArm(WaitResult result) {
+
+    record(Operation.ARM_WAIT, result.getLatencyNanos());
+    if (result.getOutcome() == WaitResult.Outcome.TIMEOUT) {
+      increment(Counter.ARM_TIMEOUT);
+    } else if (result.getOutcome() == WaitResult.Outcome.ERROR) {
+      increment(Counter.ARM_ERROR);
+    }
+  }
+
+  public void recordCapture(WaitResult result) {
+
+    record(Operation.CAPTURE_WAIT, result.getLatencyNanos());
+    if (result.getOutcome() == WaitResult.Outcome.TIMEOUT) {
+      increment(Counter.CAPTURE_TIMEOUT);
+    } else if (result.getOutcome() == WaitResult.Outcome.ERROR) {
+      increment(Counter.CAPTURE_ERROR);
+    }
+  }
+
+  public LatencyHistogram.Snapshot getSnapshot(Operation operation) {
+
+    return histograms[operation.ordinal()].snapshot();
+  }
+
+  public long getCount(Counter counter) {
+
+    return counters.get(counter.ordinal());
+  }
+
+  /**
+   * One line per operation that has been recorded, then the counters.
+   *
+   * @return a table for logs or a file
+   */
+  public String report() {
+
+    StringBuilder sb = new StringBuilder();
+    sb.append(
+        String.format(
+            "%-16s %10s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "mean_us", "p50_us", "p90_us", "p99_us", "max_us"));
+    for (Operation operation : Operation.values()) {
+      LatencyHistogram.Snapshot snapshot = getSnapshot(operation);
+      if (snapshot.getCount() == 0) {
+        continue;
+      }
+      sb.append(
+          String.format(
+              "%-16s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+              operation,
+              snapshot.getCount(),
+              snapshot.getMeanNanos() / 1E3,
+              snapshot.getPercentileNanos(50) / 1E3,
+              snapshot.getPercentileNanos(90) / 1E3,
+              snapshot.getPercentileNanos(99) / 1E3,
+              snapshot.getMaxNanos() / 1E3));
+    }
+    for (Counter counter : Counter.values()) {
+      sb.append(String.format("%-16s %10d%n", counter, getCount(counter)));
+    }
+    return sb.toString();
+  }
+}
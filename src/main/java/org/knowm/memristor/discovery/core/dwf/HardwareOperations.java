@@ -0,0 +1,248 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/** Factory for the typed {@link HardwareOperation}s the experiments are built from. */
+public final class HardwareOperations {
+
+  private HardwareOperations() {}
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  /**
+   * Upload a custom pulse train to the AWG without starting it. The upload is skipped if the cache
+   * says the same pulse train is already loaded on the channel.
+   */
+  public static HardwareOperation<Boolean> configureAwg(
+      int channel,
+      double frequency,
+      double offset,
+      int numPulses,
+      double[] waveform,
+      AwgUploadCache cache) {
+
+    return dwf -> {
+      if (cache.isLoaded(channel, frequency, offset, numPulses, waveform)) {
+        cache.avoided();
+        return true;
+      }
+      boolean isUploaded = dwf.setCustomPulseTrain(channel, frequency, offset, numPulses, waveform);
+      if (isUploaded) {
+        cache.uploaded(channel, frequency, offset, numPulses, waveform);
+      } else {
+        cache.invalidate(channel);
+      }
+      return isUploaded;
+    };
+  }
+
+  /** Start the pulse train previously uploaded with {@link #configureAwg}. */
+  public static HardwareOperation<Boolean> startAwg(int channel) {
+
+    return dwf -> dwf.startPulseTrain(channel);
+  }
+
+  /** Upload a custom pulse train to the AWG, unless it's already loaded there, and start it. */
+  public static HardwareOperation<Boolean> startCustomPulseTrain(
+      int channel,
+      double frequency,
+      double offset,
+      int numPulses,
+      double[] waveform,
+      AwgUploadCache cache) {
+
+    HardwareOperation<Boolean> configure =
+        configureAwg(channel, frequency, offset, numPulses, waveform, cache);
+    return dwf -> configure.execute(dwf) && dwf.startPulseTrain(channel);
+  }
+
+  /** Start a standard waveform. This replaces whatever custom pulse train was on the channel. */
+  public static HardwareOperation<Boolean> startWave(
+      int channel,
+      DWF.Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle,
+      AwgUploadCache cache) {
+
+    return dwf -> {
+      cache.invalidate(channel);
+      return dwf.startWave(channel, waveform, frequency, amplitude, offset, dutyCycle);
+    };
+  }
+
+  public static HardwareOperation<Boolean> stopAwg(int channel) {
+
+    return dwf -> dwf.stopWave(channel);
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  /** Configure both scope channels to trigger on the AWG and wait for the scope to arm. */
+  public static HardwareOperation<WaitResult> armScopeOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V, ArmWaiter waiter) {
+
+    return dwf -> {
+      dwf.startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+          channel, sampleFrequency, bufferSize, isScale2V);
+      return waiter.await(dwf);
+    };
+  }
+
+  /** Configure both scope channels to trigger on a level and wait for the scope to arm. */
+  public static HardwareOperation<WaitResult> armScopeOnLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize, ArmWaiter waiter) {
+
+    return dwf -> {
+      dwf.startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, triggerLevel, bufferSize);
+      return waiter.await(dwf);
+    };
+  }
+
+  public static HardwareOperation<Boolean> startScopeImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    return dwf ->
+        dwf.startAnalogCaptureBothChannelsImmediately(sampleFrequency, bufferSize, acquisitionMode);
+  }
+
+  public static HardwareOperation<Boolean> stopScope() {
+
+    return dwf -> dwf.stopAnalogCaptureBothChannels();
+  }
+
+  public static HardwareOperation<WaitResult> awaitArmed(ArmWaiter waiter) {
+
+    return dwf -> waiter.await(dwf);
+  }
+
+  public static HardwareOperation<WaitResult> awaitCapture(
+      CaptureCompletionWaiter waiter, long expectedDurationNanos) {
+
+    return dwf -> waiter.await(dwf, expectedDurationNanos);
+  }
+
+  /**
+   * Read the valid samples of both scope channels as of the last status read.
+   *
+   * @return {V1, V2}
+   */
+  public static HardwareOperation<double[][]> fetchSamples() {
+
+    return dwf -> {
+      int validSamples = dwf.FDwfAnalogInStatusSamplesValid();
+      return new double[][] {
+        dwf.FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples),
+        dwf.FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples)
+      };
+    };
+  }
+
+  /**
+   * Read the scope status, then the valid samples of both channels. Used for captures that run
+   * continuously rather than completing.
+   *
+   * @return {V1, V2}, or null if there are no valid samples yet
+   */
+  public static HardwareOperation<double[][]> pollSamples() {
+
+    return dwf -> {
+      dwf.FDwfAnalogInStatus(true);
+      int validSamples = dwf.FDwfAnalogInStatusSamplesValid();
+      if (validSamples <= 0) {
+        return null;
+      }
+      return new double[][] {
+        dwf.FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples),
+        dwf.FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples)
+      };
+    };
+  }
+
+  /**
+   * Like {@link #fetchSamples()}, but reads into arrays taken from the pool so that a steady stream
+   * of captures doesn't allocate.
+   *
+   * @param pool - the caller releases the returned arrays back into it when done with them
+   * @return {V1, V2}
+   */
+  public static HardwareOperation<double[][]> fetchSamples(SampleBufferPool pool) {
+
+    return dwf -> readSamples(dwf, dwf.FDwfAnalogInStatusSamplesValid(), pool);
+  }
+
+  /**
+   * Like {@link #pollSamples()}, but reads into arrays taken from the pool.
+   *
+   * @param pool - the caller releases the returned arrays back into it when done with them
+   * @return {V1, V2}, or null if there are no valid samples yet
+   */
+  public static HardwareOperation<double[][]> pollSamples(SampleBufferPool pool) {
+
+    return dwf -> {
+      dwf.FDwfAnalogInStatus(true);
+      int validSamples = dwf.FDwfAnalogInStatusSamplesValid();
+      if (validSamples <= 0) {
+        return null;
+      }
+      return readSamples(dwf, validSamples, pool);
+    };
+  }
+
+  private static double[][] readSamples(AD2Device dwf, int validSamples, SampleBufferPool pool) {
+
+    double[] v1 = pool.acquire(validSamples);
+    double[] v2 = pool.acquire(validSamples);
+    dwf.FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, v1, validSamples);
+    dwf.FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, v2, validSamples);
+    return new double[][] {v1, v2};
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  /**
+   * Write all digital IO outputs at once.
+   *
+   * @param states
+   * @return the states read back from the device
+   */
+  public static HardwareOperation<Integer> setDIO(int states) {
+
+    return dwf -> {
+      dwf.FDwfDigitalIOOutputSet(states);
+      dwf.FDwfDigitalIOConfigure();
+      return dwf.getDigitalIOStatus();
+    };
+  }
+}
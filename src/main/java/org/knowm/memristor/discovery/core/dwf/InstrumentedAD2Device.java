@@ -0,0 +1,289 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import org.knowm.memristor.discovery.core.dwf.HardwareMetrics.Operation;
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/**
+ * Wraps a device and times the calls that matter for throughput into {@link HardwareMetrics}. Calls
+ * that only set up state are passed straight through.
+ */
+public class InstrumentedAD2Device implements AD2Device {
+
+  private final AD2Device device;
+  private final HardwareMetrics metrics;
+
+  public InstrumentedAD2Device(AD2Device device, HardwareMetrics metrics) {
+
+    this.device = device;
+    this.metrics = metrics;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfDeviceOpen() {
+
+    long start = System.nanoTime();
+    boolean isOpen = device.FDwfDeviceOpen();
+    metrics.record(Operation.DEVICE_OPEN, System.nanoTime() - start);
+    return isOpen;
+  }
+
+  @Override
+  public boolean FDwfDeviceCloseAll() {
+
+    return device.FDwfDeviceCloseAll();
+  }
+
+  @Override
+  public boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return device.FDwfDeviceAutoConfigureSet(autoConfigure);
+  }
+
+  @Override
+  public String FDwfGetLastErrorMsg() {
+
+    return device.FDwfGetLastErrorMsg();
+  }
+
+  @Override
+  public boolean setPowerSupply(int channel, double voltage) {
+
+    return device.setPowerSupply(channel, voltage);
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfDigitalIOReset() {
+
+    return device.FDwfDigitalIOReset();
+  }
+
+  @Override
+  public boolean FDwfDigitalOutReset() {
+
+    return device.FDwfDigitalOutReset();
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    return device.FDwfDigitalIOOutputEnableSet(outputEnableMask);
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    return device.FDwfDigitalIOOutputSet(outputSetMask);
+  }
+
+  /** With auto configure off, this is the round trip that applies FDwfDigitalIOOutputSet. */
+  @Override
+  public boolean FDwfDigitalIOConfigure() {
+
+    long start = System.nanoTime();
+    boolean isConfigured = device.FDwfDigitalIOConfigure();
+    metrics.record(Operation.DIO_WRITE, System.nanoTime() - start);
+    return isConfigured;
+  }
+
+  @Override
+  public int getDigitalIOStatus() {
+
+    long start = System.nanoTime();
+    int status = device.getDigitalIOStatus();
+    metrics.record(Operation.DIO_READ, System.nanoTime() - start);
+    return status;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfAnalogOutConfigure(int channel, boolean start) {
+
+    return device.FDwfAnalogOutConfigure(channel, start);
+  }
+
+  @Override
+  public boolean FDwfAnalogOutNodeOffsetSet(int channel, double offset) {
+
+    return device.FDwfAnalogOutNodeOffsetSet(channel, offset);
+  }
+
+  @Override
+  public boolean startWave(
+      int channel,
+      DWF.Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    long start = System.nanoTime();
+    boolean isStarted = device.startWave(channel, waveform, frequency, amplitude, offset, dutyCycle);
+    metrics.record(Operation.AWG_START, System.nanoTime() - start);
+    return isStarted;
+  }
+
+  @Override
+  public boolean stopWave(int channel) {
+
+    return device.stopWave(channel);
+  }
+
+  @Override
+  public boolean setCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    long start = System.nanoTime();
+    boolean isUploaded = device.setCustomPulseTrain(channel, frequency, offset, numPulses, waveform);
+    metrics.record(Operation.AWG_UPLOAD, System.nanoTime() - start);
+    return isUploaded;
+  }
+
+  @Override
+  public boolean startPulseTrain(int channel) {
+
+    long start = System.nanoTime();
+    boolean isStarted = device.startPulseTrain(channel);
+    metrics.record(Operation.AWG_START, System.nanoTime() - start);
+    return isStarted;
+  }
+
+  /** Timed as an upload followed by a start. */
+  @Override
+  public boolean startCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    return setCustomPulseTrain(channel, frequency, offset, numPulses, waveform)
+        && startPulseTrain(channel);
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    return device.FDwfAnalogInConfigure(reconfigure, start);
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelEnableSet(int channel, boolean enable) {
+
+    return device.FDwfAnalogInChannelEnableSet(channel, enable);
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelRangeSet(int channel, double range) {
+
+    return device.FDwfAnalogInChannelRangeSet(channel, range);
+  }
+
+  @Override
+  public byte FDwfAnalogInStatus(boolean readData) {
+
+    long start = System.nanoTime();
+    byte status = device.FDwfAnalogInStatus(readData);
+    metrics.record(Operation.STATUS_POLL, System.nanoTime() - start);
+    return status;
+  }
+
+  @Override
+  public int FDwfAnalogInStatusSamplesValid() {
+
+    return device.FDwfAnalogInStatusSamplesValid();
+  }
+
+  @Override
+  public double[] FDwfAnalogInStatusData(int channel, int samples) {
+
+    long start = System.nanoTime();
+    double[] data = device.FDwfAnalogInStatusData(channel, samples);
+    metrics.record(Operation.SAMPLE_FETCH, System.nanoTime() - start);
+    return data;
+  }
+
+  @Override
+  public int FDwfAnalogInStatusData(int channel, double[] buffer, int samples) {
+
+    long start = System.nanoTime();
+    int count = device.FDwfAnalogInStatusData(channel, buffer, samples);
+    metrics.record(Operation.SAMPLE_FETCH, System.nanoTime() - start);
+    return count;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    long start = System.nanoTime();
+    boolean isStarted =
+        device.startAnalogCaptureBothChannelsImmediately(
+            sampleFrequency, bufferSize, acquisitionMode);
+    metrics.record(Operation.SCOPE_CONFIGURE, System.nanoTime() - start);
+    return isStarted;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    long start = System.nanoTime();
+    boolean isStarted =
+        device.startAnalogCaptureBothChannelsLevelTrigger(sampleFrequency, triggerLevel, bufferSize);
+    metrics.record(Operation.SCOPE_CONFIGURE, System.nanoTime() - start);
+    return isStarted;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V) {
+
+    long start = System.nanoTime();
+    boolean isStarted =
+        device.startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+            channel, sampleFrequency, bufferSize, isScale2V);
+    metrics.record(Operation.SCOPE_CONFIGURE, System.nanoTime() - start);
+    return isStarted;
+  }
+
+  @Override
+  public boolean stopAnalogCaptureBothChannels() {
+
+    return device.stopAnalogCaptureBothChannels();
+  }
+}
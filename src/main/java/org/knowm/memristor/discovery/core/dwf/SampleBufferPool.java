@@ -0,0 +1,121 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Recycles the sample arrays captures are read into and derived from. Arrays are handed out at the
+ * exact length asked for, because the charts and post-processing go by array length, and captures
+ * in a running experiment keep asking for the same few lengths. Once those have been seen, the
+ * pool itself allocates nothing more and {@link #getAllocations()} stays flat.
+ *
+ * <p>Thread safe. An array must not be used after it has been released.
+ */
+public class SampleBufferPool {
+
+  /** Free arrays kept per length. More than this are left to the garbage collector. */
+  private static final int MAX_FREE_PER_LENGTH = 16;
+
+  private final Map<Integer, ArrayDeque<double[]>> freeArrays = new HashMap<>();
+
+  private long acquisitions = 0;
+  private long allocations = 0;
+
+  /**
+   * @param length
+   * @return an array of exactly this length, with arbitrary contents
+   */
+  public synchronized double[] acquire(int length) {
+
+    acquisitions++;
+    ArrayDeque<double[]> free = freeArrays.get(length);
+    if (free != null && !free.isEmpty()) {
+      return free.pop();
+    }
+    allocations++;
+    return new double[length];
+  }
+
+  /**
+   * @param source
+   * @param length
+   * @return a pooled copy of the first length values of source
+   */
+  public double[] copyOf(double[] source, int length) {
+
+    double[] copy = acquire(length);
+    System.arraycopy(source, 0, copy, 0, Math.min(length, source.length));
+    return copy;
+  }
+
+  /** Hand an array back. Null is ignored, and so is an array that is already in the pool. */
+  public synchronized void release(double[] array) {
+
+    if (array == null) {
+      return;
+    }
+    ArrayDeque<double[]> free = freeArrays.computeIfAbsent(array.length, l -> new ArrayDeque<>());
+    if (free.size() >= MAX_FREE_PER_LENGTH) {
+      return;
+    }
+    for (double[] freeArray : free) {
+      if (freeArray == array) {
+        return;
+      }
+    }
+    free.push(array);
+  }
+
+  /** Hand back every array in a chunk, e.g. one that was published but never displayed. */
+  public void release(double[][] arrays) {
+
+    if (arrays == null) {
+      return;
+    }
+    for (double[] array : arrays) {
+      release(array);
+    }
+  }
+
+  /** @return how many arrays have been handed out */
+  public synchronized long getAcquisitions() {
+
+    return acquisitions;
+  }
+
+  /**
+   * Only counts the pool's own arrays. On real hardware {@link DWFDevice} reads through the copying
+   * default of {@link AD2Device#FDwfAnalogInStatusData(int, double[], int)}, so every read still
+   * allocates a fresh array in the DWF binding that this counter can't see.
+   *
+   * @return how many of the arrays handed out had to be newly allocated
+   */
+  public synchronized long getAllocations() {
+
+    return allocations;
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The DIO states to step through during a multi-device program, and how long the switches get to
+ * settle after each change. The whole schedule is run as one operation on the hardware thread, see
+ * {@link org.knowm.memristor.discovery.DWFProxy#captureSwitchSchedule}, so steps follow each other
+ * back to back and the settle time is timed there to the microsecond instead of by a millisecond
+ * sleep on the experiment thread.
+ */
+public class SwitchSchedule {
+
+  /** parking can overshoot by tens of microseconds, so the last stretch is spun */
+  private static final long SPIN_NANOS = 100_000;
+
+  private final int[] steps;
+  private final int finalStates;
+  private final long settleNanos;
+
+  /**
+   * Constructor
+   *
+   * @param steps - the full DIO states for each step
+   * @param finalStates - the DIO states to leave once the schedule is done
+   * @param settleNanos - the time allowed after each DIO change before the step runs
+   */
+  public SwitchSchedule(int[] steps, int finalStates, long settleNanos) {
+
+    this.steps = Arrays.copyOf(steps, steps.length);
+    this.finalStates = finalStates;
+    this.settleNanos = settleNanos;
+  }
+
+  /**
+   * All switches off, then each switch on by itself in turn, then all off again.
+   *
+   * @param states - the current DIO states, whose non-switch bits (e.g. the V1 mux) are kept
+   * @param switchCount - switches are DIO 0 to switchCount - 1
+   * @param settleNanos
+   */
+  public static SwitchSchedule eachSwitch(int states, int switchCount, long settleNanos) {
+
+    int allOff = states & ~((1 << switchCount) - 1);
+    int[] steps = new int[switchCount + 1];
+    steps[0] = allOff;
+    for (int i = 0; i < switchCount; i++) {
+      steps[i + 1] = allOff | (1 << i);
+    }
+    return new SwitchSchedule(steps, allOff, settleNanos);
+  }
+
+  public int size() {
+
+    return steps.length;
+  }
+
+  public int getStates(int step) {
+
+    return steps[step];
+  }
+
+  public int getFinalStates() {
+
+    return finalStates;
+  }
+
+  public long getSettleNanos() {
+
+    return settleNanos;
+  }
+
+  /** Wait out the settle time. Runs on the hardware thread. */
+  public void settle() {
+
+    long deadline = System.nanoTime() + settleNanos;
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+      LockSupport.parkNanos(remaining - SPIN_NANOS);
+    }
+    while (deadline - System.nanoTime() > 0) {
+      Thread.onSpinWait();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+/**
+ * Outcome of waiting on the AD2 for a state change, e.g. the scope becoming armed or an
+ * acquisition completing, together with how long the wait took.
+ */
+public final class WaitResult {
+
+  public enum Outcome {
+    DONE, // the awaited state was reached
+    TIMEOUT, // the deadline passed before the state was reached
+    ERROR; // the device reported a state that can't be waited on
+  }
+
+  private final Outcome outcome;
+  private final long latencyNanos;
+  private final int polls;
+  private final byte lastStatus;
+
+  public WaitResult(Outcome outcome, long latencyNanos, int polls, byte lastStatus) {
+
+    this.outcome = outcome;
+    this.latencyNanos = latencyNanos;
+    this.polls = polls;
+    this.lastStatus = lastStatus;
+  }
+
+  public boolean isDone() {
+
+    return outcome == Outcome.DONE;
+  }
+
+  public Outcome getOutcome() {
+
+    return outcome;
+  }
+
+  /** @return the wall time from the start of the wait until it returned */
+  public long getLatencyNanos() {
+
+    return latencyNanos;
+  }
+
+  public double getLatencyMillis() {
+
+    return latencyNanos / 1_000_000.0;
+  }
+
+  /** @return how many times the device status was read */
+  public int getPolls() {
+
+    return polls;
+  }
+
+  /** @return the last value returned by FDwfAnalogInStatus */
+  public byte getLastStatus() {
+
+    return lastStatus;
+  }
+
+  @Override
+  public String toString() {
+
+    return outcome
+        + " after "
+        + String.format("%.3f", getLatencyMillis())
+        + " ms, polls="
+        + polls
+        + ", lastStatus="
+        + lastStatus;
+  }
+}
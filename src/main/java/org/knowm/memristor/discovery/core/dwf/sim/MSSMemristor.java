@@ -0,0 +1,110 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf.sim;
+
+/**
+ * Mean-field metastable switch (MSS) memristor model. The device is treated as a large population
+ * of switches that each flip between a low and a high resistance state with a voltage dependent
+ * probability, and only the fraction of switches in the ON state is tracked.
+ */
+public class MSSMemristor {
+
+  /** kT/q at room temperature */
+  private static final double THERMAL_VOLTAGE = 0.026;
+
+  private final double rOn;
+  private final double rOff;
+  private final double vOn;
+  private final double vOff;
+  private final double tau;
+
+  /** fraction of switches in the ON state, 0..1 */
+  private double onFraction;
+
+  /**
+   * Constructor
+   *
+   * @param rOn - resistance with every switch ON
+   * @param rOff - resistance with every switch OFF
+   * @param vOn - positive voltage above which switches turn ON
+   * @param vOff - magnitude of the negative voltage below which switches turn OFF
+   * @param tau - switching time constant in seconds
+   * @param onFraction - initial fraction of switches in the ON state
+   */
+  public MSSMemristor(
+      double rOn, double rOff, double vOn, double vOff, double tau, double onFraction) {
+
+    this.rOn = rOn;
+    this.rOff = rOff;
+    this.vOn = vOn;
+    this.vOff = vOff;
+    this.tau = tau;
+    this.onFraction = onFraction;
+  }
+
+  /** A device with roughly the characteristics of a Knowm SDC memristor, starting erased. */
+  public MSSMemristor() {
+
+    this(10_000, 500_000, 0.27, 0.27, 1E-4, 0.0);
+  }
+
+  /**
+   * Evolve the switch population under a constant voltage. The population equation is linear in
+   * the ON fraction, so it's solved exactly over the step rather than integrated.
+   *
+   * @param voltage - voltage across the device
+   * @param dt - step length in seconds
+   */
+  public void step(double voltage, double dt) {
+
+    double pOn = 1.0 / (1.0 + Math.exp(-(voltage - vOn) / THERMAL_VOLTAGE));
+    double pOff = 1.0 / (1.0 + Math.exp((voltage + vOff) / THERMAL_VOLTAGE));
+    double rate = (pOn + pOff) / tau;
+    if (rate <= 0) {
+      return;
+    }
+    double steadyState = pOn / (pOn + pOff);
+    onFraction = steadyState + (onFraction - steadyState) * Math.exp(-rate * dt);
+  }
+
+  public double getConductance() {
+
+    return onFraction / rOn + (1 - onFraction) / rOff;
+  }
+
+  public double getResistance() {
+
+    return 1 / getConductance();
+  }
+
+  public double getOnFraction() {
+
+    return onFraction;
+  }
+
+  public void setOnFraction(double onFraction) {
+
+    this.onFraction = onFraction;
+  }
+}
@@ -0,0 +1,514 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf.sim;
+
+import java.util.Arrays;
+import org.knowm.memristor.discovery.core.dwf.AD2Device;
+import org.knowm.memristor.discovery.core.dwf.DwfState;
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+
+/**
+ * An in-process stand-in for the Analog Discovery 2 wired to a {@link SimulatedBoard}. AWG channel
+ * 1 drives the board, the DIO outputs drive the board switches and the scope records the board's
+ * two probe points, so experiments run end to end without hardware, e.g. for benchmarks on a
+ * build server. Select it with {@code -Dmemristor.discovery.device=simulated}.
+ *
+ * <p>Captures are computed synchronously when the AWG starts, so a triggered acquisition is
+ * already done by the time the first status read comes in. Level triggers are treated as
+ * triggering on the AWG start. AWG channel 2 is accepted but isn't wired into the board model.
+ */
+public class SimulatedAD2Device implements AD2Device {
+
+  /** WaveformUtils scales custom AWG buffers into -1..1 by dividing by 5 V */
+  private static final double CUSTOM_FULL_SCALE = 5.0;
+
+  /** resolution an AWG program is pushed through the board with while the scope isn't recording */
+  private static final int UNRECORDED_SAMPLES_PER_PERIOD = 256;
+
+  private enum ScopeMode {
+    IDLE,
+    TRIGGERED,
+    IMMEDIATE
+  }
+
+  private final SimulatedBoard board;
+
+  // AWG
+  private final AwgProgram[] awgPrograms = new AwgProgram[2];
+  private AwgProgram runningProgram;
+  private double runningProgramTime;
+
+  // Digital I/O
+  private int digitalIOOutputEnable;
+  private int digitalIOOutput;
+  private int digitalIOStatus;
+
+  // Analog In
+  private ScopeMode scopeMode = ScopeMode.IDLE;
+  private byte scopeState = DwfState.READY;
+  private double sampleFrequency;
+  private int bufferSize;
+  private double[] scope1 = new double[0];
+  private double[] scope2 = new double[0];
+  private int validSamples;
+
+  public SimulatedAD2Device(int boardVersion) {
+
+    this(new SimulatedBoard(boardVersion, 0L));
+  }
+
+  public SimulatedAD2Device(SimulatedBoard board) {
+
+    this.board = board;
+  }
+
+  public SimulatedBoard getBoard() {
+
+    return board;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfDeviceOpen() {
+
+    return true;
+  }
+
+  @Override
+  public boolean FDwfDeviceCloseAll() {
+
+    runningProgram = null;
+    scopeMode = ScopeMode.IDLE;
+    scopeState = DwfState.READY;
+    return true;
+  }
+
+  @Override
+  public boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return true;
+  }
+
+  @Override
+  public String FDwfGetLastErrorMsg() {
+
+    return "";
+  }
+
+  @Override
+  public boolean setPowerSupply(int channel, double voltage) {
+
+    return true;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfDigitalIOReset() {
+
+    digitalIOOutputEnable = 0;
+    digitalIOOutput = 0;
+    return FDwfDigitalIOConfigure();
+  }
+
+  @Override
+  public boolean FDwfDigitalOutReset() {
+
+    return true;
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    digitalIOOutputEnable = outputEnableMask;
+    return true;
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    digitalIOOutput = outputSetMask;
+    return true;
+  }
+
+  @Override
+  public boolean FDwfDigitalIOConfigure() {
+
+    digitalIOStatus = digitalIOOutput & digitalIOOutputEnable;
+    board.setDigitalIOStates(digitalIOStatus);
+    return true;
+  }
+
+  @Override
+  public int getDigitalIOStatus() {
+
+    return digitalIOStatus;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfAnalogOutConfigure(int channel, boolean start) {
+
+    if (start) {
+      return startPulseTrain(channel);
+    }
+    return stopWave(channel);
+  }
+
+  @Override
+  public boolean FDwfAnalogOutNodeOffsetSet(int channel, double offset) {
+
+    return true;
+  }
+
+  @Override
+  public boolean startWave(
+      int channel,
+      DWF.Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    setProgram(channel, new StandardWave(waveform, frequency, amplitude, offset, dutyCycle));
+    return startPulseTrain(channel);
+  }
+
+  @Override
+  public boolean stopWave(int channel) {
+
+    if (channel != DWF.WAVEFORM_CHANNEL_2) {
+      runningProgram = null;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean setCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    setProgram(channel, new CustomPulseTrain(waveform, frequency, offset, numPulses));
+    return true;
+  }
+
+  @Override
+  public boolean startPulseTrain(int channel) {
+
+    if (channel != DWF.WAVEFORM_CHANNEL_2 && awgPrograms[DWF.WAVEFORM_CHANNEL_1] != null) {
+      run(awgPrograms[DWF.WAVEFORM_CHANNEL_1]);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean startCustomPulseTrain(
+      int channel, double frequency, double offset, int numPulses, double[] waveform) {
+
+    setCustomPulseTrain(channel, frequency, offset, numPulses, waveform);
+    return startPulseTrain(channel);
+  }
+
+  private void setProgram(int channel, AwgProgram program) {
+
+    if (channel == DWF.WAVEFORM_CHANNEL_BOTH) {
+      awgPrograms[DWF.WAVEFORM_CHANNEL_1] = program;
+      awgPrograms[DWF.WAVEFORM_CHANNEL_2] = program;
+    } else {
+      awgPrograms[channel] = program;
+    }
+  }
+
+  /** Start an AWG program on channel 1, running it through the board and any armed capture. */
+  private void run(AwgProgram program) {
+
+    double time = 0;
+    if (scopeMode == ScopeMode.TRIGGERED) {
+      double interval = 1 / sampleFrequency;
+      scope1 = new double[bufferSize];
+      scope2 = new double[bufferSize];
+      play(program, 0, bufferSize, interval, scope1, scope2);
+      validSamples = bufferSize;
+      scopeState = DwfState.DONE;
+      scopeMode = ScopeMode.IDLE;
+      time = bufferSize * interval;
+    }
+
+    double duration = program.getDuration();
+    if (Double.isInfinite(duration)) {
+      runningProgram = program;
+      runningProgramTime = time;
+    } else {
+      runningProgram = null;
+      if (duration > time) {
+        double interval = 1 / (program.getFrequency() * UNRECORDED_SAMPLES_PER_PERIOD);
+        int count = (int) Math.ceil((duration - time) / interval);
+        play(program, time, count, interval, null, null);
+      }
+    }
+  }
+
+  private void play(
+      AwgProgram program,
+      double startTime,
+      int count,
+      double interval,
+      double[] scope1,
+      double[] scope2) {
+
+    double[] awg = new double[count];
+    if (program != null) {
+      for (int i = 0; i < count; i++) {
+        awg[i] = program.voltageAt(startTime + i * interval);
+      }
+    }
+    board.drive(awg, count, interval, scope1, scope2);
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    return true;
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelEnableSet(int channel, boolean enable) {
+
+    return true;
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelRangeSet(int channel, double range) {
+
+    return true;
+  }
+
+  @Override
+  public byte FDwfAnalogInStatus(boolean readData) {
+
+    if (scopeMode == ScopeMode.IMMEDIATE && readData) {
+      // a free running capture always holds the most recent buffer's worth of samples
+      double interval = 1 / sampleFrequency;
+      scope1 = new double[bufferSize];
+      scope2 = new double[bufferSize];
+      play(runningProgram, runningProgramTime, bufferSize, interval, scope1, scope2);
+      runningProgramTime += bufferSize * interval;
+      validSamples = bufferSize;
+    }
+    return scopeState;
+  }
+
+  @Override
+  public int FDwfAnalogInStatusSamplesValid() {
+
+    return validSamples;
+  }
+
+  @Override
+  public double[] FDwfAnalogInStatusData(int channel, int samples) {
+
+    double[] data = channel == DWF.OSCILLOSCOPE_CHANNEL_1 ? scope1 : scope2;
+    return Arrays.copyOf(data, Math.min(samples, data.length));
+  }
+
+  @Override
+  public int FDwfAnalogInStatusData(int channel, double[] buffer, int samples) {
+
+    double[] data = channel == DWF.OSCILLOSCOPE_CHANNEL_1 ? scope1 : scope2;
+    int count = Math.min(samples, Math.min(data.length, buffer.length));
+    System.arraycopy(data, 0, buffer, 0, count);
+    return count;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    configureScope(ScopeMode.IMMEDIATE, sampleFrequency, bufferSize);
+    scopeState = DwfState.RUNNING;
+    return true;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    configureScope(ScopeMode.TRIGGERED, sampleFrequency, bufferSize);
+    return true;
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int channel, double sampleFrequency, int bufferSize, boolean isScale2V) {
+
+    configureScope(ScopeMode.TRIGGERED, sampleFrequency, bufferSize);
+    return true;
+  }
+
+  @Override
+  public boolean stopAnalogCaptureBothChannels() {
+
+    scopeMode = ScopeMode.IDLE;
+    scopeState = DwfState.READY;
+    return true;
+  }
+
+  private void configureScope(ScopeMode mode, double sampleFrequency, int bufferSize) {
+
+    this.scopeMode = mode;
+    this.sampleFrequency = sampleFrequency;
+    this.bufferSize = bufferSize;
+    this.validSamples = 0;
+    this.scopeState = DwfState.ARMED;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // AWG Programs /////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  private interface AwgProgram {
+
+    double voltageAt(double time);
+
+    double getFrequency();
+
+    /** @return how long the program runs for, or infinity if it runs until stopped */
+    double getDuration();
+  }
+
+  /** A custom waveform buffer played numPulses times, idling at the offset afterwards. */
+  private static class CustomPulseTrain implements AwgProgram {
+
+    private final double[] waveform;
+    private final double frequency;
+    private final double offset;
+    private final int numPulses;
+
+    CustomPulseTrain(double[] waveform, double frequency, double offset, int numPulses) {
+
+      // the device keeps its own copy of an uploaded buffer
+      this.waveform = waveform.clone();
+      this.frequency = frequency;
+      this.offset = offset;
+      this.numPulses = numPulses;
+    }
+
+    @Override
+    public double voltageAt(double time) {
+
+      double cycles = time * frequency;
+      if (numPulses > 0 && cycles >= numPulses) {
+        return offset;
+      }
+      int index = (int) ((cycles - Math.floor(cycles)) * waveform.length);
+      return waveform[Math.min(index, waveform.length - 1)] * CUSTOM_FULL_SCALE + offset;
+    }
+
+    @Override
+    public double getFrequency() {
+
+      return frequency;
+    }
+
+    @Override
+    public double getDuration() {
+
+      return numPulses > 0 ? numPulses / frequency : Double.POSITIVE_INFINITY;
+    }
+  }
+
+  /** One of the AWG's built in waveforms, running until stopped. */
+  private static class StandardWave implements AwgProgram {
+
+    private final DWF.Waveform waveform;
+    private final double frequency;
+    private final double amplitude;
+    private final double offset;
+    private final double symmetry;
+
+    StandardWave(
+        DWF.Waveform waveform,
+        double frequency,
+        double amplitude,
+        double offset,
+        double dutyCycle) {
+
+      this.waveform = waveform;
+      this.frequency = frequency;
+      this.amplitude = amplitude;
+      this.offset = offset;
+      this.symmetry = dutyCycle / 100;
+    }
+
+    @Override
+    public double voltageAt(double time) {
+
+      double cycles = time * frequency;
+      double phase = cycles - Math.floor(cycles);
+      switch (waveform) {
+        case DC:
+          return offset;
+        case Sine:
+          return offset + amplitude * Math.sin(2 * Math.PI * phase);
+        case Square:
+          return offset + (phase < symmetry ? amplitude : -amplitude);
+        case Triangle:
+          if (phase < symmetry) {
+            return offset - amplitude + 2 * amplitude * phase / symmetry;
+          }
+          return offset + amplitude - 2 * amplitude * (phase - symmetry) / (1 - symmetry);
+        case RampUp:
+          return offset - amplitude + 2 * amplitude * phase;
+        case RampDown:
+          return offset + amplitude - 2 * amplitude * phase;
+        default:
+          return offset;
+      }
+    }
+
+    @Override
+    public double getFrequency() {
+
+      return frequency;
+    }
+
+    @Override
+    public double getDuration() {
+
+      return Double.POSITIVE_INFINITY;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf.sim;
+
+import java.util.Random;
+import org.knowm.memristor.discovery.core.rc_engine.MD_V0_V1_Board;
+import org.knowm.memristor.discovery.core.rc_engine.MD_V2_Board;
+
+/**
+ * Time-domain model of the memristor board. The topology and component values are those of the
+ * {@link MD_V2_Board} and {@link MD_V0_V1_Board} netlists: the AWG drives node 1, the series
+ * resistor and the memristor meet at node 2, and node 2 sees the board parasitic capacitance and a
+ * scope probe. The switches selected by the low 8 DIO bits wire their memristors into the circuit
+ * in parallel; with every switch open node 2 floats on the series resistor alone.
+ *
+ * <p>Node 2 is integrated with backward Euler, which is stable for any step, and each memristor is
+ * stepped with the voltage across it.
+ */
+public class SimulatedBoard {
+
+  public static final int SWITCH_COUNT = 8;
+
+  /** longest internal step; the board RC is a few microseconds */
+  private static final double MAX_STEP = 1E-6;
+
+  /** cap on internal steps per scope sample so slow sweeps stay cheap */
+  private static final int MAX_STEPS_PER_SAMPLE = 64;
+
+  private final int boardVersion;
+  private final double capacitance;
+  private final double scopeConductance;
+  private final MSSMemristor[] memristors = new MSSMemristor[SWITCH_COUNT];
+  private final Random random;
+
+  private double seriesResistance = 10_000;
+  private double noiseVoltage = 0.5E-3;
+  private int digitalIOStates;
+
+  /** voltage on node 2 */
+  private double v2;
+
+  public SimulatedBoard(int boardVersion, long seed) {
+
+    this.boardVersion = boardVersion;
+    if (boardVersion == 2) {
+      this.capacitance = MD_V2_Board.C_B2GND;
+      this.scopeConductance = 1 / MD_V2_Board.R_SCOPE;
+    } else {
+      this.capacitance = MD_V0_V1_Board.C_B2GND;
+      this.scopeConductance = 1 / MD_V0_V1_Board.R_SCOPE;
+    }
+    for (int i = 0; i < SWITCH_COUNT; i++) {
+      memristors[i] = new MSSMemristor();
+    }
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Drive the board with the AWG and record what the scopes see. Scope channel assignment follows
+   * the hardware: on V2 boards channel 1 is node 2 and channel 2 is the AWG; on V0/V1 boards it's
+   * the other way around.
+   *
+   * @param awg - the AWG output voltage for each sample, held until the next sample
+   * @param count - number of samples to run
+   * @param sampleInterval - seconds between samples
+   * @param scope1 - receives scope channel 1, may be null if the scope isn't capturing
+   * @param scope2 - receives scope channel 2, may be null if the scope isn't capturing
+   */
+  public void drive(
+      double[] awg, int count, double sampleInterval, double[] scope1, double[] scope2) {
+
+    int steps = (int) Math.min(MAX_STEPS_PER_SAMPLE, Math.ceil(sampleInterval / MAX_STEP));
+    steps = Math.max(1, steps);
+    double h = sampleInterval / steps;
+    double cOverH = capacitance / h;
+    double gs = 1 / seriesResistance;
+
+    for (int i = 0; i < count; i++) {
+
+      double vSource = awg[i];
+      if (scope1 != null) {
+        double node2 = v2 + noise();
+        double source = vSource + noise();
+        if (boardVersion == 2) {
+          scope1[i] = node2;
+          scope2[i] = source;
+        } else {
+          scope1[i] = source;
+          scope2[i] = node2;
+        }
+      }
+
+      for (int s = 0; s < steps; s++) {
+
+        double gm = getMemristorConductance();
+        double vMemristor;
+        if (boardVersion == 2) {
+          // AWG -> Rs -> node 2 -> Rm -> ground
+          v2 = (cOverH * v2 + gs * vSource) / (cOverH + gs + gm + scopeConductance);
+          vMemristor = -v2;
+        } else {
+          // AWG -> Rm -> node 2 -> Rs -> ground
+          v2 = (cOverH * v2 + gm * vSource) / (cOverH + gm + gs + scopeConductance);
+          vMemristor = vSource - v2;
+        }
+        stepMemristors(vMemristor, h);
+      }
+    }
+  }
+
+  private double getMemristorConductance() {
+
+    double g = 0;
+    for (int i = 0; i < SWITCH_COUNT; i++) {
+      if (isSwitchClosed(i)) {
+        g += memristors[i].getConductance();
+      }
+    }
+    return g;
+  }
+
+  private void stepMemristors(double voltage, double dt) {
+
+    for (int i = 0; i < SWITCH_COUNT; i++) {
+      if (isSwitchClosed(i)) {
+        memristors[i].step(voltage, dt);
+      }
+    }
+  }
+
+  private boolean isSwitchClosed(int index) {
+
+    return (digitalIOStates & (1 << index)) != 0;
+  }
+
+  private double noise() {
+
+    return noiseVoltage == 0 ? 0 : random.nextGaussian() * noiseVoltage;
+  }
+
+  public MSSMemristor getMemristor(int index) {
+
+    return memristors[index];
+  }
+
+  public void setDigitalIOStates(int digitalIOStates) {
+
+    this.digitalIOStates = digitalIOStates;
+  }
+
+  public double getSeriesResistance() {
+
+    return seriesResistance;
+  }
+
+  public void setSeriesResistance(double seriesResistance) {
+
+    this.seriesResistance = seriesResistance;
+  }
+
+  /** @param noiseVoltage - standard deviation of the Gaussian noise added to each scope sample */
+  public void setNoiseVoltage(double noiseVoltage) {
+
+    this.noiseVoltage = noiseVoltage;
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.experiment_common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.knowm.memristor.discovery.DWFProxy;
+
+/**
+ * Runs the same piece of an experiment against several boards at once. Each board already has its
+ * own hardware thread, so the only thing serializing them is the experiment worker blocking on one
+ * board at a time; here every board gets its own worker thread instead, and a round takes as long
+ * as the slowest board rather than the sum of all of them.
+ */
+public class ParallelBoards implements AutoCloseable {
+
+  /** One board's share of the work. */
+  @FunctionalInterface
+  public interface BoardTask<T> {
+
+    T run(int boardIndex, DWFProxy dwfProxy) throws Exception;
+  }
+
+  /** What a board contributes to the round when its task throws. */
+  @FunctionalInterface
+  public interface BoardFailure<T> {
+
+    T onFailure(int boardIndex, Exception cause);
+  }
+
+  private final List<DWFProxy> dwfProxies;
+  private final ExecutorService executorService;
+
+  /**
+   * Constructor
+   *
+   * @param dwfProxies - one per board, see {@link DWFProxy#createAll(int)}
+   */
+  public ParallelBoards(List<DWFProxy> dwfProxies) {
+
+    this.dwfProxies = dwfProxies;
+    this.executorService =
+        dwfProxies.size() > 1
+            ? Executors.newFixedThreadPool(
+                dwfProxies.size(),
+                runnable -> {
+                  Thread thread = new Thread(runnable, "Board Worker");
+                  thread.setDaemon(true);
+                  return thread;
+                })
+            : null;
+  }
+
+  public int size() {
+
+    return dwfProxies.size();
+  }
+
+  /**
+   * Run a task against every board and wait for all of them. With a single board the task runs on
+   * the calling thread.
+   *
+   * @param task
+   * @return the results, in board order
+   * @throws ExecutionException if a board's task threw; the others are still waited for
+   * @throws InterruptedException
+   */
+  public <T> List<T> runOnAll(BoardTask<T> task) throws ExecutionException, InterruptedException {
+
+    List<T> results = new ArrayList<>(dwfProxies.size());
+    if (executorService == null) {
+      try {
+        results.add(task.run(0, dwfProxies.get(0)));
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new ExecutionException(e);
+      }
+      return results;
+    }
+
+    List<Future<T>> futures = new ArrayList<>(dwfProxies.size());
+    for (int i = 0; i < dwfProxies.size(); i++) {
+      int boardIndex = i;
+      futures.add(executorService.submit(() -> task.run(boardIndex, dwfProxies.get(boardIndex))));
+    }
+    ExecutionException failure = null;
+    for (Future<T> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        results.add(null);
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  /**
+   * Run a task against every board and wait for all of them. A board whose task throws contributes
+   * the failure's result instead, so one bad board doesn't stop the others.
+   *
+   * @param task
+   * @param failure
+   * @return the results, in board order
+   * @throws InterruptedException
+   */
+  public <T> List<T> runOnAll(BoardTask<T> task, BoardFailure<T> failure)
+      throws InterruptedException {
+
+    try {
+      return runOnAll(
+          (boardIndex, dwfProxy) -> {
+            try {
+              return task.run(boardIndex, dwfProxy);
+            } catch (InterruptedException e) {
+              throw e;
+            } catch (Exception e) {
+              return failure.onFailure(boardIndex, e);
+            }
+          });
+    } catch (ExecutionException e) {
+      // only an interrupt or the failure handler itself gets this far
+      if (e.getCause() instanceof InterruptedException) {
+        throw (InterruptedException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Interrupt whatever is still running and let the worker threads go. */
+  @Override
+  public void close() {
+
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.experiment_common;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+
+/**
+ * A program of write, erase and read pulses. Each segment is the same custom waveform a lone pulse
+ * would be, a pulse followed by an equally long rest at ground.
+ *
+ * <p>By default the segments play one at a time with a rest of {@value #DEFAULT_REST_MILLIS} ms
+ * between them, as the sequences always have; see {@link #getSegments()}. With the rest set to 0
+ * the segments are laid end to end in a single AWG buffer, so the whole sequence plays and gets
+ * captured in one acquisition, each read following the pulse before it right away. That's only
+ * done if every read still gets {@value #MIN_AWG_SAMPLES_PER_READ} AWG samples of the buffer; see
+ * {@link #isComposed()}. After the capture, {@link #splitReads} averages the pulse half of every
+ * read segment, just like a lone read.
+ */
+public class PulseSequence {
+
+  /** System property with the rest between segments in ms; 0 plays a sequence as one buffer. */
+  public static final String REST_PROPERTY = "memristor.discovery.sequenceRestMillis";
+
+  /** the rest between erase, write and read the boards were always measured with */
+  public static final long DEFAULT_REST_MILLIS = 25;
+
+  /** scope samples across one read segment, same as a lone read */
+  private static final int SAMPLES_PER_READ = 300;
+
+  /** AWG samples a read needs in a composed buffer, or the sequence plays segment by segment */
+  private static final int MIN_AWG_SAMPLES_PER_READ = 256;
+
+  private final List<Segment> segments = new ArrayList<>();
+
+  private long restMillis = Long.getLong(REST_PROPERTY, DEFAULT_REST_MILLIS);
+
+  private double[] waveform;
+  private int[] segmentStarts;
+
+  /**
+   * @param waveform
+   * @param amplitude
+   * @param pulseWidthInMicroSeconds
+   * @return this
+   */
+  public PulseSequence addPulse(Waveform waveform, float amplitude, int pulseWidthInMicroSeconds) {
+
+    return add(new Segment(waveform, amplitude, pulseWidthInMicroSeconds, false));
+  }
+
+  /**
+   * Adds a read, whose average voltages come back from {@link #splitReads}.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param pulseWidthInMicroSeconds
+   * @return this
+   */
+  public PulseSequence addRead(Waveform waveform, float amplitude, int pulseWidthInMicroSeconds) {
+
+    return add(new Segment(waveform, amplitude, pulseWidthInMicroSeconds, true));
+  }
+
+  private PulseSequence add(Segment segment) {
+
+    segments.add(segment);
+    waveform = null;
+    return this;
+  }
+
+  /**
+   * @param restMillis - between segments, 0 to play the sequence as one buffer
+   * @return this
+   */
+  public PulseSequence setRestMillis(long restMillis) {
+
+    this.restMillis = restMillis;
+    return this;
+  }
+
+  public long getRestMillis() {
+
+    return restMillis;
+  }
+
+  /**
+   * @return true if the sequence plays as one AWG buffer: no rest between segments, and every read
+   *     gets at least {@value #MIN_AWG_SAMPLES_PER_READ} samples of it
+   */
+  public boolean isComposed() {
+
+    if (segments.size() == 1) {
+      return true;
+    }
+    if (restMillis > 0) {
+      return false;
+    }
+    double period = getPeriod();
+    for (Segment segment : segments) {
+      if (segment.isRead
+          && WaveformUtils.CUSTOM_WAVEFORM_LENGTH * segment.getPeriod() / period
+              < MIN_AWG_SAMPLES_PER_READ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return a single segment sequence for each segment, in order, to play one at a time with the
+   *     rest between them when the sequence isn't composed
+   */
+  public List<PulseSequence> getSegments() {
+
+    List<PulseSequence> singles = new ArrayList<>(segments.size());
+    for (Segment segment : segments) {
+      singles.add(new PulseSequence().add(segment));
+    }
+    return singles;
+  }
+
+  public int getReadCount() {
+
+    int count = 0;
+    for (Segment segment : segments) {
+      if (segment.isRead) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** @return the time the whole sequence takes in seconds, each pulse plus its rest */
+  public double getPeriod() {
+
+    double period = 0;
+    for (Segment segment : segments) {
+      period += segment.getPeriod();
+    }
+    return period;
+  }
+
+  /** @return the AWG playback frequency, one play of the buffer per sequence */
+  public double getFrequency() {
+
+    return 1 / getPeriod();
+  }
+
+  /**
+   * @return how many scope samples to take across the sequence: enough that every read gets as
+   *     many as a lone read would, up to the scope buffer
+   */
+  public int getScopeBufferSize() {
+
+    double shortestRead = Double.MAX_VALUE;
+    for (Segment segment : segments) {
+      if (segment.isRead) {
+        shortestRead = Math.min(shortestRead, segment.getPeriod());
+      }
+    }
+    if (shortestRead == Double.MAX_VALUE) {
+      return SAMPLES_PER_READ;
+    }
+    long samples = (long) Math.ceil(SAMPLES_PER_READ * getPeriod() / shortestRead);
+    return (int) Math.min(samples, DWFProxy.SCOPE_BUFFER_SIZE);
+  }
+
+  public double getScopeSampleFrequency() {
+
+    return getScopeBufferSize() * getFrequency();
+  }
+
+  /**
+   * The whole sequence as one normalized AWG buffer. It's built once and shared, so the AWG upload
+   * cache sees the same buffer for every device the sequence runs on.
+   *
+   * @return {@link WaveformUtils#CUSTOM_WAVEFORM_LENGTH} samples
+   */
+  public double[] getWaveform() {
+
+    if (waveform == null) {
+      compose();
+    }
+    return waveform;
+  }
+
+  private void compose() {
+
+    int length = WaveformUtils.CUSTOM_WAVEFORM_LENGTH;
+    double period = getPeriod();
+    double[] composed = new double[length];
+    double[] single = new double[length];
+    int[] starts = new int[segments.size() + 1];
+
+    double elapsed = 0;
+    for (int s = 0; s < segments.size(); s++) {
+      Segment segment = segments.get(s);
+      starts[s] = (int) Math.round(length * elapsed / period);
+      elapsed += segment.getPeriod();
+      starts[s + 1] = (int) Math.round(length * elapsed / period);
+
+      WaveformUtils.generateCustomWaveform(
+          segment.waveform, segment.amplitude, 1 / segment.getPeriod(), single);
+      int width = starts[s + 1] - starts[s];
+      for (int j = 0; j < width; j++) {
+        composed[starts[s] + j] = single[(int) ((long) j * length / width)];
+      }
+    }
+    waveform = composed;
+    segmentStarts = starts;
+  }
+
+  /**
+   * Average both scope channels over the pulse half of every read segment.
+   *
+   * @param v1 - scope 1 across the whole sequence
+   * @param v2 - scope 2 across the whole sequence
+   * @return {aveScope1, aveScope2} for each read, in the order they were added
+   */
+  public float[][] splitReads(double[] v1, double[] v2) {
+
+    getWaveform();
+    int samples = Math.min(v1.length, v2.length);
+    float[][] reads = new float[getReadCount()][];
+    int read = 0;
+    for (int s = 0; s < segments.size(); s++) {
+      if (!segments.get(s).isRead) {
+        continue;
+      }
+      int start = toScopeIndex(segmentStarts[s], samples);
+      int end = toScopeIndex(segmentStarts[s + 1], samples);
+      int pulseEnd = start + (end - start) / 2;
+
+      float aveScope1 = 0;
+      float aveScope2 = 0;
+      for (int i = start; i < pulseEnd; i++) {
+        aveScope1 += v1[i];
+        aveScope2 += v2[i];
+      }
+      int count = Math.max(1, pulseEnd - start);
+      reads[read++] = new float[] {aveScope1 / count, aveScope2 / count};
+    }
+    return reads;
+  }
+
+  private static int toScopeIndex(int awgIndex, int samples) {
+
+    return (int) ((long) awgIndex * samples / WaveformUtils.CUSTOM_WAVEFORM_LENGTH);
+  }
+
+  private static final class Segment {
+
+    private final Waveform waveform;
+    private final float amplitude;
+    private final int pulseWidthInMicroSeconds;
+    private final boolean isRead;
+
+    Segment(Waveform waveform, float amplitude, int pulseWidthInMicroSeconds, boolean isRead) {
+
+      this.waveform = waveform;
+      this.amplitude = amplitude;
+      this.pulseWidthInMicroSeconds = pulseWidthInMicroSeconds;
+      this.isRead = isRead;
+    }
+
+    /** a pulse and an equally long rest, as in a lone pulse */
+    double getPeriod() {
+
+      return pulseWidthInMicroSeconds * 2 * 1E-6;
+    }
+  }
+}
@@ -24,8 +24,13 @@
 package org.knowm.memristor.discovery.core.experiment_common;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.core.dwf.HardwareExecutor;
+import org.knowm.memristor.discovery.core.dwf.SwitchSchedule;
+import org.knowm.memristor.discovery.core.dwf.WaitResult;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
 import org.knowm.memristor.discovery.core.gpio.MuxController.Destination;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
@@ -39,9 +44,15 @@ public class PulseUtility {
   private DWFProxy dwfProxy;
   private MuxController muxController;
   private float voltageReadNoiseFloor;
-  private static int sleep = 5;
+
+  /** the per-switch settle the boards were tuned with, kept until a shorter one is measured */
+  private static final long SWITCH_SETTLE_NANOS = 5_000_000;
+
   private int boardVersion = 2;
 
+  /** the read pulse, rebuilt in place for every read; the AWG upload copies it */
+  private final double[] pulseBuffer = new double[WaveformUtils.CUSTOM_WAVEFORM_LENGTH];
+
   public PulseUtility(
       int boardVersion,
       Model controlModel,
@@ -69,43 +80,108 @@ public class PulseUtility {
       int WRITE_PULSE_WIDTH_IN_MICRO_SECONDS,
       int ERASE_PULSE_WIDTH_IN_MICRO_SECONDS) {
 
-    try {
-
-      //  initialize in erased state
-      measureAllSwitchResistances(writeEraseWaveform, V_ERASE, ERASE_PULSE_WIDTH_IN_MICRO_SECONDS);
-      Thread.sleep(25);
-
-      float[][] reads = new float[3][9];
+    // erase, read, write, read, erase, read, with the sequence's rest between them
+    PulseSequence sequence =
+        new PulseSequence()
+            .addPulse(writeEraseWaveform, V_ERASE, ERASE_PULSE_WIDTH_IN_MICRO_SECONDS)
+            .addRead(Waveform.Square, V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS)
+            .addPulse(writeEraseWaveform, V_WRITE, WRITE_PULSE_WIDTH_IN_MICRO_SECONDS)
+            .addRead(Waveform.Square, V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS)
+            .addPulse(writeEraseWaveform, V_ERASE, ERASE_PULSE_WIDTH_IN_MICRO_SECONDS)
+            .addRead(Waveform.Square, V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS);
+
+    float[][] deviceReads = measureAllSwitchSequences(sequence);
+    if (deviceReads == null) {
+      return null;
+    }
 
-      if (boardVersion == 2) {
-        reads = new float[3][17];
+    float[][] reads = new float[sequence.getReadCount()][deviceReads.length];
+    for (int device = 0; device < deviceReads.length; device++) {
+      for (int read = 0; read < reads.length; read++) {
+        reads[read][device] = deviceReads[device][read];
       }
+    }
+    return reads;
+  }
 
-      reads[0] =
-          measureAllSwitchResistances(Waveform.Square, V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS);
-
-      Thread.sleep(25);
-      measureAllSwitchResistances(writeEraseWaveform, V_WRITE, WRITE_PULSE_WIDTH_IN_MICRO_SECONDS);
-      Thread.sleep(25);
-      reads[1] =
-          measureAllSwitchResistances(Waveform.Square, V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS);
-      Thread.sleep(25);
-      measureAllSwitchResistances(writeEraseWaveform, V_ERASE, ERASE_PULSE_WIDTH_IN_MICRO_SECONDS);
-      Thread.sleep(25);
-      reads[2] =
-          measureAllSwitchResistances(Waveform.Square, V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS);
-      return reads;
-    } catch (InterruptedException e) {
+  /**
+   * The meminline reads recorded for a board whose test failed, shaped like {@link
+   * #testMeminline}'s but all NaN.
+   *
+   * @param deviceCount - the switch positions, including all switches off
+   * @return
+   */
+  public static float[][] failedMeminlineReads(int deviceCount) {
 
-      model.swingPropertyChangeSupport.firePropertyChange(
-          Model.EVENT_NEW_CONSOLE_LOG, null, e.getMessage());
-      return null;
+    float[][] reads = new float[3][deviceCount];
+    for (float[] read : reads) {
+      Arrays.fill(read, Float.NaN);
     }
+    return reads;
   }
 
   public float[] measureAllSwitchResistances(
       Waveform waveform, float readVoltage, int pulseWidthInMicroSeconds) {
 
+    float[][] deviceReads =
+        measureAllSwitchSequences(
+            new PulseSequence().addRead(waveform, readVoltage, pulseWidthInMicroSeconds));
+
+    float[] r_array = new float[deviceReads.length];
+    for (int device = 0; device < deviceReads.length; device++) {
+      r_array[device] = deviceReads[device][0];
+    }
+
+    // System.out.println("resistance array: " + Arrays.toString(r_array));
+
+    return r_array;
+  }
+
+  /**
+   * Plays the sequence once on every device, all switches off first. A composed sequence runs as
+   * one switch schedule on the hardware thread, one capture per device. Otherwise every segment is
+   * swept across all devices in turn, with the sequence's rest after each sweep.
+   *
+   * @param sequence
+   * @return the resistance in kOhms at each read of the sequence for each device, or null if
+   *     interrupted
+   */
+  public float[][] measureAllSwitchSequences(PulseSequence sequence) {
+
+    if (sequence.isComposed()) {
+      return sweepAllSwitches(sequence);
+    }
+
+    float[][] r_array = null;
+    int read = 0;
+    List<PulseSequence> segments = sequence.getSegments();
+    for (int s = 0; s < segments.size(); s++) {
+      if (s > 0) {
+        try {
+          Thread.sleep(sequence.getRestMillis());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          model.swingPropertyChangeSupport.firePropertyChange(
+              Model.EVENT_NEW_CONSOLE_LOG, null, e.getMessage());
+          return null;
+        }
+      }
+      PulseSequence segment = segments.get(s);
+      float[][] segmentReads = sweepAllSwitches(segment);
+      if (r_array == null) {
+        r_array = new float[segmentReads.length][sequence.getReadCount()];
+      }
+      for (int device = 0; device < segmentReads.length; device++) {
+        System.arraycopy(segmentReads[device], 0, r_array[device], read, segment.getReadCount());
+      }
+      read += segment.getReadCount();
+    }
+    return r_array;
+  }
+
+  /** One switch schedule playing a composed sequence on every device. */
+  private float[][] sweepAllSwitches(PulseSequence sequence) {
+
     if (boardVersion == 1) {
       muxController.setW1(Destination.A);
       muxController.setW2(Destination.OUT);
@@ -114,47 +190,53 @@ public class PulseUtility {
       dwfProxy.setUpper8IOStates(muxController.getGPIOConfig());
     }
 
-    float[] r_array = new float[9];
-
-    if (boardVersion == 2) {
-      r_array = new float[17];
+    int switchCount = boardVersion == 2 ? 16 : 8;
+    SwitchSchedule schedule =
+        SwitchSchedule.eachSwitch(dwfProxy.getDigitalIOStates(), switchCount, SWITCH_SETTLE_NANOS);
+    double[][][] captures =
+        dwfProxy.captureSwitchSchedule(
+            schedule,
+            DWF.WAVEFORM_CHANNEL_1,
+            sequence.getScopeSampleFrequency(),
+            sequence.getScopeBufferSize(),
+            sequence.getFrequency(),
+            sequence.getWaveform());
+
+    float[][] r_array = new float[captures.length][];
+    for (int device = 0; device < captures.length; device++) {
+      float[][] vMeasures =
+          captures[device] == null
+              ? null
+              : sequence.splitReads(captures[device][0], captures[device][1]);
+      r_array[device] = toSwitchResistanceskOhm(vMeasures, sequence.getReadCount());
     }
+    return r_array;
+  }
 
-    r_array[0] =
-        getSwitchResistancekOhm(
-            waveform,
-            readVoltage,
-            pulseWidthInMicroSeconds,
-            DWF.WAVEFORM_CHANNEL_1); // all switches off
-
-    for (int i = 0; i < (boardVersion == 2 ? 16 : 8); i++) {
-
-      dwfProxy.update2DigitalIOStatesAtOnce(i, true);
-
-      try {
-        Thread.sleep(sleep);
-      } catch (InterruptedException e) {
+  public float[] getSwitchSequenceResistanceskOhm(PulseSequence sequence, int dWFWaveformChannel) {
 
-      }
+    return toSwitchResistanceskOhm(
+        getSequenceAverageVoltages(sequence, dWFWaveformChannel), sequence.getReadCount());
+  }
 
-      r_array[i + 1] =
-          getSwitchResistancekOhm(
-              waveform, readVoltage, pulseWidthInMicroSeconds, DWF.WAVEFORM_CHANNEL_1);
+  private float[] toSwitchResistanceskOhm(float[][] vMeasures, int readCount) {
 
-      dwfProxy.update2DigitalIOStatesAtOnce(i, false);
+    float[] resistances = new float[readCount];
+    for (int i = 0; i < readCount; i++) {
+      resistances[i] = toSwitchResistancekOhm(vMeasures == null ? null : vMeasures[i]);
     }
-
-    // System.out.println("resistance array: " + Arrays.toString(r_array));
-
-    return r_array;
+    return resistances;
   }
 
   public float getSwitchResistancekOhm(
       Waveform waveform, float readVoltage, int pulseWidthInMicroSeconds, int dWFWaveformChannel) {
 
-    float[] vMeasure =
+    return toSwitchResistancekOhm(
         getScopesAverageVoltage(
-            waveform, readVoltage, pulseWidthInMicroSeconds, dWFWaveformChannel);
+            waveform, readVoltage, pulseWidthInMicroSeconds, dWFWaveformChannel));
+  }
+
+  private float toSwitchResistancekOhm(float[] vMeasure) {
 
     //    System.out.println("readVoltage=" + readVoltage);
     //    System.out.println("vMeasure=" + Arrays.toString(vMeasure));
@@ -228,20 +310,22 @@ public class PulseUtility {
 
     int samples = sampleFrequency * samplesPerPulse;
 
-    dwfProxy
-        .getDwf()
-        .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+    // the scope arms on the hardware thread while the pulse is built here
+    Future<WaitResult> armed =
+        dwfProxy.submitArmScopeOnWaveformGenerator(
             dWFWaveformChannel, samples, samplesPerPulse, true);
-    dwfProxy.waitUntilArmed();
-    double[] pulse = WaveformUtils.generateCustomWaveform(waveform, readVoltage, sampleFrequency);
-    dwfProxy.getDwf().startCustomPulseTrain(dWFWaveformChannel, sampleFrequency, 0, 1, pulse);
-    boolean success = dwfProxy.capturePulseData(samples, 1);
+    double[] pulse =
+        WaveformUtils.generateCustomWaveform(waveform, readVoltage, sampleFrequency, pulseBuffer);
+    if (!HardwareExecutor.await(armed).isDone()) {
+      dwfProxy.stopAnalogCaptureBothChannels();
+      return null;
+    }
+    dwfProxy.startCustomPulseTrain(dWFWaveformChannel, sampleFrequency, 0, 1, pulse);
+    boolean success = dwfProxy.capturePulseData(sampleFrequency, 1);
     if (success) {
-      int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+      double[][] scopeData = dwfProxy.fetchSamples();
+      double[] v1 = scopeData[0];
+      double[] v2 = scopeData[1];
 
       /*
        * Note from Alex: The output is a pulse with the last half of the measurement data at ground. Taking the first 50% insures we get the pulse
@@ -265,4 +349,33 @@ public class PulseUtility {
       return null;
     }
   }
+
+  /**
+   * Plays the sequence once and captures it in a single acquisition.
+   *
+   * @param sequence
+   * @param dWFWaveformChannel
+   * @return {aveScope1, aveScope2} for each read of the sequence, or null if the capture failed
+   */
+  public float[][] getSequenceAverageVoltages(PulseSequence sequence, int dWFWaveformChannel) {
+
+    double frequency = sequence.getFrequency();
+    Future<WaitResult> armed =
+        dwfProxy.submitArmScopeOnWaveformGenerator(
+            dWFWaveformChannel,
+            sequence.getScopeSampleFrequency(),
+            sequence.getScopeBufferSize(),
+            true);
+    double[] waveform = sequence.getWaveform();
+    if (!HardwareExecutor.await(armed).isDone()) {
+      dwfProxy.stopAnalogCaptureBothChannels();
+      return null;
+    }
+    dwfProxy.startCustomPulseTrain(dWFWaveformChannel, frequency, 0, 1, waveform);
+    if (!dwfProxy.capturePulseData(frequency, 1)) {
+      return null;
+    }
+    double[][] scopeData = dwfProxy.fetchSamples();
+    return sequence.splitReads(scopeData[0], scopeData[1]);
+  }
 }
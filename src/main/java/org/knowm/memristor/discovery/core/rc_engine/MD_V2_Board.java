@@ -30,6 +30,12 @@ import org.knowm.jspice.netlist.NetlistResistor;
 
 public class MD_V2_Board extends Netlist {
 
+  /** board parasitic capacitance from the memristor/series resistor node to ground */
+  public static final double C_B2GND = 180E-12;
+
+  /** input impedance of each 1X scope probe */
+  public static final double R_SCOPE = 1_000_000;
+
   public MD_V2_Board(double initV2, double Rm, double Rs) {
 
     //    addNetListComponent(new NetlistDCVoltage("V1", 0.0, "1", "0"));
@@ -41,9 +47,9 @@ public class MD_V2_Board extends Netlist {
     addNetListComponent(new NetlistDCVoltage("V1", 0, "1", "0"));
     addNetListComponent(new NetlistResistor("Rm", Rm, "0", "2"));
     addNetListComponent(new NetlistResistor("Rs", Rs, "2", "1"));
-    addNetListComponent(new NetlistResistor("R_1XScope1", 1_000_000, "2", "0")); // scope
-    addNetListComponent(new NetlistResistor("R_1XScope2", 1_000_000, "1", "0")); // scope
-    addNetListComponent(new NetlistCapacitor("C_B2Gnd", 180E-12, initV2, "2", "0"));
+    addNetListComponent(new NetlistResistor("R_1XScope1", R_SCOPE, "2", "0")); // scope
+    addNetListComponent(new NetlistResistor("R_1XScope2", R_SCOPE, "1", "0")); // scope
+    addNetListComponent(new NetlistCapacitor("C_B2Gnd", C_B2GND, initV2, "2", "0"));
 
     setInitialConditions(true);
   }
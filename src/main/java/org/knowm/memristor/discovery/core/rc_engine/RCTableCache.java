@@ -0,0 +1,326 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the {@link RC_ResistanceComputer} lookup tables so the JSpice sweep behind each one only
+ * ever runs once per set of read conditions. Tables are keyed by board version and the read
+ * conditions, quantized so that a restart or a slightly different measured amplitude lands on the
+ * same table. The most recently used are held in memory; every table is also written to its own
+ * file in the cache directory and read back in when it's needed again.
+ *
+ * <p>The directory defaults to {@code ~/.memristor-discovery/rc-tables} and can be set with the
+ * {@value #CACHE_DIR_PROPERTY} system property.
+ */
+public class RCTableCache {
+
+  public static final String CACHE_DIR_PROPERTY = "memristor.discovery.rcTableCache";
+
+  /** 'RCTB', then the format version, which also goes up whenever the simulation changes */
+  private static final int MAGIC = 0x52435442;
+
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+  private static final int MAX_TABLES_IN_MEMORY = 16;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RCTableCache.class);
+
+  private static final RCTableCache INSTANCE = new RCTableCache(getDefaultDirectory());
+
+  /** null to keep tables in memory only */
+  private final Path directory;
+
+  private final Map<Key, double[][]> tables =
+      new LinkedHashMap<Key, double[][]>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, double[][]> eldest) {
+
+          return size() > MAX_TABLES_IN_MEMORY;
+        }
+      };
+
+  /**
+   * Constructor
+   *
+   * @param directory - where the table files go, or null to keep tables in memory only
+   */
+  public RCTableCache(Path directory) {
+
+    this.directory = directory;
+  }
+
+  public static RCTableCache getInstance() {
+
+    return INSTANCE;
+  }
+
+  private static Path getDefaultDirectory() {
+
+    String directory = System.getProperty(CACHE_DIR_PROPERTY);
+    if (directory != null) {
+      return directory.isEmpty() ? null : Paths.get(directory);
+    }
+    return Paths.get(System.getProperty("user.home"), ".memristor-discovery", "rc-tables");
+  }
+
+  /**
+   * The table for the key, from memory, then from disk, and only then by running the simulation.
+   * The arrays are shared, so they must not be modified.
+   *
+   * @param key
+   * @return {voltage, resistance}
+   */
+  public double[][] get(Key key) {
+
+    synchronized (tables) {
+      double[][] table = tables.get(key);
+      if (table != null) {
+        return table;
+      }
+    }
+
+    double[][] table = read(key);
+    if (table == null) {
+      table = RC_ResistanceComputer.simulateTrace(key);
+      write(key, table);
+    }
+
+    synchronized (tables) {
+      tables.put(key, table);
+    }
+    return table;
+  }
+
+  /** @return the table from its file, or null if it isn't there or can't be read */
+  private double[][] read(Key key) {
+
+    if (directory == null) {
+      return null;
+    }
+    Path path = directory.resolve(key.getFileName());
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+
+    // read onto the heap, not mapped: a live mapping keeps the file locked on Windows
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+      if (buffer.remaining() < HEADER_BYTES) {
+        LOGGER.warn("Ignoring truncated RC table " + path);
+        return null;
+      }
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        LOGGER.warn("Ignoring RC table " + path + " written by another version");
+        return null;
+      }
+      int count = buffer.getInt();
+      if (count <= 0 || buffer.remaining() != 2L * count * Double.BYTES) {
+        LOGGER.warn("Ignoring truncated RC table " + path);
+        return null;
+      }
+      DoubleBuffer doubles = buffer.asDoubleBuffer();
+      double[] voltage = new double[count];
+      double[] resistance = new double[count];
+      doubles.get(voltage).get(resistance);
+      return new double[][] {voltage, resistance};
+    } catch (IOException e) {
+      LOGGER.warn("Could not read RC table " + path, e);
+      return null;
+    }
+  }
+
+  /** Write the table next to its final name and move it into place, so readers never see half. */
+  private void write(Key key, double[][] table) {
+
+    if (directory == null) {
+      return;
+    }
+    Path path = directory.resolve(key.getFileName());
+    int count = table[0].length;
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * count * Double.BYTES);
+    buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count);
+    buffer.asDoubleBuffer().put(table[0]).put(table[1]);
+    buffer.rewind();
+
+    Path temp = null;
+    try {
+      Files.createDirectories(directory);
+      temp = Files.createTempFile(directory, key.getFileName(), ".tmp");
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      try {
+        Files.move(
+            temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not write RC table " + path, e);
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * The read conditions a table is simulated for. Voltages are quantized to 1 mV, the pulse width
+   * to 1 ns and the series resistance to 1 Ohm, and the table is simulated at the quantized values,
+   * so it is exactly the table for its key.
+   */
+  public static final class Key {
+
+    private final int boardVersion;
+    private final long readPulseAmplitudeMilliVolts;
+    private final long readPulseWidthNanos;
+    private final long seriesResistance;
+    private final long driverOffsetMilliVolts;
+    private final long readInitVoltageMilliVolts;
+
+    /**
+     * Constructor
+     *
+     * @param boardVersion
+     * @param readPulseAmplitude - V
+     * @param readPulseWidth - s
+     * @param seriesResistance - Ohm
+     * @param driverOffset - V
+     * @param readInitVoltage - V
+     */
+    public Key(
+        int boardVersion,
+        double readPulseAmplitude,
+        double readPulseWidth,
+        double seriesResistance,
+        double driverOffset,
+        double readInitVoltage) {
+
+      this.boardVersion = boardVersion;
+      this.readPulseAmplitudeMilliVolts = Math.round(readPulseAmplitude * 1E3);
+      this.readPulseWidthNanos = Math.round(readPulseWidth * 1E9);
+      this.seriesResistance = Math.round(seriesResistance);
+      this.driverOffsetMilliVolts = Math.round(driverOffset * 1E3);
+      this.readInitVoltageMilliVolts = Math.round(readInitVoltage * 1E3);
+    }
+
+    public int getBoardVersion() {
+
+      return boardVersion;
+    }
+
+    public double getReadPulseAmplitude() {
+
+      return readPulseAmplitudeMilliVolts / 1E3;
+    }
+
+    public double getReadPulseWidth() {
+
+      return readPulseWidthNanos / 1E9;
+    }
+
+    public double getSeriesResistance() {
+
+      return seriesResistance;
+    }
+
+    public double getDriverOffset() {
+
+      return driverOffsetMilliVolts / 1E3;
+    }
+
+    public double getReadInitVoltage() {
+
+      return readInitVoltageMilliVolts / 1E3;
+    }
+
+    String getFileName() {
+
+      return String.format(
+          Locale.ROOT,
+          "rc_v%d_a%dmV_w%dns_s%dOhm_o%dmV_i%dmV.table",
+          boardVersion,
+          readPulseAmplitudeMilliVolts,
+          readPulseWidthNanos,
+          seriesResistance,
+          driverOffsetMilliVolts,
+          readInitVoltageMilliVolts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return boardVersion == other.boardVersion
+          && readPulseAmplitudeMilliVolts == other.readPulseAmplitudeMilliVolts
+          && readPulseWidthNanos == other.readPulseWidthNanos
+          && seriesResistance == other.seriesResistance
+          && driverOffsetMilliVolts == other.driverOffsetMilliVolts
+          && readInitVoltageMilliVolts == other.readInitVoltageMilliVolts;
+    }
+
+    @Override
+    public int hashCode() {
+
+      long hash = boardVersion;
+      hash = 31 * hash + readPulseAmplitudeMilliVolts;
+      hash = 31 * hash + readPulseWidthNanos;
+      hash = 31 * hash + seriesResistance;
+      hash = 31 * hash + driverOffsetMilliVolts;
+      hash = 31 * hash + readInitVoltageMilliVolts;
+      return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+
+      return getFileName();
+    }
+  }
+}
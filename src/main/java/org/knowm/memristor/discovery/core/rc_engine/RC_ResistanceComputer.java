@@ -24,6 +24,7 @@
 package org.knowm.memristor.discovery.core.rc_engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.knowm.jspice.JSpice;
 import org.knowm.jspice.netlist.Netlist;
@@ -31,6 +32,8 @@ import org.knowm.jspice.simulate.SimulationPlotData;
 import org.knowm.jspice.simulate.SimulationResult;
 import org.knowm.jspice.simulate.transientanalysis.TransientConfig;
 import org.knowm.jspice.simulate.transientanalysis.driver.Pulse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * used to measure memristor resistance at low currents, when pulse capture results in capacitive
@@ -41,14 +44,23 @@ import org.knowm.jspice.simulate.transientanalysis.driver.Pulse;
  */
 public class RC_ResistanceComputer {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(RC_ResistanceComputer.class);
+
   private double seriesResistor;
   private double readPulseAmplitude;
   private double readPulseWidth;
   private double driverOffset;
   private double readInitVoltage;
 
+  /** strictly increasing read voltages of the lookup table */
   private double[] voltage;
-  private double[] resistance;
+
+  /** ln(resistance) at each voltage */
+  private double[] logResistance;
+
+  /** PCHIP slope d ln(resistance) / dv at each voltage */
+  private double[] slope;
+
   int boardVersion;
 
   // public static void main(String[] args) {
@@ -83,64 +95,144 @@ public class RC_ResistanceComputer {
     loadTrace();
   }
 
+  /**
+   * Looks up the resistance for a read voltage by binary search over the table, interpolating with
+   * a monotone cubic (PCHIP) in log-resistance. Voltages outside the table clamp to its ends.
+   *
+   * @param v - the read voltage
+   * @return the resistance in Ohms
+   */
   public double getRFromV(double v) {
 
-    if (boardVersion == 2) {
-      for (int i = 0; i < voltage.length; i++) {
-
-        // System.out.println(
-        // "voltage[i]=" + voltage[i] + ", resistance[i]=" + resistance[i] + ", v=" +
-        // v);
-        // System.out.println("v=" + v + ", voltage[i]=" + voltage[i]);
-        if (voltage[i] <= v) {
-          if (i == 0) { // edge case
-            return resistance[0];
-          }
-          // linear interpolation between i and i-1.
-          double dv = voltage[i - 1] - voltage[i];
-          double r = (voltage[i - 1] - v) / dv;
-          double dR = (resistance[i] - resistance[i - 1]) * r;
-          double interpolation = resistance[i - 1] + dR;
-
-          // System.out.println("v=" + v + ", voltage[i]=" + voltage[i]);
-          // System.out.println("interpolation=" + interpolation);
-
-          return interpolation;
-        }
-      }
+    int last = voltage.length - 1;
+    if (v <= voltage[0]) {
+      return Math.exp(logResistance[0]);
+    }
+    if (v >= voltage[last]) {
+      return Math.exp(logResistance[last]);
+    }
 
-      return resistance[resistance.length - 1];
-    } else {
+    int i = Arrays.binarySearch(voltage, v);
+    if (i >= 0) {
+      return Math.exp(logResistance[i]);
+    }
+    i = -i - 2; // voltage[i] < v < voltage[i + 1]
+
+    double h = voltage[i + 1] - voltage[i];
+    double t = (v - voltage[i]) / h;
+    double u = 1 - t;
+    double logR =
+        (1 + 2 * t) * u * u * logResistance[i]
+            + t * u * u * h * slope[i]
+            + t * t * (3 - 2 * t) * logResistance[i + 1]
+            - t * t * u * h * slope[i + 1];
+    return Math.exp(logR);
+  }
 
-      for (int i = 0; i < voltage.length; i++) {
+  /**
+   * Bulk {@link #getRFromV(double)}.
+   *
+   * @param v - the read voltages
+   * @return the resistance in Ohms for each voltage
+   */
+  public double[] getRFromV(double[] v) {
 
-        //        System.out.println(
-        //            "voltage[i]=" + voltage[i] + ", resistance[i]=" + resistance[i] + ", v=" + v);
-        //        System.out.println("v=" + v + ", voltage[i]=" + voltage[i]);
+    double[] r = new double[v.length];
+    for (int i = 0; i < v.length; i++) {
+      r[i] = getRFromV(v[i]);
+    }
+    return r;
+  }
 
-        if (voltage[i] <= v) {
-          if (i == 0) { // edge case
-            System.out.println("HERE");
-            return resistance[0];
-          }
-          // linear interpolation between i and i-1.
-          double dv = voltage[i - 1] - voltage[i];
-          double r = (voltage[i - 1] - v) / dv;
-          double dR = (resistance[i] - resistance[i - 1]) * r;
-          double interpolation = resistance[i - 1] + dR;
+  /**
+   * Loads the lookup table for this computer's read conditions from the {@link RCTableCache}, which
+   * only simulates it if it has never been simulated before.
+   */
+  public void loadTrace() {
+
+    RCTableCache.Key key =
+        new RCTableCache.Key(
+            boardVersion,
+            readPulseAmplitude,
+            readPulseWidth,
+            seriesResistor,
+            driverOffset,
+            readInitVoltage);
+
+    double[][] table = RCTableCache.getInstance().get(key);
+    buildLookup(table[0], table[1]);
+  }
 
-          //          System.out.println("v=" + v + ", voltage[i]=" + voltage[i]);
-          //          System.out.println("interpolation=" + interpolation);
+  /**
+   * Sorts the table by increasing voltage, dropping points that do not increase it, and computes
+   * the Fritsch-Carlson slopes of ln(resistance) used by {@link #getRFromV(double)}.
+   */
+  private void buildLookup(double[] voltageTable, double[] resistanceTable) {
 
-          return interpolation;
+    int n = voltageTable.length;
+    boolean descending = n > 1 && voltageTable[0] > voltageTable[n - 1];
+
+    double[] x = new double[n];
+    double[] y = new double[n];
+    int count = 0;
+    for (int k = 0; k < n; k++) {
+      int j = descending ? n - 1 - k : k;
+      if (count == 0 || voltageTable[j] > x[count - 1]) {
+        x[count] = voltageTable[j];
+        y[count] = Math.log(resistanceTable[j]);
+        count++;
+      }
+    }
+    x = Arrays.copyOf(x, count);
+    y = Arrays.copyOf(y, count);
+
+    double[] d = new double[count];
+    if (count == 2) {
+      d[0] = d[1] = (y[1] - y[0]) / (x[1] - x[0]);
+    } else if (count > 2) {
+      double[] h = new double[count - 1];
+      double[] delta = new double[count - 1];
+      for (int k = 0; k < count - 1; k++) {
+        h[k] = x[k + 1] - x[k];
+        delta[k] = (y[k + 1] - y[k]) / h[k];
+      }
+      for (int k = 1; k < count - 1; k++) {
+        if (delta[k - 1] * delta[k] > 0) {
+          // weighted harmonic mean keeps each interval monotone
+          double w1 = 2 * h[k] + h[k - 1];
+          double w2 = h[k] + 2 * h[k - 1];
+          d[k] = (w1 + w2) / (w1 / delta[k - 1] + w2 / delta[k]);
         }
       }
+      d[0] = endSlope(h[0], h[1], delta[0], delta[1]);
+      d[count - 1] = endSlope(h[count - 2], h[count - 3], delta[count - 2], delta[count - 3]);
+    }
+
+    this.voltage = x;
+    this.logResistance = y;
+    this.slope = d;
+  }
+
+  /** Three-point PCHIP end slope, limited so the end interval stays monotone. */
+  private static double endSlope(double h0, double h1, double delta0, double delta1) {
 
-      return resistance[resistance.length - 1];
+    double d = ((2 * h0 + h1) * delta0 - h0 * delta1) / (h0 + h1);
+    if (Math.signum(d) != Math.signum(delta0)) {
+      return 0;
     }
+    if (Math.signum(delta0) != Math.signum(delta1) && Math.abs(d) > Math.abs(3 * delta0)) {
+      return 3 * delta0;
+    }
+    return d;
   }
 
-  public void loadTrace() {
+  /**
+   * Runs the JSpice sweep behind a lookup table.
+   *
+   * @param key - the read conditions
+   * @return {voltage, resistance}
+   */
+  static double[][] simulateTrace(RCTableCache.Key key) {
 
     //    double Rinit = 1E2;
     //    double Rfinal = 1E8;
@@ -177,19 +269,75 @@ public class RC_ResistanceComputer {
     //      this.resistance[i] = resistance.get(i).doubleValue();
     //    }
     ///////////
+    double[] sweep = getSweep();
+
+    long startTime = System.nanoTime();
+    double[] voltage = new double[sweep.length];
+    for (int i = 0; i < sweep.length; i++) {
+      voltage[i] = simulate(key, sweep[i]);
+    }
+    long elapsedNanos = System.nanoTime() - startTime;
+
+    LOGGER.info(
+        String.format(
+            "RC table sweep: %d simulations in %.1f ms, %.2f ms per simulation",
+            sweep.length, elapsedNanos / 1E6, elapsedNanos / 1E6 / sweep.length));
+
+    return toTable(key, sweep, voltage);
+  }
+
+  /** @return the memristor resistances a lookup table is computed at */
+  private static double[] getSweep() {
+
     double Rinit = 1E1;
     double Rfinal = 1E8;
-    double phase = -readPulseWidth / 50;
 
-    List<Number> voltage = new ArrayList<>();
-    List<Number> resistance = new ArrayList<>();
+    List<Double> resistance = new ArrayList<>();
+    for (double Rm = Rinit; Rm < Rfinal; Rm *= 1.05) {
+      resistance.add(Rm);
+    }
+    double[] sweep = new double[resistance.size()];
+    for (int i = 0; i < sweep.length; i++) {
+      sweep[i] = resistance.get(i);
+    }
+    return sweep;
+  }
+
+  private static double[][] toTable(RCTableCache.Key key, double[] sweep, double[] voltage) {
+
+    double[] voltageTable = new double[sweep.length];
+    double[] resistanceTable = new double[sweep.length];
+
+    if (key.getReadPulseAmplitude() < 0) {
+      for (int i = 0; i < resistanceTable.length; i++) {
+        voltageTable[i] = voltage[i];
+        resistanceTable[i] = sweep[i];
+      }
+    } else { // lookup table needs to be reversed given method of access.
+      int idx = 0;
+      for (int i = resistanceTable.length - 1; i >= 0; i--) {
+        voltageTable[idx] = voltage[i];
+        resistanceTable[idx] = sweep[i];
+        idx++;
+      }
+    }
+
+    return new double[][] {voltageTable, resistanceTable};
+  }
+
+  /** @return V(2) at the end of the read pulse */
+  private static double simulate(RCTableCache.Key key, double Rm) {
+
+    double readPulseAmplitude = key.getReadPulseAmplitude();
+    double readPulseWidth = key.getReadPulseWidth();
+    double phase = -readPulseWidth / 50;
     double simStepSize = readPulseWidth / 20;
     double frequency = 1 / readPulseWidth;
 
     Pulse pulse =
         new Pulse(
             "V1",
-            driverOffset + readPulseAmplitude / 2,
+            key.getDriverOffset() + readPulseAmplitude / 2,
             phase + "",
             readPulseAmplitude / 2,
             frequency + "",
@@ -198,37 +346,16 @@ public class RC_ResistanceComputer {
     TransientConfig transientConfig =
         new TransientConfig("" + (readPulseWidth - phase), "" + simStepSize, pulse);
 
-    for (double Rm = Rinit; Rm < Rfinal; Rm *= 1.05) {
-
-      Netlist netlist;
-      if (boardVersion == 2) {
-        netlist = new MD_V2_Board(readInitVoltage, Rm, seriesResistor);
-      } else {
-        netlist = new MD_V0_V1_Board(readInitVoltage, Rm, seriesResistor);
-      }
-      netlist.setSimulationConfig(transientConfig);
-      SimulationResult simulationResult = JSpice.simulate(netlist);
-      SimulationPlotData simulationData = simulationResult.getSimulationPlotDataMap().get("V(2)");
-      voltage.add(simulationData.getyData().get(simulationData.getyData().size() - 1));
-      resistance.add(Rm);
-    }
-
-    this.voltage = new double[voltage.size()];
-    this.resistance = new double[resistance.size()];
-
-    if (readPulseAmplitude < 0) {
-      for (int i = 0; i < this.resistance.length; i++) {
-        this.voltage[i] = voltage.get(i).doubleValue();
-        this.resistance[i] = resistance.get(i).doubleValue();
-      }
-    } else { // lookup table needs to be reversed given method of access.
-      int idx = 0;
-      for (int i = this.resistance.length - 1; i >= 0; i--) {
-        this.voltage[idx] = voltage.get(i).doubleValue();
-        this.resistance[idx] = resistance.get(i).doubleValue();
-        idx++;
-      }
+    Netlist netlist;
+    if (key.getBoardVersion() == 2) {
+      netlist = new MD_V2_Board(key.getReadInitVoltage(), Rm, key.getSeriesResistance());
+    } else {
+      netlist = new MD_V0_V1_Board(key.getReadInitVoltage(), Rm, key.getSeriesResistance());
     }
+    netlist.setSimulationConfig(transientConfig);
+    SimulationResult simulationResult = JSpice.simulate(netlist);
+    SimulationPlotData simulationData = simulationResult.getSimulationPlotDataMap().get("V(2)");
+    return simulationData.getyData().get(simulationData.getyData().size() - 1).doubleValue();
   }
 
   // TODO remove this???
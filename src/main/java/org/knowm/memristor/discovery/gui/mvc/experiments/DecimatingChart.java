@@ -0,0 +1,54 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import java.awt.Component;
+import org.knowm.memristor.discovery.core.ChartDecimator;
+import org.knowm.xchart.XYChart;
+
+/**
+ * Feeds capture series to a chart through a {@link ChartDecimator}, so repainting costs the same
+ * however long the capture is. The arrays passed in are left alone for export.
+ */
+public class DecimatingChart {
+
+  private DecimatingChart() {}
+
+  /**
+   * Same as {@link XYChart#updateXYSeries(String, double[], double[], double[])}, thinned to the
+   * width of the panel the chart sits in.
+   *
+   * @param chart
+   * @param chartPanel
+   * @param seriesName
+   * @param x
+   * @param y
+   */
+  public static void updateXYSeries(
+      XYChart chart, Component chartPanel, String seriesName, double[] x, double[] y) {
+
+    double[][] decimated = ChartDecimator.decimate(x, y, chartPanel.getWidth());
+    chart.updateXYSeries(seriesName, decimated[0], decimated[1], null);
+  }
+}
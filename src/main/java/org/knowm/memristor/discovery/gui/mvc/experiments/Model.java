@@ -42,7 +42,8 @@ public abstract class Model {
   /** Constructor */
   public Model() {
 
-    swingPropertyChangeSupport = new SwingPropertyChangeSupport(this);
+    // experiment workers, sometimes several boards at once, fire on their own threads
+    swingPropertyChangeSupport = new SwingPropertyChangeSupport(this, true);
   }
 
   public abstract void doLoadModelFromPrefs(ExperimentPreferences experimentPreferences);
@@ -28,12 +28,15 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import javax.swing.JPanel;
 import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
+import org.knowm.memristor.discovery.core.experiment_common.ParallelBoards;
 import org.knowm.memristor.discovery.core.experiment_common.PulseUtility;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
 import org.knowm.memristor.discovery.core.gpio.MuxController.Destination;
@@ -95,6 +98,10 @@ public class BoardCheckExperiment extends Experiment {
 
   private PulseUtility pulseUtility;
 
+  // every board, for the mem-inline test, which checks them side by side
+  private final List<DWFProxy> dwfProxies;
+  private final List<PulseUtility> pulseUtilities = new ArrayList<>();
+
   /**
    * Constructor
    *
@@ -103,7 +110,21 @@ public class BoardCheckExperiment extends Experiment {
    */
   public BoardCheckExperiment(DWFProxy dwfProxy, Container mainFrameContainer, int boardVersion) {
 
-    super(dwfProxy, mainFrameContainer, boardVersion);
+    this(Collections.singletonList(dwfProxy), mainFrameContainer, boardVersion);
+  }
+
+  /**
+   * Constructor for checking several boards at once. The switch and mux diagnostics run on the
+   * first board; the mem-inline test runs on all of them in parallel.
+   *
+   * @param dwfProxies - one per board, see {@link DWFProxy#createAll(int)}
+   * @param mainFrameContainer
+   */
+  public BoardCheckExperiment(
+      List<DWFProxy> dwfProxies, Container mainFrameContainer, int boardVersion) {
+
+    super(dwfProxies.get(0), mainFrameContainer, boardVersion);
+    this.dwfProxies = dwfProxies;
 
     controlModel = new ControlModel();
     controlPanel = new ControlPanel();
@@ -123,6 +144,16 @@ public class BoardCheckExperiment extends Experiment {
             dwfProxy,
             muxController,
             MemristorDiscoveryPreferences.MIN_VOLTAGE_MEASURE_AMPLITUDE);
+    pulseUtilities.add(pulseUtility);
+    for (DWFProxy boardProxy : dwfProxies.subList(1, dwfProxies.size())) {
+      pulseUtilities.add(
+          new PulseUtility(
+              boardVersion,
+              controlModel,
+              boardProxy,
+              new MuxController(),
+              MemristorDiscoveryPreferences.MIN_VOLTAGE_MEASURE_AMPLITUDE));
+    }
   }
 
   @Override
@@ -504,9 +535,11 @@ public class BoardCheckExperiment extends Experiment {
 
       if (boardVersion == 1) {
         MuxController muxController = new MuxController();
-        dwfProxy.setUpper8IOStates(
-            muxController
-                .getGPIOConfig()); // default configuration is for series resistor measurment.
+        for (DWFProxy boardProxy : dwfProxies) {
+          boardProxy.setUpper8IOStates(
+              muxController
+                  .getGPIOConfig()); // default configuration is for series resistor measurment.
+        }
       }
 
       resultController.addNewLine("Mem-Inline Chip Test");
@@ -531,33 +564,70 @@ public class BoardCheckExperiment extends Experiment {
         appendWhiteSpace(w, b, COL_WIDTH + 1);
       }
 
-      resultController.addNewLine(b.toString());
-
-      float[][] reads;
+      String header = b.toString();
+
+      // form devices, all boards at once
+      List<float[][]> boardReads;
+      try (ParallelBoards parallelBoards = new ParallelBoards(dwfProxies)) {
+        boardReads =
+            parallelBoards.runOnAll(
+                (boardIndex, dwfProxy) -> {
+                  PulseUtility pulseUtility = pulseUtilities.get(boardIndex);
+                  float[][] reads;
+                  if (boardVersion == 2) {
+                    reads =
+                        pulseUtility.testMeminline(
+                            Waveform.HalfSine,
+                            -V_WRITE,
+                            -V_RESET,
+                            -V_READ,
+                            PULSE_WIDTH_IN_MICRO_SECONDS,
+                            PULSE_WIDTH_IN_MICRO_SECONDS,
+                            PULSE_WIDTH_IN_MICRO_SECONDS);
+                  } else {
+                    reads =
+                        pulseUtility.testMeminline(
+                            Waveform.HalfSine,
+                            V_WRITE,
+                            V_RESET,
+                            V_READ,
+                            PULSE_WIDTH_IN_MICRO_SECONDS,
+                            PULSE_WIDTH_IN_MICRO_SECONDS,
+                            PULSE_WIDTH_IN_MICRO_SECONDS);
+                  }
+                  if (reads == null) {
+                    throw new IllegalStateException("pulse capture failed");
+                  }
+                  return reads;
+                },
+                (boardIndex, cause) -> {
+                  // report the board as failed and still check the others
+                  controlModel.swingPropertyChangeSupport.firePropertyChange(
+                      Model.EVENT_NEW_CONSOLE_LOG,
+                      null,
+                      "Board " + boardIndex + " failed: " + cause.getMessage());
+                  return PulseUtility.failedMeminlineReads(boardVersion == 2 ? 17 : 9);
+                });
+      }
 
-      // form device
-      if (boardVersion == 2) {
-        reads =
-            pulseUtility.testMeminline(
-                Waveform.HalfSine,
-                -V_WRITE,
-                -V_RESET,
-                -V_READ,
-                PULSE_WIDTH_IN_MICRO_SECONDS,
-                PULSE_WIDTH_IN_MICRO_SECONDS,
-                PULSE_WIDTH_IN_MICRO_SECONDS);
-      } else {
-        reads =
-            pulseUtility.testMeminline(
-                Waveform.HalfSine,
-                V_WRITE,
-                V_RESET,
-                V_READ,
-                PULSE_WIDTH_IN_MICRO_SECONDS,
-                PULSE_WIDTH_IN_MICRO_SECONDS,
-                PULSE_WIDTH_IN_MICRO_SECONDS);
+      for (int boardIndex = 0; boardIndex < boardReads.size(); boardIndex++) {
+        if (boardReads.size() > 1) {
+          resultController.addNewLine("BOARD " + boardIndex);
+        }
+        if (Float.isNaN(boardReads.get(boardIndex)[0][0])) {
+          resultController.addNewLine("PULSE CAPTURE FAILURE");
+          resultController.addNewLine("");
+          continue;
+        }
+        resultController.addNewLine(header);
+        reportMemInlineReads(boardReads.get(boardIndex));
       }
 
+      return true;
+    }
+
+    private void reportMemInlineReads(float[][] reads) {
+
       resultController.addNewLine(formatResistanceArray("ERASE       ", reads[0]));
       resultController.addNewLine(formatResistanceArray("WRITE       ", reads[1]));
       resultController.addNewLine(formatResistanceArray("ERASE      ", reads[2]));
@@ -581,7 +651,7 @@ public class BoardCheckExperiment extends Experiment {
 
       if (pulseCaptureFail) {
         resultController.addNewLine("PULSE CAPTURE FAILURE");
-        return true;
+        return;
       }
 
       if (meminline_numFailed == 0) {
@@ -599,8 +669,6 @@ public class BoardCheckExperiment extends Experiment {
           resultController.addNewLine("NOTE: Is board in mode 2?");
         }
       }
-
-      return true;
     }
 
     private String verifyMemInlineReads(float[][] reads) {
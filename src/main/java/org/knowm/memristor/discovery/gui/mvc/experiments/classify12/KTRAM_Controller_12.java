@@ -24,6 +24,7 @@
 package org.knowm.memristor.discovery.gui.mvc.experiments.classify12;
 
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.DigitalIOTransaction;
 import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
@@ -62,7 +63,7 @@ public class KTRAM_Controller_12 {
 
     double W1Amplitude;
 
-    dWFProxy.turnOffAllSwitches(2);
+    DigitalIOTransaction switches = dWFProxy.beginDigitalIOTransaction().turnOffAllSwitches(2);
 
     // turn on A and B memristors for spikes
     // System.out.println("Instyruction: " + instruction);
@@ -71,8 +72,8 @@ public class KTRAM_Controller_12 {
     // Integer.toBinaryString(dWFProxy.getDigitalIOStates()));
 
     // System.out.println("spike pattern: " + spikePattern.spikePattern);
-    dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikePattern, true);
-    dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikePattern, 8, true); // 8 is the offset
+    switches.set(spikePattern.spikePattern, true);
+    switches.set(spikePattern.spikePattern, 8, true); // 8 is the offset
     // System.out.println("A and B switches should be on: " +
     // Integer.toBinaryString(dWFProxy.getDigitalIOStates()));
 
@@ -89,26 +90,27 @@ public class KTRAM_Controller_12 {
       W1Amplitude = -controlModel.getForwardAmplitude();
 
       // turn off B spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikePattern, 8, false);
+      switches.set(spikePattern.spikePattern, 8, false);
 
     } else if (instruction == Instruction12.FB) {
       W1Amplitude = -controlModel.getForwardAmplitude();
       // turn off A spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikePattern, false);
+      switches.set(spikePattern.spikePattern, false);
 
     } else if (instruction == Instruction12.RA) {
       W1Amplitude = controlModel.getReverseAmplitude();
       // turn off B spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikePattern, 8, false);
+      switches.set(spikePattern.spikePattern, 8, false);
 
     } else if (instruction == Instruction12.RB) {
       W1Amplitude = controlModel.getReverseAmplitude();
       // turn off A spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikePattern, false);
+      switches.set(spikePattern.spikePattern, false);
 
     } else { // default is forward read.
       W1Amplitude = -.08f;
     }
+    switches.commit();
 
     // System.out.println("Before Instruction " +
     // Integer.toBinaryString(dWFProxy.getDigitalIOStates()));
@@ -117,18 +119,17 @@ public class KTRAM_Controller_12 {
         WaveformUtils.generateCustomWaveform(
             controlModel.getWaveform(), W1Amplitude, controlModel.getCalculatedFrequency());
 
-    dWFProxy
-        .getDwf()
-        .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
-            DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true);
-    dWFProxy.waitUntilArmed();
-    dWFProxy
-        .getDwf()
-        .setCustomPulseTrain(
-            DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
-    dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
-
-    boolean success = dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
+    boolean armed =
+        dWFProxy
+            .armScopeOnWaveformGenerator(
+                DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true)
+            .isDone();
+    dWFProxy.setCustomPulseTrain(
+        DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
+    dWFProxy.startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
+
+    boolean success =
+        armed && dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
     if (success) {
 
       if (instruction == Instruction12.FLV || instruction == Instruction12.RLV) {
@@ -176,14 +177,10 @@ public class KTRAM_Controller_12 {
 
   private void setVy(double W1Amplitude) {
 
-    int validSamples = dWFProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    double[][] samples = dWFProxy.fetchSamples();
 
-    double peakV1 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples));
-    double peakV2 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples));
+    double peakV1 = Util.maxAbs(samples[0]);
+    double peakV2 = Util.maxAbs(samples[1]);
 
     ////////////////////////////////////////
 
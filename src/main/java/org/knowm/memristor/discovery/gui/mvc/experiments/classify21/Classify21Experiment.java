@@ -180,8 +180,11 @@ public class Classify21Experiment extends Experiment {
 
   private void loadSpikePattern(List<Integer> spikes) {
 
-    dwfProxy.turnOffAllSwitches(1);
-    dwfProxy.update2DigitalIOStatesAtOnce(spikes, true); // set spike pattern
+    dwfProxy
+        .beginDigitalIOTransaction()
+        .turnOffAllSwitches(1)
+        .set(spikes, true) // set spike pattern
+        .commit();
   }
 
   /**
@@ -111,18 +111,20 @@ public class KTRAM_Controller_21 {
 
     if (instruction == Instruction.FFLV) {
 
-      dWFProxy
-          .getDwf()
-          .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
-              DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true);
-      dWFProxy.waitUntilArmed();
-      dWFProxy
-          .getDwf()
-          .setCustomPulseTrain(
-              DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
-      dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
-
-      boolean success = dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
+      boolean armed =
+          dWFProxy
+              .armScopeOnWaveformGenerator(
+                  DWF.WAVEFORM_CHANNEL_1,
+                  controlModel.getCalculatedFrequency() * 300,
+                  300 * 1,
+                  true)
+              .isDone();
+      dWFProxy.setCustomPulseTrain(
+          DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
+      dWFProxy.startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
+
+      boolean success =
+          armed && dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
       if (success) {
         setVy(W1Amplitude);
       } else {
@@ -130,19 +132,15 @@ public class KTRAM_Controller_21 {
       }
 
     } else {
-      dWFProxy
-          .getDwf()
-          .setCustomPulseTrain(
-              DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
+      dWFProxy.setCustomPulseTrain(
+          DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
       // note w2 amplitude is zero (gnd).
       double[] W2 =
           WaveformUtils.generateCustomWaveform(
               controlModel.getWaveform(), 0.0, controlModel.getCalculatedFrequency());
-      dWFProxy
-          .getDwf()
-          .setCustomPulseTrain(
-              DWF.WAVEFORM_CHANNEL_2, controlModel.getCalculatedFrequency(), 0, 1, W2);
-      dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_BOTH);
+      dWFProxy.setCustomPulseTrain(
+          DWF.WAVEFORM_CHANNEL_2, controlModel.getCalculatedFrequency(), 0, 1, W2);
+      dWFProxy.startPulseTrain(DWF.WAVEFORM_CHANNEL_BOTH);
     }
 
     /*
@@ -168,13 +166,9 @@ public class KTRAM_Controller_21 {
 
   private void setVy(double W1Amplitude) {
 
-    int validSamples = dWFProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-    double peakV1 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples));
-    double peakV2 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples));
+    double[][] samples = dWFProxy.fetchSamples();
+    double peakV1 = Util.maxAbs(samples[0]);
+    double peakV2 = Util.maxAbs(samples[1]);
 
     ////////////////////////////////////////
 
@@ -31,7 +31,7 @@ import java.util.List;
 import javax.swing.JPanel;
 import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
-import org.knowm.memristor.discovery.core.PostProcessDataUtils;
+import org.knowm.memristor.discovery.core.CaptureProcessor;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
@@ -128,14 +128,12 @@ public class ConductanceExperiment extends Experiment {
                   Waveform.Square,
                   controlModel.getSetAmplitude(),
                   controlModel.getCalculatedFrequency());
-          dwfProxy
-              .getDwf()
-              .startCustomPulseTrain(
-                  DWF.WAVEFORM_CHANNEL_1,
-                  controlModel.getCalculatedFrequency(),
-                  0,
-                  1,
-                  customWaveform);
+          dwfProxy.startCustomPulseTrain(
+              DWF.WAVEFORM_CHANNEL_1,
+              controlModel.getCalculatedFrequency(),
+              0,
+              1,
+              customWaveform);
         } else {
 
           resultPanel.switch2WaveformChart();
@@ -181,6 +179,16 @@ public class ConductanceExperiment extends Experiment {
     return new ConductancePreferences();
   }
 
+  private CaptureProcessor newCaptureProcessor(double sampleFrequency) {
+
+    return new CaptureProcessor(
+        boardVersion,
+        controlModel.getSeriesResistance(),
+        1 / sampleFrequency * ConductancePreferences.TIME_UNIT.getDivisor(),
+        ConductancePreferences.CURRENT_UNIT.getDivisor(),
+        ConductancePreferences.CONDUCTANCE_UNIT.getDivisor());
+  }
+
   private class ResetCaptureWorker extends SwingWorker<Boolean, double[][]> {
 
     @Override
@@ -198,11 +206,14 @@ public class ConductanceExperiment extends Experiment {
           controlModel.getCalculatedFrequency()
               * sampleFrequencyMultiplier; // adjust this down if you want to capture more pulses as
       // the buffer size is limited.
-      dwfProxy
-          .getDwf()
-          .startAnalogCaptureBothChannelsLevelTrigger(
-              sampleFrequency, 0.02 * (controlModel.getResetAmplitude() > 0 ? 1 : -1), 8000);
-      Thread.sleep(10); // Attempt to allow Analog In to get fired up for the next set of pulses
+      if (!dwfProxy
+          .armScopeOnLevelTrigger(
+              sampleFrequency, 0.02 * (controlModel.getResetAmplitude() > 0 ? 1 : -1), 8000)
+          .isDone()) {
+        dwfProxy.stopAnalogCaptureBothChannels();
+        controlPanel.getStartStopButton().doClick();
+        return false;
+      }
 
       // ////////////////////////////////
       // Pulse Out /////////////////
@@ -214,68 +225,39 @@ public class ConductanceExperiment extends Experiment {
               controlModel.getResetPulseType(),
               controlModel.getResetAmplitude(),
               controlModel.getCalculatedFrequency());
-      dwfProxy
-          .getDwf()
-          .startCustomPulseTrain(
-              DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, customWaveform);
+      dwfProxy.startCustomPulseTrain(
+          DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, customWaveform);
 
       // Read In Data
       boolean success = dwfProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
       if (!success) {
         // Stop Analog In and Out
-        dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-        dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+        dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
         controlPanel.getStartStopButton().doClick();
         return false;
       }
 
       // Get Raw Data from Oscilloscope
-      int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+      double[][] samples = dwfProxy.fetchSamples();
+      double[] v1 = samples[0];
+      double[] v2 = samples[1];
       // System.out.println("validSamples: " + validSamples);
 
       // /////////////////////////
       // Create Chart Data //////
       // /////////////////////////
 
-      double[][] trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, 0.02, 10);
-      double[] V1Trimmed = trimmedRawData[0];
-      double[] V2Trimmed = trimmedRawData[1];
-      int bufferLength = V1Trimmed.length;
-
-      // create time data
-      double[] timeData = new double[bufferLength];
-      double timeStep = 1 / sampleFrequency * ConductancePreferences.TIME_UNIT.getDivisor();
-      for (int i = 0; i < bufferLength; i++) {
-        timeData[i] = i * timeStep;
-      }
-
-      // create current data
-      double[] current = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-        current[i] =
-            V2Trimmed[i]
-                / controlModel.getSeriesResistance()
-                * ConductancePreferences.CURRENT_UNIT.getDivisor();
-      }
-
-      // create conductance data
-      double[] conductance = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-
-        double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-        double G =
-            I
-                / (V1Trimmed[i] - V2Trimmed[i])
-                * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor();
-        G = G < 0 ? 0 : G;
-        conductance[i] = G;
-      }
+      CaptureProcessor.Series series =
+          newCaptureProcessor(sampleFrequency).processActive(v1, v2, 0.02, 10);
 
-      publish(new double[][] {timeData, V1Trimmed, V2Trimmed, current, conductance});
+      publish(
+          new double[][] {
+            series.getTime(),
+            series.getV1(),
+            series.getV2(),
+            series.getCurrent(),
+            series.getConductance()
+          });
 
       return true;
     }
@@ -328,8 +310,7 @@ public class ConductanceExperiment extends Experiment {
           Thread.sleep(100); // TODO change this to a small amount after debugged and working app
         } catch (InterruptedException e) {
           // eat it. caught when interrupt is called
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+          dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
         }
 
         // 1. set pulse
@@ -345,11 +326,14 @@ public class ConductanceExperiment extends Experiment {
             controlModel.getCalculatedFrequency()
                 * sampleFrequencyMultiplier; // adjust this down if you want to capture more pulses
         // as the buffer size is limited.
-        dwfProxy
-            .getDwf()
-            .startAnalogCaptureBothChannelsLevelTrigger(
-                sampleFrequency, 0.02 * (controlModel.getSetAmplitude() > 0 ? 1 : -1), 8000);
-        Thread.sleep(20); // Attempt to allow Analog In to get fired up for the next set of pulses
+        if (!dwfProxy
+            .armScopeOnLevelTrigger(
+                sampleFrequency, 0.02 * (controlModel.getSetAmplitude() > 0 ? 1 : -1), 8000)
+            .isDone()) {
+          dwfProxy.stopAnalogCaptureBothChannels();
+          controlPanel.getStartStopButton().doClick();
+          return false;
+        }
 
         // ////////////////////////////////
         // Pulse Out /////////////////
@@ -361,67 +345,42 @@ public class ConductanceExperiment extends Experiment {
                 Waveform.Square,
                 controlModel.getSetAmplitude(),
                 controlModel.getCalculatedFrequency());
-        dwfProxy
-            .getDwf()
-            .startCustomPulseTrain(
-                DWF.WAVEFORM_CHANNEL_1,
-                controlModel.getCalculatedFrequency(),
-                0,
-                1,
-                customWaveform);
+        dwfProxy.startCustomPulseTrain(
+            DWF.WAVEFORM_CHANNEL_1,
+            controlModel.getCalculatedFrequency(),
+            0,
+            1,
+            customWaveform);
 
         // Get Raw Data from Oscilloscope
-        int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-        double[] v1 =
-            dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-        double[] v2 =
-            dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+        double[][] samples = dwfProxy.fetchSamples();
+        double[] v1 = samples[0];
+        double[] v2 = samples[1];
         // System.out.println("validSamples: " + validSamples);
 
         // /////////////////////////
         // Create Chart Data //////
         // /////////////////////////
 
-        double[][] trimmedRawData =
-            PostProcessDataUtils.trimIdleData(v1, v2, controlModel.getSetAmplitude() * .98, 0);
-        double[] V1Trimmed = trimmedRawData[0];
-        double[] V2Trimmed = trimmedRawData[1];
-        int bufferLength = V1Trimmed.length;
-
-        // create time data
-        double[] timeData = new double[bufferLength];
-        double timeStep = 1 / sampleFrequency * ConductancePreferences.TIME_UNIT.getDivisor();
-        for (int i = 0; i < bufferLength; i++) {
-          timeData[i] = i * timeStep;
-        }
-
-        // create current data
-        double[] current = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-          current[i] =
-              V2Trimmed[i]
-                  / controlModel.getSeriesResistance()
-                  * ConductancePreferences.CURRENT_UNIT.getDivisor();
-        }
+        CaptureProcessor.Series series =
+            newCaptureProcessor(sampleFrequency)
+                .processActive(v1, v2, controlModel.getSetAmplitude() * .98, 0);
+        int bufferLength = series.getLength();
 
         // create conductance data - a single number equal to the average of all points in the
         // trimmed data
         double runningTotal = 0.0;
+        double[] seriesConductance = series.getConductance();
         for (int i = 3; i < bufferLength - 3; i++) {
-          double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-          double G = I / (V1Trimmed[i] - V2Trimmed[i]);
-          G = G < 0 ? 0 : G;
-          runningTotal += G;
+          runningTotal += seriesConductance[i];
         }
         // conductance value packed in a one-element array
-        double[] conductance =
-            new double[] {
-              runningTotal
-                  / (bufferLength - 6)
-                  * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor()
-            };
-
-        publish(new double[][] {timeData, V1Trimmed, V2Trimmed, current, conductance});
+        double[] conductance = new double[] {runningTotal / (bufferLength - 6)};
+
+        publish(
+            new double[][] {
+              series.getTime(), series.getV1(), series.getV2(), series.getCurrent(), conductance
+            });
       }
 
       controlPanel.getStartStopButton().doClick();
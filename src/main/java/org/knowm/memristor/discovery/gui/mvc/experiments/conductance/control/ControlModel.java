@@ -109,12 +109,10 @@ public class ControlModel extends Model {
 
     double timeStep = 1 / getCalculatedFrequency() / ConductancePreferences.CAPTURE_BUFFER_SIZE;
 
-    int counter = 0;
-    do {
-      double time = counter * timeStep;
-      waveformTimeData[counter] = time * 1_000_000;
-      waveformAmplitudeData[counter] = driver.getSignal(time);
-    } while (++counter < ConductancePreferences.CAPTURE_BUFFER_SIZE);
+    for (int i = 0; i < ConductancePreferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * 1_000_000;
+    }
+    driver.getSignal(0, timeStep, waveformAmplitudeData);
 
     // System.out.println("Arrays.toString(waveformTimeData) = " +
     // Arrays.toString(waveformTimeData));
@@ -26,6 +26,7 @@ package org.knowm.memristor.discovery.gui.mvc.experiments.conductance.result;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import org.knowm.memristor.discovery.core.Util;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DecimatingChart;
 
 public class ResultController {
 
@@ -143,8 +144,10 @@ public class ResultController {
       double[] timeData, double[] v1, double[] v2, int pulseWidth, double amplitude) {
 
     resultPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, pulseWidth));
-    resultPanel.getCaptureChart().updateXYSeries("V1", timeData, v1, null);
-    resultPanel.getCaptureChart().updateXYSeries("V2", timeData, v2, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(), resultPanel.getCaptureChartPanel(), "V1", timeData, v1);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(), resultPanel.getCaptureChartPanel(), "V2", timeData, v2);
   }
 
   public void udpateIVChart(double[] v1, double[] current, int pulseWidth, double amplitude) {
@@ -153,7 +156,8 @@ public class ResultController {
     resultPanel.getIvChart().getStyler().setYAxisMin(resultModel.getyMinIV());
 
     resultPanel.getIvChart().setTitle(getIVChartTitle(amplitude, pulseWidth));
-    resultPanel.getIvChart().updateXYSeries("iv", v1, current, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getIvChart(), resultPanel.getIvChartPanel(), "iv", v1, current);
   }
 
   public void updateGVChart(double[] conductance, int pulseWidth, double amplitude) {
@@ -172,7 +176,8 @@ public class ResultController {
     resultPanel.getGvChart().getStyler().setYAxisMax(resultModel.getyMaxGV());
     resultPanel.getGvChart().getStyler().setYAxisMin(0.0);
     resultPanel.getGvChart().setTitle(getGVChartTitle(amplitude, pulseWidth));
-    resultPanel.getGvChart().updateXYSeries("gv", v1, conductance, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getGvChart(), resultPanel.getGvChartPanel(), "gv", v1, conductance);
     resultPanel.getGvChart().setXAxisTitle("Volatge [V]");
   }
 
@@ -31,7 +31,8 @@ import java.util.List;
 import javax.swing.JPanel;
 import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
-import org.knowm.memristor.discovery.core.PostProcessDataUtils;
+import org.knowm.memristor.discovery.core.CaptureProcessor;
+import org.knowm.memristor.discovery.core.PulseSegmenter;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
@@ -178,6 +179,9 @@ public class DCExperiment extends Experiment {
 
   private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
 
+    /** the pulses found in the capture */
+    private volatile PulseSegmenter.Pulses pulses;
+
     @Override
     protected Boolean doInBackground() throws Exception {
 
@@ -191,25 +195,22 @@ public class DCExperiment extends Experiment {
           controlModel.getCalculatedFrequency()
               * samplesPerPulse; // adjust this down if you want to capture more pulses as the
 
+      double triggerLevel;
       if (boardVersion == 2) {
-        // buffer size is limited.
-        dwfProxy
-            .getDwf()
-            .startAnalogCaptureBothChannelsLevelTrigger(
-                sampleFrequency,
-                -0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1),
-                samplesPerPulse * controlModel.getPulseNumber());
+        triggerLevel = -0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1);
       } else {
-        // buffer size is limited.
-        dwfProxy
-            .getDwf()
-            .startAnalogCaptureBothChannelsLevelTrigger(
-                sampleFrequency,
-                0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1),
-                samplesPerPulse * controlModel.getPulseNumber());
+        triggerLevel = 0.02 * (controlModel.getAmplitude() > 0 ? 1 : -1);
       }
 
-      dwfProxy.waitUntilArmed();
+      // buffer size is limited.
+      if (!dwfProxy
+          .armScopeOnLevelTrigger(
+              sampleFrequency, triggerLevel, samplesPerPulse * controlModel.getPulseNumber())
+          .isDone()) {
+        dwfProxy.stopAnalogCaptureBothChannels();
+        controlPanel.getStartStopButton().doClick();
+        return false;
+      }
 
       // ////////////////////////////////
       // Pulse Out /////////////////
@@ -231,14 +232,12 @@ public class DCExperiment extends Experiment {
                 controlModel.getCalculatedFrequency());
       }
 
-      dwfProxy
-          .getDwf()
-          .startCustomPulseTrain(
-              DWF.WAVEFORM_CHANNEL_1,
-              controlModel.getCalculatedFrequency(),
-              0,
-              controlModel.getPulseNumber(),
-              customWaveform);
+      dwfProxy.startCustomPulseTrain(
+          DWF.WAVEFORM_CHANNEL_1,
+          controlModel.getCalculatedFrequency(),
+          0,
+          controlModel.getPulseNumber(),
+          customWaveform);
 
       // ////////////////////////////////
       // ////////////////////////////////
@@ -249,97 +248,44 @@ public class DCExperiment extends Experiment {
               controlModel.getCalculatedFrequency(), controlModel.getPulseNumber());
       if (!success) {
         // Stop Analog In and Out
-        dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-        dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+        dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
         controlPanel.getStartStopButton().doClick();
         return false;
       }
 
       // Get Raw Data from Oscilloscope
-      int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+      double[][] samples = dwfProxy.fetchSamples();
+      double[] v1 = samples[0];
+      double[] v2 = samples[1];
 
       // /////////////////////////
       // Create Chart Data //////
       // /////////////////////////
 
-      double[] VMemristor;
-
-      if (boardVersion == 2) {
-
-        VMemristor = PostProcessDataUtils.invert(v1);
-        int bufferLength = v1.length;
-
-        // create time data
-        double[] timeData = new double[bufferLength];
-        double timeStep = 1 / sampleFrequency * DCPreferences.TIME_UNIT.getDivisor();
-        for (int i = 0; i < bufferLength; i++) {
-          timeData[i] = i * timeStep;
-        }
-
-        // create current data
-        double[] current = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-          double dv = (v1[i] - v2[i]);
-          current[i] =
-              dv / controlModel.getSeriesResistance() * DCPreferences.CURRENT_UNIT.getDivisor();
-        }
-
-        // create conductance data
-        double[] conductance = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-
-          double I = (v1[i] - v2[i]) / controlModel.getSeriesResistance();
-          double G = I / (-v1[i]) * DCPreferences.CONDUCTANCE_UNIT.getDivisor();
-          G = G < 0 ? 0 : G;
-          conductance[i] = G;
-        }
-
-        publish(
-            new double[][] {
-              timeData,
-              PostProcessDataUtils.invert(v2),
-              PostProcessDataUtils.invert(v1),
-              VMemristor,
-              current,
-              conductance
-            });
-
-        return true;
-      }
-
-      VMemristor = PostProcessDataUtils.getV1MinusV2(v1, v2);
-
-      int bufferLength = v1.length;
-
-      // create time data
-      double[] timeData = new double[bufferLength];
-      double timeStep = 1 / sampleFrequency * DCPreferences.TIME_UNIT.getDivisor();
-      for (int i = 0; i < bufferLength; i++) {
-        timeData[i] = i * timeStep;
-      }
-
-      // create current data
-      double[] current = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-        current[i] =
-            v2[i] / controlModel.getSeriesResistance() * DCPreferences.CURRENT_UNIT.getDivisor();
-      }
-
-      // create conductance data
-      double[] conductance = new double[bufferLength];
-      for (int i = 0; i < bufferLength; i++) {
-
-        double I = v2[i] / controlModel.getSeriesResistance();
-        double G = I / (v1[i] - v2[i]) * DCPreferences.CONDUCTANCE_UNIT.getDivisor();
-        G = G < 0 ? 0 : G;
-        conductance[i] = G;
-      }
-
-      publish(new double[][] {timeData, v1, v2, VMemristor, current, conductance});
+      CaptureProcessor.Series series =
+          new CaptureProcessor(
+                  boardVersion,
+                  controlModel.getSeriesResistance(),
+                  1 / sampleFrequency * DCPreferences.TIME_UNIT.getDivisor(),
+                  DCPreferences.CURRENT_UNIT.getDivisor(),
+                  DCPreferences.CONDUCTANCE_UNIT.getDivisor())
+              .setNormalizeChannels(true)
+              .process(v1, v2);
+
+      // with the channels normalized V1 is the source on every board, if negated on V2 boards
+      pulses =
+          new PulseSegmenter(1 / sampleFrequency, DCPreferences.CURRENT_UNIT.getDivisor())
+              .segment(series, series.getV1());
+
+      publish(
+          new double[][] {
+            series.getTime(),
+            series.getV1(),
+            series.getV2(),
+            series.getVMemristor(),
+            series.getCurrent(),
+            series.getConductance()
+          });
 
       return true;
     }
@@ -365,6 +311,7 @@ public class DCExperiment extends Experiment {
           newestChunk[4],
           controlModel.getPeriod(),
           controlModel.getAmplitude());
+      resultController.updatePulsePeaks(newestChunk[3], pulses);
 
       resultController.updateGVChartData(
           newestChunk[1],
@@ -383,6 +330,19 @@ public class DCExperiment extends Experiment {
         resultController.repaintGVChart();
         resultPanel.switch2GVChart();
       }
+      getControlModel()
+          .swingPropertyChangeSupport
+          .firePropertyChange(
+              Model.EVENT_NEW_CONSOLE_LOG,
+              null,
+              pulses.getCount()
+                  + " of "
+                  + controlModel.getPulseNumber()
+                  + " pulses measured:\n"
+                  + pulses.toCsv(
+                      DCPreferences.CURRENT_UNIT.getLabel(),
+                      DCPreferences.CONDUCTANCE_UNIT.getLabel()));
+
       controlPanel.getStartStopButton().doClick();
     }
   }
@@ -28,8 +28,12 @@ import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
 import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
+import org.knowm.memristor.discovery.core.ChartDecimator;
+import org.knowm.memristor.discovery.core.PulseSegmenter;
 import org.knowm.memristor.discovery.core.Util;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DecimatingChart;
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.DCPreferences;
+import org.knowm.xchart.XYSeries;
 
 public class ResultController {
 
@@ -157,9 +161,16 @@ public class ResultController {
       double amplitude) {
 
     resultPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, pulseWidth));
-    resultPanel.getCaptureChart().updateXYSeries("V1(1+)", timeData, v1, null);
-    resultPanel.getCaptureChart().updateXYSeries("V2(2+)", timeData, v2, null);
-    resultPanel.getCaptureChart().updateXYSeries("V1-V2", timeData, v1Minusv2, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(), resultPanel.getCaptureChartPanel(), "V1(1+)", timeData, v1);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(), resultPanel.getCaptureChartPanel(), "V2(2+)", timeData, v2);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(),
+        resultPanel.getCaptureChartPanel(),
+        "V1-V2",
+        timeData,
+        v1Minusv2);
   }
 
   public void updateIVChartData(
@@ -169,8 +180,33 @@ public class ResultController {
     resultPanel.getIvChart().getStyler().setYAxisMin(resultModel.getyMinIV());
 
     resultPanel.getIvChart().setTitle(getIVChartTitle(amplitude, pulseWidth));
-    resultPanel.getIvChart().updateXYSeries("Resistor+Memristor", vRM, current, null);
-    resultPanel.getIvChart().updateXYSeries("Memristor", vM, current, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getIvChart(),
+        resultPanel.getIvChartPanel(),
+        "Resistor+Memristor",
+        vRM,
+        current);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getIvChart(), resultPanel.getIvChartPanel(), "Memristor", vM, current);
+  }
+
+  /**
+   * Mark each pulse's peak current on the I-V chart, against the memristor voltage at the peak.
+   *
+   * @param vM - the memristor voltage series the pulses were found in
+   * @param pulses
+   */
+  public void updatePulsePeaks(double[] vM, PulseSegmenter.Pulses pulses) {
+
+    XYSeries series = resultPanel.getIvChart().getSeriesMap().get("Pulse Peaks");
+    if (pulses.getCount() == 0) {
+      series.setEnabled(false);
+      return;
+    }
+    series.setEnabled(true);
+    resultPanel
+        .getIvChart()
+        .updateXYSeries("Pulse Peaks", pulses.atPeaks(vM), pulses.getPeakCurrents(), null);
   }
 
   public void updateGVChartData(
@@ -185,7 +221,9 @@ public class ResultController {
     List<Number> v_m = new ArrayList<>();
     List<Number> g = new ArrayList<>();
 
-    for (int i = 0; i < conductance.length; i++) {
+    for (int i :
+        ChartDecimator.minMaxIndices(
+            conductance, ChartDecimator.bucketsFor(resultPanel.getGvChartPanel().getWidth()))) {
       if (Math.abs(vRM[i]) > MemristorDiscoveryPreferences.MIN_VOLTAGE_MEASURE_AMPLITUDE) {
         v_rm.add(vRM[i]);
         v_m.add(vM[i]);
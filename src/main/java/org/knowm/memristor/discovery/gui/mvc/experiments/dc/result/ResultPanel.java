@@ -131,6 +131,11 @@ public class ResultPanel extends JPanel {
     series = ivChart.addSeries("Memristor", new double[] {0}, new double[] {0});
     series.setMarker(SeriesMarkers.NONE);
 
+    series = ivChart.addSeries("Pulse Peaks", new double[] {0}, new double[] {0});
+    series.setXYSeriesRenderStyle(XYSeriesRenderStyle.Scatter);
+    series.setMarker(SeriesMarkers.DIAMOND);
+    series.setEnabled(false);
+
     ivChartPanel = new XChartPanel<>(ivChart);
 
     // ///////////////////////////////////////////////////////////
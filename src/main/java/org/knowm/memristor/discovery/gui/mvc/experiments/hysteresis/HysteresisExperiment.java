@@ -30,6 +30,10 @@ import java.beans.PropertyChangeEvent;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -44,6 +48,9 @@ import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
 import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.core.analysis.HysteresisCycleTracker;
+import org.knowm.memristor.discovery.core.analysis.HysteresisCycleTracker.CycleRecord;
+import org.knowm.memristor.discovery.core.dwf.SampleBufferPool;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
@@ -65,11 +72,12 @@ public class HysteresisExperiment extends Experiment {
   private final ResultPanel resultPanel;
   private final ResultModel resultModel;
   private final ResultController resultController;
-  private double[] voltage_data;
-  private double[] current_data;
-  private boolean isCapturing = false;
+  private volatile boolean isCapturing = false;
   private int totalSamples = 0;
 
+  /** where the per-cycle drift trace of the current capturing session goes */
+  private volatile Path driftTracePath;
+
   // SwingWorkers
   private SwingWorker experimentCaptureWorker;
 
@@ -117,6 +125,10 @@ public class HysteresisExperiment extends Experiment {
       
       if (isCapturing){
         System.out.println("Capturing data...");
+        driftTracePath =
+            Path.of(
+                controlPanel.getExportedDataPathTextField().getText(),
+                "drift_" + UUID.randomUUID() + ".csv");
         //controlPanel.getStartCaptureButton().setText("Capturing data: " + totalSamples);
       }else{
         controlPanel.getStartCaptureButton().setText("Start Capturing");
@@ -201,26 +213,22 @@ public class HysteresisExperiment extends Experiment {
 
           if (boardVersion == 2) {
             DWF.Waveform dwfWaveform = WaveformUtils.getDWFWaveform(controlModel.getWaveform());
-            dwfProxy
-                .getDwf()
-                .startWave(
-                    DWF.WAVEFORM_CHANNEL_1,
-                    dwfWaveform,
-                    controlModel.getFrequency(),
-                    -controlModel.getAmplitude(),
-                    -controlModel.getOffset(),
-                    50);
+            dwfProxy.startWave(
+                DWF.WAVEFORM_CHANNEL_1,
+                dwfWaveform,
+                controlModel.getFrequency(),
+                -controlModel.getAmplitude(),
+                -controlModel.getOffset(),
+                50);
           } else {
             DWF.Waveform dwfWaveform = WaveformUtils.getDWFWaveform(controlModel.getWaveform());
-            dwfProxy
-                .getDwf()
-                .startWave(
-                    DWF.WAVEFORM_CHANNEL_1,
-                    dwfWaveform,
-                    controlModel.getFrequency(),
-                    controlModel.getAmplitude(),
-                    controlModel.getOffset(),
-                    50);
+            dwfProxy.startWave(
+                DWF.WAVEFORM_CHANNEL_1,
+                dwfWaveform,
+                controlModel.getFrequency(),
+                controlModel.getAmplitude(),
+                controlModel.getOffset(),
+                50);
           }
 
         } else {
@@ -245,12 +253,10 @@ public class HysteresisExperiment extends Experiment {
           double sampleFrequency = (double) controlModel.getFrequency()
               * HysteresisPreferences.CAPTURE_BUFFER_SIZE
               / HysteresisPreferences.CAPTURE_PERIOD_COUNT;
-          dwfProxy
-              .getDwf()
-              .startAnalogCaptureBothChannelsImmediately(
-                  sampleFrequency,
-                  HysteresisPreferences.CAPTURE_BUFFER_SIZE,
-                  AcquisitionMode.ScanShift);
+          dwfProxy.startAnalogCaptureBothChannelsImmediately(
+              sampleFrequency,
+              HysteresisPreferences.CAPTURE_BUFFER_SIZE,
+              AcquisitionMode.ScanShift);
         }
         break;
       default:
@@ -266,6 +272,21 @@ public class HysteresisExperiment extends Experiment {
 
   private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
 
+    private final SampleBufferPool sampleBufferPool = dwfProxy.getSampleBufferPool();
+
+    // the chunk each chart shows, released back into the pool when the next one replaces it
+    private double[][] displayedVtChunk;
+    private double[][] displayedIVChunk;
+    private double[][] displayedGVChunk;
+
+    // per-cycle features, worked out on every poll whatever chart is showing
+    private HysteresisCycleTracker cycleTracker;
+    private double[] cycleDrive = new double[0];
+    private double[] cycleVoltage = new double[0];
+    private double[] cycleCurrent = new double[0];
+    private Path openDriftTracePath;
+    private PrintWriter driftTraceWriter;
+
     @Override
     protected Boolean doInBackground() throws Exception {
 
@@ -273,38 +294,32 @@ public class HysteresisExperiment extends Experiment {
 
       if (boardVersion == 2) {
         DWF.Waveform dwfWaveform = WaveformUtils.getDWFWaveform(controlModel.getWaveform());
-        dwfProxy
-            .getDwf()
-            .startWave(
-                DWF.WAVEFORM_CHANNEL_1,
-                dwfWaveform,
-                controlModel.getFrequency(),
-                -controlModel.getAmplitude(),
-                -controlModel.getOffset(),
-                50);
+        dwfProxy.startWave(
+            DWF.WAVEFORM_CHANNEL_1,
+            dwfWaveform,
+            controlModel.getFrequency(),
+            -controlModel.getAmplitude(),
+            -controlModel.getOffset(),
+            50);
       } else {
         DWF.Waveform dwfWaveform = WaveformUtils.getDWFWaveform(controlModel.getWaveform());
-        dwfProxy
-            .getDwf()
-            .startWave(
-                DWF.WAVEFORM_CHANNEL_1,
-                dwfWaveform,
-                controlModel.getFrequency(),
-                controlModel.getAmplitude(),
-                controlModel.getOffset(),
-                50);
+        dwfProxy.startWave(
+            DWF.WAVEFORM_CHANNEL_1,
+            dwfWaveform,
+            controlModel.getFrequency(),
+            controlModel.getAmplitude(),
+            controlModel.getOffset(),
+            50);
       }
 
       // Analog In
       double sampleFrequency = (double) controlModel.getFrequency()
           * HysteresisPreferences.CAPTURE_BUFFER_SIZE
           / HysteresisPreferences.CAPTURE_PERIOD_COUNT;
-      dwfProxy
-          .getDwf()
-          .startAnalogCaptureBothChannelsImmediately(
-              sampleFrequency,
-              HysteresisPreferences.CAPTURE_BUFFER_SIZE,
-              AcquisitionMode.ScanShift);
+      dwfProxy.startAnalogCaptureBothChannelsImmediately(
+          sampleFrequency,
+          HysteresisPreferences.CAPTURE_BUFFER_SIZE,
+          AcquisitionMode.ScanShift);
 
       while (!isCancelled()) {
 
@@ -312,21 +327,18 @@ public class HysteresisExperiment extends Experiment {
           Thread.sleep(50);
         } catch (InterruptedException e) {
           // eat it. caught when interrupt is called
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+          dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
         }
 
-        // Read In Data
-        byte status = dwfProxy.getDwf().FDwfAnalogInStatus(true);
-        // System.out.println("status = " + status);
+        // Read In Data, into pooled arrays so the steady state doesn't allocate
+        double[][] samples = dwfProxy.pollPooledSamples();
+        long polledNanos = System.nanoTime();
 
-        int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-        // System.out.println("validSamples: " + validSamples);
+        if (samples != null) {
 
-        if (validSamples > 0) {
-
-          double[] rawV1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-          double[] rawV2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+          double[] rawV1 = samples[0];
+          double[] rawV2 = samples[1];
+          trackCycle(rawV1, rawV2, polledNanos);
 
           
           /*
@@ -338,9 +350,9 @@ public class HysteresisExperiment extends Experiment {
           if (boardVersion == 2) {
             if (resultPanel.getCaptureButton().isSelected()) { // Capture
               // Calculate time data
-              double[] timeData = new double[rawV1.length];
-              double[] V1 = new double[rawV1.length];
-              double[] V2 = new double[rawV1.length];
+              double[] timeData = sampleBufferPool.acquire(rawV1.length);
+              double[] V1 = sampleBufferPool.acquire(rawV1.length);
+              double[] V2 = sampleBufferPool.acquire(rawV1.length);
 
               double timeStep = 1
                   / (double) controlModel.getFrequency()
@@ -355,14 +367,13 @@ public class HysteresisExperiment extends Experiment {
               }
 
               publish(new double[][] { V1, V2, timeData });
+              sampleBufferPool.release(samples);
             } else if (resultPanel.getIVButton().isSelected()) { // IV
 
               // create current data
-              double[] current = new double[rawV1.length];
-              double[] voltage = new double[rawV2.length];
-              voltage_data = new double[rawV2.length];
-              current_data = new double[rawV2.length];
-              double[] V1 = new double[rawV1.length];
+              double[] current = sampleBufferPool.acquire(rawV1.length);
+              double[] voltage = sampleBufferPool.acquire(rawV2.length);
+              double[] V1 = sampleBufferPool.acquire(rawV1.length);
               
               for (int i = 0; i < current.length; i++) {
 
@@ -381,15 +392,13 @@ public class HysteresisExperiment extends Experiment {
                 voltage[i] = -rawV1[i];
               }
 
-              voltage_data = voltage;
-              current_data = current;
-
               publish(new double[][] { V1, voltage, current });
+              sampleBufferPool.release(samples);
 
             } else { // GV
-              double[] conductance = new double[rawV1.length];
-              double[] voltage = new double[rawV2.length];
-              double[] V1 = new double[rawV1.length];
+              double[] conductance = sampleBufferPool.acquire(rawV1.length);
+              double[] voltage = sampleBufferPool.acquire(rawV2.length);
+              double[] V1 = sampleBufferPool.acquire(rawV1.length);
 
               for (int i = 0; i < conductance.length; i++) {
 
@@ -406,12 +415,13 @@ public class HysteresisExperiment extends Experiment {
               }
 
               publish(new double[][] { V1, voltage, conductance });
+              sampleBufferPool.release(samples);
             }
 
           } else {
             if (resultPanel.getCaptureButton().isSelected()) { // Capture
               // Calculate time data
-              double[] timeData = new double[rawV1.length];
+              double[] timeData = sampleBufferPool.acquire(rawV1.length);
               double timeStep = 1
                   / (double) controlModel.getFrequency()
                   * HysteresisPreferences.CAPTURE_PERIOD_COUNT
@@ -422,8 +432,8 @@ public class HysteresisExperiment extends Experiment {
               publish(new double[][] { rawV1, rawV2, timeData });
             } else if (resultPanel.getIVButton().isSelected()) { // IV
               // create current data
-              double[] current = new double[rawV2.length];
-              double[] voltage = new double[rawV1.length];
+              double[] current = sampleBufferPool.acquire(rawV2.length);
+              double[] voltage = sampleBufferPool.acquire(rawV1.length);
               for (int i = 0; i < current.length; i++) {
                 current[i] = rawV2[i]
                     / controlModel.getSeriesResistance()
@@ -437,10 +447,11 @@ public class HysteresisExperiment extends Experiment {
               // }
 
               publish(new double[][] { rawV1, voltage, current });
+              sampleBufferPool.release(rawV2);
 
             } else { // GV
-              double[] conductance = new double[rawV2.length];
-              double[] voltage = new double[rawV1.length];
+              double[] conductance = sampleBufferPool.acquire(rawV2.length);
+              double[] voltage = sampleBufferPool.acquire(rawV1.length);
               for (int i = 0; i < conductance.length; i++) {
                 double I = rawV2[i] / controlModel.getSeriesResistance();
                 double G = I / (rawV1[i] - rawV2[i]) * HysteresisPreferences.CONDUCTANCE_UNIT.getDivisor();
@@ -452,23 +463,105 @@ public class HysteresisExperiment extends Experiment {
               }
 
               publish(new double[][] { rawV1, voltage, conductance });
+              sampleBufferPool.release(rawV2);
             }
           }
         }
       }
 
+      closeDriftTrace();
       return true;
     }
 
+    /**
+     * Work out the memristor voltage and current of a polled window the way the I-V chart does,
+     * and append the cycle's record to the drift trace while capturing is on.
+     */
+    private void trackCycle(double[] rawV1, double[] rawV2, long polledNanos) {
+
+      // the capture is restarted at the new rate when the frequency changes, and so is the count
+      if (cycleTracker == null || cycleTracker.getFrequency() != controlModel.getFrequency()) {
+        cycleTracker =
+            new HysteresisCycleTracker(
+                controlModel.getFrequency(),
+                (double) controlModel.getFrequency()
+                    * HysteresisPreferences.CAPTURE_BUFFER_SIZE
+                    / HysteresisPreferences.CAPTURE_PERIOD_COUNT,
+                HysteresisPreferences.CURRENT_UNIT.getDivisor());
+      }
+
+      int length = rawV1.length;
+      if (cycleVoltage.length != length) {
+        cycleDrive = new double[length];
+        cycleVoltage = new double[length];
+        cycleCurrent = new double[length];
+      }
+      double currentScale =
+          HysteresisPreferences.CURRENT_UNIT.getDivisor() / controlModel.getSeriesResistance();
+      for (int i = 0; i < length; i++) {
+        if (boardVersion == 2) {
+          // driven inverted, see doInBackground()
+          cycleDrive[i] = -rawV1[i];
+          cycleVoltage[i] = -rawV1[i];
+          cycleCurrent[i] = (rawV1[i] - rawV2[i]) * currentScale;
+        } else {
+          cycleDrive[i] = rawV1[i];
+          cycleVoltage[i] = rawV1[i] - rawV2[i];
+          cycleCurrent[i] = rawV2[i] * currentScale;
+        }
+      }
+
+      CycleRecord record =
+          cycleTracker.accept(cycleDrive, cycleVoltage, cycleCurrent, length, polledNanos);
+      if (record == null) {
+        return;
+      }
+      Path path = driftTracePath;
+      if (!isCapturing || path == null) {
+        closeDriftTrace();
+        return;
+      }
+      if (!path.equals(openDriftTracePath)) {
+        closeDriftTrace();
+        try {
+          driftTraceWriter =
+              new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), true);
+        } catch (IOException e) {
+          controlModel.swingPropertyChangeSupport.firePropertyChange(
+              Model.EVENT_NEW_CONSOLE_LOG, null, "Can't write the drift trace to " + path);
+          driftTracePath = null;
+          return;
+        }
+        openDriftTracePath = path;
+        driftTraceWriter.println(HysteresisCycleTracker.CSV_HEADER);
+        controlModel.swingPropertyChangeSupport.firePropertyChange(
+            Model.EVENT_NEW_CONSOLE_LOG, null, "Writing the drift trace to " + path);
+      }
+      driftTraceWriter.println(record.toCsv());
+    }
+
+    private void closeDriftTrace() {
+
+      if (driftTraceWriter != null) {
+        driftTraceWriter.close();
+        driftTraceWriter = null;
+        openDriftTracePath = null;
+      }
+    }
+
     @Override
     
     protected void process(List<double[][]> chunks) {
 
       long start = System.nanoTime();
 
-      if (controlModel.isStartToggled()) {
+      // captures the GUI fell behind on are never shown
+      for (int i = 0; i < chunks.size() - 1; i++) {
+        sampleBufferPool.release(chunks.get(i));
+      }
+      double[][] newestChunk = chunks.get(chunks.size() - 1);
 
-        double[][] newestChunk = chunks.get(chunks.size() - 1);
+      if (controlModel.isStartToggled()) {
 
         if (resultPanel.getCaptureButton().isSelected()) {
           resultController.udpateVtChartData(
@@ -479,6 +572,7 @@ public class HysteresisExperiment extends Experiment {
               controlModel.getAmplitude(),
               controlModel.getOffset());
           resultPanel.switch2CaptureChart();
+          displayedVtChunk = replaceDisplayed(displayedVtChunk, newestChunk);
         } else if (resultPanel.getIVButton().isSelected()) {
           
           if (isCapturing){
@@ -498,10 +592,11 @@ public class HysteresisExperiment extends Experiment {
               BufferedWriter bw = new BufferedWriter(fw);
               String dataInCsv = "voltage,current\n";
 
-              //System.out.println(voltage_data.length);
+              double[] voltageData = newestChunk[1];
+              double[] currentData = newestChunk[2];
               
-              for (int i = 0; i < voltage_data.length; i++){
-                dataInCsv += String.valueOf(voltage_data[i]) + "," + String.valueOf(current_data[i]) + "\n";
+              for (int i = 0; i < voltageData.length; i++){
+                dataInCsv += String.valueOf(voltageData[i]) + "," + String.valueOf(currentData[i]) + "\n";
               }
 
               bw.write(dataInCsv);
@@ -527,6 +622,7 @@ public class HysteresisExperiment extends Experiment {
               controlModel.getAmplitude(),
               controlModel.getOffset());
           resultPanel.switch2IVChart();
+          displayedIVChunk = replaceDisplayed(displayedIVChunk, newestChunk);
         } else {
           boolean result = resultController.updateGVChartData(
               newestChunk[0],
@@ -536,6 +632,7 @@ public class HysteresisExperiment extends Experiment {
               controlModel.getAmplitude(),
               controlModel.getOffset());
           resultPanel.switch2GVChart();
+          displayedGVChunk = replaceDisplayed(displayedGVChunk, newestChunk);
 
           if (!result) {
             controlModel.swingPropertyChangeSupport.firePropertyChange(
@@ -546,6 +643,8 @@ public class HysteresisExperiment extends Experiment {
                     + ". Conductance will not be computed and chart will not display.");
           }
         }
+      } else {
+        sampleBufferPool.release(newestChunk);
       }
 
       // Throttle GUI updates at some FPS rate.
@@ -555,5 +654,14 @@ public class HysteresisExperiment extends Experiment {
       } catch (InterruptedException e) {
       }
     }
+
+    /** Release the chunk a chart was showing once it's been handed a new one. */
+    private double[][] replaceDisplayed(double[][] displayedChunk, double[][] newChunk) {
+
+      if (displayedChunk != newChunk) {
+        sampleBufferPool.release(displayedChunk);
+      }
+      return newChunk;
+    }
   }
 }
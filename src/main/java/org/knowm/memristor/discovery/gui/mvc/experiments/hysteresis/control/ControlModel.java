@@ -100,21 +100,16 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = 1 / (double) frequency * HysteresisPreferences.CAPTURE_PERIOD_COUNT;
     double timeStep =
         1
             / (double) frequency
             * HysteresisPreferences.CAPTURE_PERIOD_COUNT
             / HysteresisPreferences.CAPTURE_BUFFER_SIZE;
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= HysteresisPreferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i;
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    for (int i = 0; i < HysteresisPreferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep;
     }
+    driver.getSignal(0, timeStep, waveformAmplitudeData);
   }
 
   /////////////////////////////////////////////////////////////
@@ -33,7 +33,9 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.swing.JTextField;
 import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
+import org.knowm.memristor.discovery.core.ChartDecimator;
 import org.knowm.memristor.discovery.core.Util;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DecimatingChart;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 
 public class ResultController implements PropertyChangeListener {
@@ -201,8 +203,18 @@ public class ResultController implements PropertyChangeListener {
       double offset) {
 
     resultPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, frequency, offset));
-    resultPanel.getCaptureChart().updateXYSeries("V1(1+)", timeData, captureAmplitudeData1, null);
-    resultPanel.getCaptureChart().updateXYSeries("V2(2+)", timeData, captureAmplitudeData2, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(),
+        resultPanel.getCaptureChartPanel(),
+        "V1(1+)",
+        timeData,
+        captureAmplitudeData1);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(),
+        resultPanel.getCaptureChartPanel(),
+        "V2(2+)",
+        timeData,
+        captureAmplitudeData2);
     resultPanel.getCaptureChartPanel().revalidate();
     resultPanel.getCaptureChartPanel().repaint();
   }
@@ -220,15 +232,19 @@ public class ResultController implements PropertyChangeListener {
 
     resultPanel.getIvChart().setTitle(getIVChartTitle(amplitude, frequency, offset));
 
-    resultPanel.getIvChart().updateXYSeries("Memristor", vMemristor, current, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getIvChart(), resultPanel.getIvChartPanel(), "Memristor", vMemristor, current);
     //    if (!HysteresisPreferences.IS_VIN) {
     //      resultPanel.getIvChart().updateXYSeries("iv", vMemristor, current, null);
     //    } else {
     //      resultPanel.getIvChart().updateXYSeries("iv", captureAmplitudeData1, current, null);
     //    }
-    resultPanel
-        .getIvChart()
-        .updateXYSeries("Resistor+Memristor", captureAmplitudeData1, current, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getIvChart(),
+        resultPanel.getIvChartPanel(),
+        "Resistor+Memristor",
+        captureAmplitudeData1,
+        current);
 
     resultPanel.getIvChartPanel().revalidate();
     resultPanel.getIvChartPanel().repaint();
@@ -244,13 +260,20 @@ public class ResultController implements PropertyChangeListener {
 
     resultPanel.getGvChart().getStyler().setYAxisMax(resultModel.getyMaxGV());
     resultPanel.getGvChart().setTitle(getGVChartTitle(amplitude, frequency, offset));
-    resultPanel.getGvChart().updateXYSeries("Resistor+Memristor", v1, conductance, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getGvChart(),
+        resultPanel.getGvChartPanel(),
+        "Resistor+Memristor",
+        v1,
+        conductance);
 
     // filter out all conductance measurEments less than .02V.
     List<Number> vm = new ArrayList<>();
     List<Number> g = new ArrayList<>();
 
-    for (int i = 0; i < conductance.length; i++) {
+    for (int i :
+        ChartDecimator.minMaxIndices(
+            conductance, ChartDecimator.bucketsFor(resultPanel.getGvChartPanel().getWidth()))) {
       if (Math.abs(vMemristor[i]) > MemristorDiscoveryPreferences.MIN_VOLTAGE_MEASURE_AMPLITUDE) {
         vm.add(vMemristor[i]);
         g.add(conductance[i]);
@@ -24,6 +24,7 @@
 package org.knowm.memristor.discovery.gui.mvc.experiments.ktbitsatsolver;
 
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.DigitalIOTransaction;
 import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
@@ -80,10 +81,10 @@ public class KTRAM_Controller_12 {
 
     double W1Amplitude;
 
-    dWFProxy.turnOffAllSwitches(2);
+    DigitalIOTransaction switches = dWFProxy.beginDigitalIOTransaction().turnOffAllSwitches(2);
 
-    dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikes, true);
-    dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikes, 8, true); // 8 is the offset
+    switches.set(spikePattern.spikes, true);
+    switches.set(spikePattern.spikes, 8, true); // 8 is the offset
 
     // turn off switches and invert pulse if necessary
     if (instruction == Instruction.FLV) {
@@ -98,43 +99,43 @@ public class KTRAM_Controller_12 {
       W1Amplitude = -controlModel.getForwardAmplitude();
 
       // turn off B spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikes, 8, false);
+      switches.set(spikePattern.spikes, 8, false);
 
     } else if (instruction == Instruction.FB) {
       W1Amplitude = -controlModel.getForwardAmplitude();
       // turn off A spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikes, false);
+      switches.set(spikePattern.spikes, false);
 
     } else if (instruction == Instruction.RA) {
       W1Amplitude = controlModel.getReverseAmplitude();
       // turn off B spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikes, 8, false);
+      switches.set(spikePattern.spikes, 8, false);
 
     } else if (instruction == Instruction.RB) {
       W1Amplitude = controlModel.getReverseAmplitude();
       // turn off A spikes
-      dWFProxy.update2DigitalIOStatesAtOnce(spikePattern.spikes, false);
+      switches.set(spikePattern.spikes, false);
 
     } else { // default is forward read.
       W1Amplitude = -.08f;
     }
+    switches.commit();
 
     double[] W1 =
         WaveformUtils.generateCustomWaveform(
             controlModel.getWaveform(), W1Amplitude, controlModel.getCalculatedFrequency());
 
-    dWFProxy
-        .getDwf()
-        .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
-            DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true);
-    dWFProxy.waitUntilArmed();
-    dWFProxy
-        .getDwf()
-        .setCustomPulseTrain(
-            DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
-    dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
-
-    boolean success = dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
+    boolean armed =
+        dWFProxy
+            .armScopeOnWaveformGenerator(
+                DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true)
+            .isDone();
+    dWFProxy.setCustomPulseTrain(
+        DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
+    dWFProxy.startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
+
+    boolean success =
+        armed && dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
     if (success) {
 
       if (instruction == Instruction.FLV || instruction == Instruction.RLV) {
@@ -169,14 +170,10 @@ public class KTRAM_Controller_12 {
 
   private void setVy(double W1Amplitude) {
 
-    int validSamples = dWFProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    double[][] samples = dWFProxy.fetchSamples();
 
-    double peakV1 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples));
-    double peakV2 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples));
+    double peakV1 = Util.maxAbs(samples[0]);
+    double peakV2 = Util.maxAbs(samples[1]);
 
     ////////////////////////////////////////
 
@@ -27,15 +27,20 @@ import java.awt.Container;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Future;
 import javax.swing.JPanel;
 import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
-import org.knowm.memristor.discovery.core.AveMaxMinVar;
+import org.knowm.memristor.discovery.core.CaptureProcessor;
 import org.knowm.memristor.discovery.core.ExpRunAve;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
+import org.knowm.memristor.discovery.core.PulseSegmenter;
+import org.knowm.memristor.discovery.core.RunningStats;
 import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.core.dwf.HardwareExecutor;
+import org.knowm.memristor.discovery.core.dwf.SampleBufferPool;
+import org.knowm.memristor.discovery.core.dwf.WaitResult;
 import org.knowm.memristor.discovery.core.rc_engine.RC_ResistanceComputer;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
@@ -201,6 +206,17 @@ public class PulseExperiment extends Experiment {
 
   private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
 
+    private final SampleBufferPool sampleBufferPool = dwfProxy.getSampleBufferPool();
+
+    /** the read pulse capture on the chart, released when the next one replaces it */
+    private double[][] displayedReadPulseChunk;
+
+    /** the pulses found in the last pulse train capture */
+    private volatile PulseSegmenter.Pulses pulses;
+
+    /** the read pulse, rebuilt in place for every read; the AWG upload copies it */
+    private final double[] readPulseBuffer = new double[WaveformUtils.CUSTOM_WAVEFORM_LENGTH];
+
     @Override
     protected Boolean doInBackground() throws Exception {
 
@@ -215,13 +231,11 @@ public class PulseExperiment extends Experiment {
 
       int bufferSize = samplesPerPulse * controlModel.getPulseNumber() + samplesPerPulse;
 
-      dwfProxy
-          .getDwf()
-          .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      // the scope arms on the hardware thread while the pulse is built here
+      Future<WaitResult> armed =
+          dwfProxy.submitArmScopeOnWaveformGenerator(
               DWF.WAVEFORM_CHANNEL_1, sampleFrequency, bufferSize, isScale2V);
 
-      dwfProxy.waitUntilArmed();
-
       // ////////////////////////////////
       // Pulse Out /////////////////
       // ////////////////////////////////
@@ -243,15 +257,19 @@ public class PulseExperiment extends Experiment {
                 controlModel.getDutyCycle());
       }
 
+      if (!HardwareExecutor.await(armed).isDone()) {
+        dwfProxy.stopAnalogCaptureBothChannels();
+        controlPanel.getStartStopButton().doClick();
+        return false;
+      }
+
       //      System.out.println(Arrays.toString(customWaveform));
-      dwfProxy
-          .getDwf()
-          .startCustomPulseTrain(
-              DWF.WAVEFORM_CHANNEL_1,
-              controlModel.getCalculatedFrequency(),
-              0,
-              controlModel.getPulseNumber(),
-              customWaveform);
+      dwfProxy.startCustomPulseTrain(
+          DWF.WAVEFORM_CHANNEL_1,
+          controlModel.getCalculatedFrequency(),
+          0,
+          controlModel.getPulseNumber(),
+          customWaveform);
 
       // ////////////////////////////////
 
@@ -261,101 +279,48 @@ public class PulseExperiment extends Experiment {
               controlModel.getCalculatedFrequency(), controlModel.getPulseNumber());
       if (!success) {
         // Stop Analog In and Out
-        dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-        dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+        dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
         controlPanel.getStartStopButton().doClick();
         return false;
       }
 
       // Get Raw Data from Oscilloscope
-      int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+      double[][] samples = dwfProxy.fetchSamples();
 
       // Stop Analog In and Out
-      dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-      dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+      dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
+
+      double[] v1 = samples[0];
+      double[] v2 = samples[1];
 
       // /////////////////////////
       // Create Chart Data //////
       // /////////////////////////
 
-      double[][] trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, 0.05, 10);
-      double[] V1Trimmed = trimmedRawData[0];
-      double[] V2Trimmed = trimmedRawData[1];
-      double[] VMemristor = PostProcessDataUtils.getV1MinusV2(V1Trimmed, V2Trimmed);
-      double[] timeData;
-      int bufferLength;
-      double timeStep;
-
-      if (boardVersion == 2) {
-        bufferLength = V1Trimmed.length;
-
-        VMemristor = PostProcessDataUtils.invert(V1Trimmed);
-
-        // create time data
-        timeData = new double[bufferLength];
-        timeStep = 1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor();
-        for (int i = 0; i < bufferLength; i++) {
-          timeData[i] = i * timeStep;
-        }
-
-        // create current data
-        double[] current = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-          current[i] =
-              (V1Trimmed[i] - V2Trimmed[i])
-                  / controlModel.getSeriesResistance()
-                  * PulsePreferences.CURRENT_UNIT.getDivisor();
-        }
-
-        // create conductance data
-        double[] conductance = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-
-          double I = (V1Trimmed[i] - V2Trimmed[i]) / controlModel.getSeriesResistance();
-          double G = I / VMemristor[i] * PulsePreferences.CONDUCTANCE_UNIT.getDivisor();
-          G = G < 0 ? 0 : G;
-          conductance[i] = G;
-        }
-        publish(
-            new double[][] {
-              timeData, V1Trimmed, V2Trimmed, VMemristor, current, conductance, null
-            });
-      } else {
-        bufferLength = V1Trimmed.length;
-
-        // create time data
-        timeData = new double[bufferLength];
-        timeStep = 1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor();
-        for (int i = 0; i < bufferLength; i++) {
-          timeData[i] = i * timeStep;
-        }
-
-        // create current data
-        double[] current = new double[bufferLength];
-        for (int i = 0; i < bufferLength; i++) {
-          current[i] =
-              V2Trimmed[i]
-                  / controlModel.getSeriesResistance()
-                  * PulsePreferences.CURRENT_UNIT.getDivisor();
-        }
-
-        // // create conductance data
-        // double[] conductance = new double[bufferLength];
-        // for (int i = 0; i < bufferLength; i++) {
-        //
-        // double I = V2Trimmed[i] / controlModel.getSeriesResistance();
-        // double G =
-        // I / (V1Trimmed[i] - V2Trimmed[i]) *
-        // PulsePreferences.CONDUCTANCE_UNIT.getDivisor();
-        // G = G < 0 ? 0 : G;
-        // conductance[i] = G;
-        // }
-        publish(new double[][] {timeData, V1Trimmed, V2Trimmed, VMemristor, current, null, null});
-      }
+      CaptureProcessor.Series series =
+          new CaptureProcessor(
+                  boardVersion,
+                  controlModel.getSeriesResistance(),
+                  1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor(),
+                  PulsePreferences.CURRENT_UNIT.getDivisor(),
+                  PulsePreferences.CONDUCTANCE_UNIT.getDivisor())
+              .processActive(v1, v2, 0.05, 10);
+
+      // the source is on channel 2 of V2 boards, channel 1 of the others
+      pulses =
+          new PulseSegmenter(1.0 / sampleFrequency, PulsePreferences.CURRENT_UNIT.getDivisor())
+              .segment(series, boardVersion == 2 ? series.getV2() : series.getV1());
+
+      publish(
+          new double[][] {
+            series.getTime(),
+            series.getV1(),
+            series.getV2(),
+            series.getVMemristor(),
+            series.getCurrent(),
+            boardVersion == 2 ? series.getConductance() : null,
+            null
+          });
 
       while (!initialPulseTrainCaptured) {
         // System.out.println("Waiting...");
@@ -372,8 +337,7 @@ public class PulseExperiment extends Experiment {
           Thread.sleep(controlModel.getSampleRate() * 1000);
         } catch (InterruptedException e) {
           // eat it. caught when interrupt is called
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+          dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
         }
 
         // ////////////////////////////////
@@ -388,11 +352,9 @@ public class PulseExperiment extends Experiment {
         bufferSize = 4096; // samplesPerPulse * 2;
         // sampleFrequency = 1 / ((pulseWidthInNS * 1E-9) / 2048);
 
-        dwfProxy
-            .getDwf()
-            .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+        armed =
+            dwfProxy.submitArmScopeOnWaveformGenerator(
                 DWF.WAVEFORM_CHANNEL_1, sampleFrequency, bufferSize, true);
-        dwfProxy.waitUntilArmed();
 
         //////////////////////////////////
         // Pulse Out /////////////////
@@ -401,9 +363,16 @@ public class PulseExperiment extends Experiment {
         // read pulse approximately: 0.1 V, 10 us pulse width
 
         customWaveform =
-            WaveformUtils.generateCustomWaveform(Waveform.Square, readPulseAmplitude, f);
+            WaveformUtils.generateCustomWaveform(
+                Waveform.Square, readPulseAmplitude, f, readPulseBuffer);
 
-        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, f, 0, 1, customWaveform);
+        if (!HardwareExecutor.await(armed).isDone()) {
+          dwfProxy.stopAnalogCaptureBothChannels();
+          controlPanel.getStartStopButton().doClick();
+          return false;
+        }
+
+        dwfProxy.startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, f, 0, 1, customWaveform);
 
         // Read In Data
         success = dwfProxy.capturePulseData(f, 1);
@@ -411,16 +380,15 @@ public class PulseExperiment extends Experiment {
         if (!success) {
 
           // Stop Analog In and Out
-          dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-          dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+          dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
           controlPanel.getStartStopButton().doClick();
           return false;
         } else {
 
-          // Get Raw Data from Oscilloscope
-          validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-          v1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-          v2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+          // Get Raw Data from Oscilloscope, into pooled arrays released once they're off the chart
+          samples = dwfProxy.fetchPooledSamples();
+          v1 = samples[0];
+          v2 = samples[1];
 
           // /////////////////////////
           // Create Chart Data //////
@@ -430,17 +398,18 @@ public class PulseExperiment extends Experiment {
           // V1Trimmed = trimmedRawData[0];
           // V2Trimmed = trimmedRawData[1];
 
+          int bufferLength = v1.length;
+
+          double[] VMemristor = sampleBufferPool.acquire(bufferLength);
           if (boardVersion == 2) {
-            VMemristor = PostProcessDataUtils.invert(v1);
+            PostProcessDataUtils.invert(v1, VMemristor);
           } else {
-            VMemristor = PostProcessDataUtils.getV1MinusV2(v1, v2);
+            PostProcessDataUtils.getV1MinusV2(v1, v2, VMemristor);
           }
 
-          bufferLength = v1.length;
-
           // create time data
-          timeData = new double[bufferLength];
-          timeStep = 1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor();
+          double[] timeData = sampleBufferPool.acquire(bufferLength);
+          double timeStep = 1.0 / sampleFrequency * PulsePreferences.TIME_UNIT.getDivisor();
           for (int i = 0; i < bufferLength; i++) {
             timeData[i] = i * timeStep;
           }
@@ -449,10 +418,9 @@ public class PulseExperiment extends Experiment {
           initResistanceComputer();
           double resistance = rcComputer.getRFromV(ad2BugCalibrationValues.getReadPulseVoltage());
 
-          double[] conductanceAve =
-              new double[] {
-                (1 / resistance) * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor()
-              };
+          double[] conductanceAve = sampleBufferPool.acquire(1);
+          conductanceAve[0] =
+              (1 / resistance) * ConductancePreferences.CONDUCTANCE_UNIT.getDivisor();
 
           if (boardVersion == 2) {
             publish(new double[][] {timeData, v1, v2, VMemristor, null, null, conductanceAve});
@@ -461,8 +429,7 @@ public class PulseExperiment extends Experiment {
           }
         }
         // Stop Analog In and Out
-        dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
-        dwfProxy.getDwf().stopAnalogCaptureBothChannels();
+        dwfProxy.stopWaveAndCapture(DWF.WAVEFORM_CHANNEL_1);
       }
       return true;
     }
@@ -472,6 +439,13 @@ public class PulseExperiment extends Experiment {
 
       double[][] newestChunk = chunks.get(chunks.size() - 1);
 
+      // read pulse captures the GUI fell behind on are never shown
+      for (int i = 0; i < chunks.size() - 1; i++) {
+        if (chunks.get(i)[6] != null) {
+          sampleBufferPool.release(chunks.get(i));
+        }
+      }
+
       if (newestChunk[6] == null) {
         initialPulseTrainCaptured = true;
 
@@ -487,6 +461,27 @@ public class PulseExperiment extends Experiment {
             newestChunk[4],
             controlModel.getPulseWidth(),
             controlModel.getAmplitude());
+        resultController.updatePulsePeaks(newestChunk[0], pulses);
+
+        controlModel.setMeasuredEnergy(
+            pulses.getCount() > 0 ? pulses.getTotalEnergy() : Double.NaN);
+        controlModel.updateEnergyData();
+        controlPanel.updateEnergyGUI(
+            controlModel.getAmplitude(),
+            controlModel.getAppliedCurrent(),
+            controlModel.getAppliedEnergy());
+        getControlModel()
+            .swingPropertyChangeSupport
+            .firePropertyChange(
+                Model.EVENT_NEW_CONSOLE_LOG,
+                null,
+                pulses.getCount()
+                    + " of "
+                    + controlModel.getPulseNumber()
+                    + " pulses measured:\n"
+                    + pulses.toCsv(
+                        PulsePreferences.CURRENT_UNIT.getLabel(),
+                        PulsePreferences.CONDUCTANCE_UNIT.getLabel()));
 
         if (resultPanel.getCaptureButton().isSelected()) {
           resultPanel.switch2CaptureChart();
@@ -511,6 +506,8 @@ public class PulseExperiment extends Experiment {
             controlModel.getPulseWidth(),
             controlModel.getAmplitude());
         resultController.repaintReadPulseCaptureChart();
+        sampleBufferPool.release(displayedReadPulseChunk);
+        displayedReadPulseChunk = newestChunk;
 
         // update G chart
         controlModel.setLastG(newestChunk[6][0]);
@@ -566,23 +563,20 @@ public class PulseExperiment extends Experiment {
   private void updateReadPulseVoltageAndOffsets(double[] v2, double[] v1) {
 
     try {
-      double[] xz = Arrays.copyOfRange(v2, 3097, 4097);
-      AveMaxMinVar statz = new AveMaxMinVar(xz);
-      ad2BugCalibrationValues.setReadPulseZeroOffset(statz.getAve());
-
-      double[] x = Arrays.copyOfRange(v2, 960, 1020);
-      AveMaxMinVar stat = new AveMaxMinVar(x);
-      ad2BugCalibrationValues.setReadPulseOffset(stat.getAve());
-
-      double[] xv = Arrays.copyOfRange(v1, 1010, 1020);
-      AveMaxMinVar statv = new AveMaxMinVar(xv);
-      ad2BugCalibrationValues.setReadPulseVoltage(statv.getAve());
-
-      double[] xvi =
-          Arrays.copyOfRange(v1, 3097, 4097); // take from the end because the start can get clipped
-      // for big pulses.
-      AveMaxMinVar statvi = new AveMaxMinVar(xvi);
-      ad2BugCalibrationValues.setReadPulseInitialVoltage(statvi.getAve());
+      // the settled tail after the read pulse, on both channels in one pass. Taken from the end
+      // because the start can get clipped for big pulses.
+      RunningStats zeroOffset = new RunningStats();
+      RunningStats initialVoltage = new RunningStats();
+      for (int i = 3097, end = Math.min(4097, v1.length); i < end; i++) {
+        zeroOffset.add(v2[i]);
+        initialVoltage.add(v1[i]);
+      }
+      ad2BugCalibrationValues.setReadPulseZeroOffset((float) zeroOffset.getAve());
+      ad2BugCalibrationValues.setReadPulseInitialVoltage((float) initialVoltage.getAve());
+
+      ad2BugCalibrationValues.setReadPulseOffset((float) RunningStats.of(v2, 960, 1020).getAve());
+      ad2BugCalibrationValues.setReadPulseVoltage(
+          (float) RunningStats.of(v1, 1010, 1020).getAve());
 
       double pulseAmp =
           ad2BugCalibrationValues.getReadPulseOffset()
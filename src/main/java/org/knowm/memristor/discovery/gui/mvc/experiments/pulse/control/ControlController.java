@@ -351,6 +351,8 @@ public class ControlController extends Controller {
 
       case Model.EVENT_WAVEFORM_UPDATE:
         controlModel.updateWaveformChartData();
+        // a measurement of the old pulse train says nothing about the new one
+        controlModel.setMeasuredEnergy(Double.NaN);
         controlModel.updateEnergyData();
         controlPanel.updateEnergyGUI(
             controlModel.getAmplitude(),
@@ -54,6 +54,7 @@ public class ControlModel extends Model {
   private int pulseNumber;
   private double appliedCurrent;
   private double appliedEnergy;
+  private double measuredEnergy = Double.NaN;
   private double lastG;
   private int sampleRate;
 
@@ -126,21 +127,15 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = driver.getPeriod() * pulseNumber;
     double timeStep = driver.getPeriod() / PulsePreferences.CAPTURE_BUFFER_SIZE * pulseNumber;
 
     //    System.out.println("driver.getPeriod()=" + driver.getPeriod());
-    //    System.out.println("stopTime=" + stopTime);
     //    System.out.println("timeStep=" + timeStep);
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= PulsePreferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i * PulsePreferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    for (int i = 0; i < PulsePreferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * PulsePreferences.TIME_UNIT.getDivisor();
     }
+    driver.getSignal(0, timeStep, waveformAmplitudeData);
   }
 
   /////////////////////////////////////////////////////////////
@@ -265,12 +260,28 @@ public class ControlModel extends Model {
     return ohmFormatter.format(getLastR());
   }
 
+  /**
+   * @param measuredEnergy - of the last captured pulse train in J, NaN to fall back on the estimate
+   */
+  public void setMeasuredEnergy(double measuredEnergy) {
+
+    this.measuredEnergy = measuredEnergy;
+  }
+
+  /**
+   * Work out the current and energy the pulse train applies. The energy is the one measured off
+   * the last capture if there is one, otherwise an estimate from the last read resistance.
+   */
   public void updateEnergyData() {
 
     this.appliedCurrent =
         amplitude
             / (getLastR() + seriesResistance + Util.getSwitchesSeriesResistance())
             * PulsePreferences.CURRENT_UNIT.getDivisor();
+    if (!Double.isNaN(measuredEnergy)) {
+      this.appliedEnergy = measuredEnergy;
+      return;
+    }
     this.appliedEnergy =
         amplitude
             * amplitude
@@ -25,7 +25,10 @@ package org.knowm.memristor.discovery.gui.mvc.experiments.pulse.result;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import org.knowm.memristor.discovery.core.PulseSegmenter;
 import org.knowm.memristor.discovery.core.Util;
+import org.knowm.memristor.discovery.gui.mvc.experiments.DecimatingChart;
+import org.knowm.xchart.XYSeries;
 
 public class ResultController {
 
@@ -145,9 +148,16 @@ public class ResultController {
       double amplitude) {
 
     resultPanel.getCaptureChart().setTitle(getVtChartTitle(amplitude, pulseWidth));
-    resultPanel.getCaptureChart().updateXYSeries("V1(1+)", timeData, v1, null);
-    resultPanel.getCaptureChart().updateXYSeries("V2(2+)", timeData, v2, null);
-    resultPanel.getCaptureChart().updateXYSeries("V_Memristor", timeData, v1Minusv2, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(), resultPanel.getCaptureChartPanel(), "V1(1+)", timeData, v1);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(), resultPanel.getCaptureChartPanel(), "V2(2+)", timeData, v2);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getCaptureChart(),
+        resultPanel.getCaptureChartPanel(),
+        "V_Memristor",
+        timeData,
+        v1Minusv2);
   }
 
   public void updateIVChartData(
@@ -157,7 +167,27 @@ public class ResultController {
     resultPanel.getITChart().getStyler().setYAxisMin(resultModel.getyMinIV());
 
     resultPanel.getITChart().setTitle(getIVChartTitle(amplitude, pulseWidth));
-    resultPanel.getITChart().updateXYSeries("it", timeData, current, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getITChart(), resultPanel.getITChartPanel(), "it", timeData, current);
+  }
+
+  /**
+   * Mark each pulse's peak current on the I-T chart.
+   *
+   * @param timeData - the time series the pulses were found in
+   * @param pulses
+   */
+  public void updatePulsePeaks(double[] timeData, PulseSegmenter.Pulses pulses) {
+
+    XYSeries series = resultPanel.getITChart().getSeriesMap().get("pulse peaks");
+    if (pulses.getCount() == 0) {
+      series.setEnabled(false);
+      return;
+    }
+    series.setEnabled(true);
+    resultPanel
+        .getITChart()
+        .updateXYSeries("pulse peaks", pulses.atPeaks(timeData), pulses.getPeakCurrents(), null);
   }
 
   public void updateReadPulseCaptureChartData(
@@ -170,11 +200,24 @@ public class ResultController {
 
     //  System.out.println("ResultController().updateReadPulseCaptureChartData()");
 
-    resultPanel.getReadPulseCaptureChart().updateXYSeries("V1(1+)", timeData, v1, null);
-    resultPanel.getReadPulseCaptureChart().updateXYSeries("V2(2+)", timeData, v2, null);
-    resultPanel
-        .getReadPulseCaptureChart()
-        .updateXYSeries("V_Memristor", timeData, vMemristor, null);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getReadPulseCaptureChart(),
+        resultPanel.getReadPulseCaptureChartPanel(),
+        "V1(1+)",
+        timeData,
+        v1);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getReadPulseCaptureChart(),
+        resultPanel.getReadPulseCaptureChartPanel(),
+        "V2(2+)",
+        timeData,
+        v2);
+    DecimatingChart.updateXYSeries(
+        resultPanel.getReadPulseCaptureChart(),
+        resultPanel.getReadPulseCaptureChartPanel(),
+        "V_Memristor",
+        timeData,
+        vMemristor);
   }
 
   public void updateGChartData(double conductance, double resistance, String resistanceAsString) {
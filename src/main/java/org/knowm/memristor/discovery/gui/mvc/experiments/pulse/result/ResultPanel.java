@@ -131,6 +131,9 @@ public class ResultPanel extends JPanel {
     iTChart.getStyler().setLegendVisible(false);
     iTChart.getStyler().setDefaultSeriesRenderStyle(XYSeriesRenderStyle.Scatter);
     iTChart.addSeries("it", new double[] {0}, new double[] {0});
+    series = iTChart.addSeries("pulse peaks", new double[] {0}, new double[] {0});
+    series.setMarker(SeriesMarkers.DIAMOND);
+    series.setEnabled(false);
     iTChartPanel = new XChartPanel<>(iTChart);
 
     /////////////////////////////////////////////////////////////
@@ -33,7 +33,10 @@ import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import javax.swing.JPanel;
 import javax.swing.SwingWorker;
@@ -41,6 +44,7 @@ import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils.MemristorTestResult;
 import org.knowm.memristor.discovery.core.Util;
+import org.knowm.memristor.discovery.core.experiment_common.ParallelBoards;
 import org.knowm.memristor.discovery.core.experiment_common.PulseUtility;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
@@ -71,8 +75,9 @@ public class ShelfLifeExperiment extends Experiment {
   // SwingWorkers
   private SwingWorker experimentCaptureWorker;
 
-  private MuxController muxController;
-  private PulseUtility pulseUtility;
+  // one per board, all run side by side
+  private final List<DWFProxy> dwfProxies;
+  private final List<PulseUtility> pulseUtilities = new ArrayList<>();
 
   private static final float VOLTAGE_READ_NOISE_FLOOR =
       .001f; // if the measured voltage across series resistor is less than this, you are getting
@@ -83,7 +88,22 @@ public class ShelfLifeExperiment extends Experiment {
   /** Constructor */
   public ShelfLifeExperiment(DWFProxy dwfProxy, Container mainFrameContainer, int boardVersion) {
 
-    super(dwfProxy, mainFrameContainer, boardVersion);
+    this(Collections.singletonList(dwfProxy), mainFrameContainer, boardVersion);
+  }
+
+  /**
+   * Constructor for testing several boards at once. The first board is the one the control panel
+   * drives; every board gets the same pulses and its own rows in the data file.
+   *
+   * @param dwfProxies - one per board, see {@link DWFProxy#createAll(int)}
+   * @param mainFrameContainer
+   * @param boardVersion
+   */
+  public ShelfLifeExperiment(
+      List<DWFProxy> dwfProxies, Container mainFrameContainer, int boardVersion) {
+
+    super(dwfProxies.get(0), mainFrameContainer, boardVersion);
+    this.dwfProxies = dwfProxies;
 
     controlModel = new ControlModel();
     controlPanel = new ControlPanel();
@@ -94,10 +114,15 @@ public class ShelfLifeExperiment extends Experiment {
     new ControlController(controlPanel, controlModel, dwfProxy);
     resultController = new ResultController(resultPanel, resultModel);
 
-    muxController = new MuxController();
-    pulseUtility =
-        new PulseUtility(
-            boardVersion, controlModel, dwfProxy, muxController, VOLTAGE_READ_NOISE_FLOOR);
+    for (DWFProxy boardProxy : dwfProxies) {
+      pulseUtilities.add(
+          new PulseUtility(
+              boardVersion,
+              controlModel,
+              boardProxy,
+              new MuxController(),
+              VOLTAGE_READ_NOISE_FLOOR));
+    }
   }
 
   @Override
@@ -214,6 +239,7 @@ public class ShelfLifeExperiment extends Experiment {
         printWriter.println("EXPERIMENT INFO");
         printWriter.println(" DataFile: " + dataFileName);
         printWriter.println(" Start Date : " + timeString);
+        printWriter.println(" Boards : " + dwfProxies.size());
         printWriter.println(" Series Resistor : " + seriesResistor + "Ω");
         printWriter.println(" Measurment Interval : " + repeatInterval + " " + timeUnit);
         printWriter.println(" Read Voltage : " + V_READ + "V");
@@ -253,6 +279,10 @@ public class ShelfLifeExperiment extends Experiment {
         StringBuilder csvBuilder = new StringBuilder();
         csvBuilder.append("Time");
         csvBuilder.append(",");
+        if (dwfProxies.size() > 1) {
+          csvBuilder.append("Board");
+          csvBuilder.append(",");
+        }
         csvBuilder.append("SwitchTest");
 
         int N = boardVersion == 2 ? 17 : 9;
@@ -273,67 +303,92 @@ public class ShelfLifeExperiment extends Experiment {
         printWriter.println(csvString);
         printWriter.flush();
 
-        while (!isCancelled()) {
-
-          float[][] reads;
-
-          if (boardVersion == 2) {
-            reads =
-                pulseUtility.testMeminline(
-                    Waveform.HalfSine,
-                    -V_WRITE,
-                    -V_ERASE,
-                    -V_READ,
-                    PULSE_WIDTH_READ,
-                    PULSE_WIDTH_WRITE,
-                    PULSE_WIDTH_ERASE);
-          } else {
-            reads =
-                pulseUtility.testMeminline(
-                    Waveform.HalfSine,
-                    V_WRITE,
-                    V_ERASE,
-                    V_READ,
-                    PULSE_WIDTH_READ,
-                    PULSE_WIDTH_WRITE,
-                    PULSE_WIDTH_ERASE);
-          }
-
-          MemristorTestResult[] result =
-              PostProcessDataUtils.categorizeMemristorTestReads(
-                  reads, minEraseResistance, maxWriteResistance, 150f);
-
-          csvBuilder = new StringBuilder();
-          csvBuilder.append(dateFormat.format(new Date()));
-          csvBuilder.append(",");
-          csvBuilder.append(result[0]);
-
-          for (int i = 1; i < N; i++) {
-            csvBuilder.append(",");
-            csvBuilder.append(formatResistance(reads[0][i]));
-            csvBuilder.append(",");
-            csvBuilder.append(formatResistance(reads[1][i]));
-            csvBuilder.append(",");
-            csvBuilder.append(formatResistance(reads[2][i]));
-            csvBuilder.append(",");
-            csvBuilder.append(result[i]);
-          }
-
-          csvString = csvBuilder.toString();
-
-          // CSV to console
-          resultController.addNewLine(csvString);
+        try (ParallelBoards parallelBoards = new ParallelBoards(dwfProxies)) {
+          while (!isCancelled()) {
+
+            List<float[][]> boardReads =
+                parallelBoards.runOnAll(
+                    (boardIndex, dwfProxy) -> {
+                      PulseUtility pulseUtility = pulseUtilities.get(boardIndex);
+                      float[][] reads;
+                      if (boardVersion == 2) {
+                        reads =
+                            pulseUtility.testMeminline(
+                                Waveform.HalfSine,
+                                -V_WRITE,
+                                -V_ERASE,
+                                -V_READ,
+                                PULSE_WIDTH_READ,
+                                PULSE_WIDTH_WRITE,
+                                PULSE_WIDTH_ERASE);
+                      } else {
+                        reads =
+                            pulseUtility.testMeminline(
+                                Waveform.HalfSine,
+                                V_WRITE,
+                                V_ERASE,
+                                V_READ,
+                                PULSE_WIDTH_READ,
+                                PULSE_WIDTH_WRITE,
+                                PULSE_WIDTH_ERASE);
+                      }
+                      if (reads == null) {
+                        throw new IllegalStateException("pulse capture failed");
+                      }
+                      return reads;
+                    },
+                    (boardIndex, cause) -> {
+                      // record the board as NaN and keep the run going on the others
+                      controlModel.swingPropertyChangeSupport.firePropertyChange(
+                          Model.EVENT_NEW_CONSOLE_LOG,
+                          null,
+                          "Board " + boardIndex + " failed: " + cause.getMessage());
+                      return PulseUtility.failedMeminlineReads(N);
+                    });
+
+            String time = dateFormat.format(new Date());
+            for (int boardIndex = 0; boardIndex < boardReads.size(); boardIndex++) {
+
+              float[][] reads = boardReads.get(boardIndex);
+              boolean failed = Float.isNaN(reads[0][0]);
+              MemristorTestResult[] result =
+                  failed
+                      ? null
+                      : PostProcessDataUtils.categorizeMemristorTestReads(
+                          reads, minEraseResistance, maxWriteResistance, 150f);
+
+              csvBuilder = new StringBuilder();
+              csvBuilder.append(time);
+              csvBuilder.append(",");
+              if (boardReads.size() > 1) {
+                csvBuilder.append(boardIndex);
+                csvBuilder.append(",");
+              }
+              csvBuilder.append(failed ? "NaN" : result[0]);
+
+              for (int i = 1; i < N; i++) {
+                csvBuilder.append(",");
+                csvBuilder.append(formatResistance(reads[0][i]));
+                csvBuilder.append(",");
+                csvBuilder.append(formatResistance(reads[1][i]));
+                csvBuilder.append(",");
+                csvBuilder.append(formatResistance(reads[2][i]));
+                csvBuilder.append(",");
+                csvBuilder.append(failed ? "NaN" : result[i]);
+              }
 
-          // MemristorTestResult[] result = PostProcessDataUtils.categorizeMemristorTestReads(reads,
-          // minEraseResistance, maxWriteResistance, 1000f);
+              csvString = csvBuilder.toString();
 
-          // resultController.addNewLine(Arrays.toString(result));
+              // CSV to console
+              resultController.addNewLine(csvString);
 
-          // CSV to file
-          printWriter.println(csvString);
-          printWriter.flush();
+              // CSV to file
+              printWriter.println(csvString);
+            }
+            printWriter.flush();
 
-          Thread.sleep(controlModel.getTimeUnit().toMillis(controlModel.getRepeatInterval()));
+            Thread.sleep(controlModel.getTimeUnit().toMillis(controlModel.getRepeatInterval()));
+          }
         }
       }
       return true;
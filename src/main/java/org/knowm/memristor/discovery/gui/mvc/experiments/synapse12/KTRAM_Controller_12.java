@@ -26,6 +26,7 @@ package org.knowm.memristor.discovery.gui.mvc.experiments.synapse12;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.core.dwf.SwitchSchedule;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.synapse12.control.ControlModel;
 import org.knowm.waveforms4j.DWF;
@@ -41,6 +42,9 @@ public class KTRAM_Controller_12 {
   private int switchA;
   private int switchB;
 
+  /** the board's analog switches settle in microseconds, this leaves a wide margin */
+  private static final long SWITCH_SETTLE_NANOS = 100_000;
+
   public KTRAM_Controller_12(ControlModel controlModel) {
 
     this.controlModel = controlModel;
@@ -112,7 +116,10 @@ public class KTRAM_Controller_12 {
 
     double W1Amplitude;
 
-    // turn off switches and invert pulse if necessary
+    // turn off switches and invert pulse if necessary. The switches go back on as soon as the
+    // capture is done, all in one switch schedule on the hardware thread
+    int states = dWFProxy.getDigitalIOStates();
+    int pulseStates = states;
 
     if (instruction == Instruction12.FLV) {
       W1Amplitude = -.08f;
@@ -124,16 +131,16 @@ public class KTRAM_Controller_12 {
       W1Amplitude = controlModel.getReverseAmplitude();
     } else if (instruction == Instruction12.FA) {
       W1Amplitude = -controlModel.getForwardAmplitude();
-      dWFProxy.update2DigitalIOStatesAtOnce(switchB, false);
+      pulseStates &= ~(1 << switchB);
     } else if (instruction == Instruction12.FB) {
       W1Amplitude = -controlModel.getForwardAmplitude();
-      dWFProxy.update2DigitalIOStatesAtOnce(switchA, false);
+      pulseStates &= ~(1 << switchA);
     } else if (instruction == Instruction12.RA) {
       W1Amplitude = controlModel.getReverseAmplitude();
-      dWFProxy.update2DigitalIOStatesAtOnce(switchB, false);
+      pulseStates &= ~(1 << switchB);
     } else if (instruction == Instruction12.RB) {
       W1Amplitude = controlModel.getReverseAmplitude();
-      dWFProxy.update2DigitalIOStatesAtOnce(switchA, false);
+      pulseStates &= ~(1 << switchA);
     } else { // default is forward read.
       W1Amplitude = -.08f;
     }
@@ -142,18 +149,17 @@ public class KTRAM_Controller_12 {
         WaveformUtils.generateCustomWaveform(
             controlModel.getWaveform(), W1Amplitude, controlModel.getCalculatedFrequency());
 
-    dWFProxy
-        .getDwf()
-        .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
-            DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true);
-    dWFProxy.waitUntilArmed();
-    dWFProxy
-        .getDwf()
-        .setCustomPulseTrain(
-            DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
-    dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
-
-    boolean success = dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
+    double[][][] captures =
+        dWFProxy.captureSwitchSchedule(
+            new SwitchSchedule(new int[] {pulseStates}, states, SWITCH_SETTLE_NANOS),
+            DWF.WAVEFORM_CHANNEL_1,
+            controlModel.getCalculatedFrequency() * 300,
+            300 * 1,
+            controlModel.getCalculatedFrequency(),
+            W1);
+
+    // a completed capture means the AWG pulse has played out
+    boolean success = captures[0] != null;
     if (success) {
 
       if (instruction == Instruction12.FLV || instruction == Instruction12.RLV) {
@@ -168,27 +174,16 @@ public class KTRAM_Controller_12 {
               Model.EVENT_NEW_CONSOLE_LOG,
               null,
               "Capture has failed! This is usually due to noise/interference. Try a shorter cable or use a magnetic choke.");
-    }
-
-    // turn back on switches
-    if (instruction == Instruction12.FA) {
-      dWFProxy.update2DigitalIOStatesAtOnce(switchB, true);
-    } else if (instruction == Instruction12.FB) {
-      dWFProxy.update2DigitalIOStatesAtOnce(switchA, true);
-    } else if (instruction == Instruction12.RA) {
-      dWFProxy.update2DigitalIOStatesAtOnce(switchB, true);
-    } else if (instruction == Instruction12.RB) {
-      dWFProxy.update2DigitalIOStatesAtOnce(switchA, true);
-    }
 
-    /*
-     * must wait here to allow pulses from AWG to finish. Should take no more that
-     * one ms...
-     */
-    try {
-      Thread.sleep(1);
-    } catch (InterruptedException e) {
+      /*
+       * must wait here to allow pulses from AWG to finish. Should take no more that
+       * one ms...
+       */
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
 
+      }
     }
   }
 
@@ -199,14 +194,10 @@ public class KTRAM_Controller_12 {
 
   private void setVy(double W1Amplitude) {
 
-    int validSamples = dWFProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    double[][] samples = dWFProxy.fetchSamples();
 
-    double peakV1 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples));
-    double peakV2 =
-        Util.maxAbs(
-            dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples));
+    double peakV1 = Util.maxAbs(samples[0]);
+    double peakV2 = Util.maxAbs(samples[1]);
 
     ////////////////////////////////////////
 
@@ -0,0 +1,229 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SampleKernels} on the JDK 17 Vector API. Each loop runs a full vector at a time and
+ * finishes the tail with the scalar code, and every result matches the scalar kernels bit for bit.
+ * On JDK 17 the JIT already vectorizes the scalar negate and subtract and the hand written ones are
+ * slower, so those stay scalar; zeroIdle and maxAbs only pay off from {@link #VECTOR_MIN_LENGTH}
+ * samples up, and shorter arrays go to the scalar kernels.
+ * Loaded by reflection from {@link SampleKernelsLoader}, so a runtime without the incubator module
+ * falls back to the scalar kernels.
+ */
+class VectorSampleKernels implements SampleKernels {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+
+  /** below this many samples, e.g. a single scope buffer, the scalar zeroIdle and maxAbs win */
+  private static final int VECTOR_MIN_LENGTH = 16384;
+
+  /** samples {@link #maxAbs(double[])} reduces at a time */
+  private static final int MAX_ABS_BLOCK = LANES * 16;
+
+  /** 0, 1, 2 ... one per lane, for the time series */
+  private static final DoubleVector LANE_INDEX = DoubleVector.zero(SPECIES).addIndex(1);
+
+  private final ScalarSampleKernels scalar = ScalarSampleKernels.INSTANCE;
+
+  @Override
+  public String getName() {
+
+    return "vector(" + LANES + " lanes)";
+  }
+
+  @Override
+  public void negate(double[] v, double[] out, int length) {
+
+    scalar.negate(v, out, length);
+  }
+
+  @Override
+  public void subtract(double[] a, double[] b, double[] out, int length) {
+
+    scalar.subtract(a, b, out, length);
+  }
+
+  /**
+   * After the scalar loop has run, out[i] holds v2[i] only where samples i and i + 1 are both
+   * active (or i is the second to last sample and active), so that's what is computed here, a
+   * vector at a time.
+   */
+  @Override
+  public void zeroIdle(double[] v1, double[] v2, double vThresholdAbs, double[] out) {
+
+    int n = out.length;
+    if (n < VECTOR_MIN_LENGTH) {
+      scalar.zeroIdle(v1, v2, vThresholdAbs, out);
+      return;
+    }
+
+    out[0] = 0;
+    out[n - 1] = 0;
+    int i = 1;
+    for (; i + LANES <= n - 2; i += LANES) {
+      VectorMask<Double> active =
+          DoubleVector.fromArray(SPECIES, v1, i).abs().compare(VectorOperators.GT, vThresholdAbs);
+      VectorMask<Double> nextActive =
+          DoubleVector.fromArray(SPECIES, v1, i + 1)
+              .abs()
+              .compare(VectorOperators.GT, vThresholdAbs);
+      DoubleVector.zero(SPECIES)
+          .blend(DoubleVector.fromArray(SPECIES, v2, i), active.and(nextActive))
+          .intoArray(out, i);
+    }
+    for (; i < n - 2; i++) {
+      out[i] =
+          Math.abs(v1[i]) > vThresholdAbs && Math.abs(v1[i + 1]) > vThresholdAbs ? v2[i] : 0;
+    }
+    out[n - 2] = Math.abs(v1[n - 2]) > vThresholdAbs ? v2[n - 2] : 0;
+  }
+
+  /**
+   * Finds the largest magnitude a block at a time, remembering which block it came from, so only
+   * that block has to be searched again for the element itself.
+   */
+  @Override
+  public double maxAbs(double[] x) {
+
+    if (x.length < VECTOR_MIN_LENGTH) {
+      return scalar.maxAbs(x);
+    }
+    double max = Float.MIN_VALUE;
+    int maxBlock = -1;
+    int i = 0;
+    for (; i + MAX_ABS_BLOCK <= x.length; i += MAX_ABS_BLOCK) {
+      DoubleVector blockMaxVector = DoubleVector.fromArray(SPECIES, x, i).abs();
+      for (int j = LANES; j < MAX_ABS_BLOCK; j += LANES) {
+        blockMaxVector = blockMaxVector.max(DoubleVector.fromArray(SPECIES, x, i + j).abs());
+      }
+      double blockMax = blockMaxVector.reduceLanes(VectorOperators.MAX);
+      if (Double.isNaN(blockMax)) {
+        // NaNs are skipped by the scalar comparison but poison a vector max
+        return scalar.maxAbs(x);
+      }
+      if (blockMax > max) {
+        max = blockMax;
+        maxBlock = i;
+      }
+    }
+
+    double b = 0;
+    boolean inTail = false;
+    for (; i < x.length; i++) {
+      double a = Math.abs(x[i]);
+      if (a > max) {
+        max = a;
+        b = x[i];
+        inTail = true;
+      }
+    }
+    if (inTail || maxBlock < 0) {
+      return b;
+    }
+    for (int j = maxBlock; j < maxBlock + MAX_ABS_BLOCK; j++) {
+      if (Math.abs(x[j]) == max) {
+        return x[j];
+      }
+    }
+    return b;
+  }
+
+  @Override
+  public void deriveSeries(
+      double[] v1,
+      double[] v2,
+      int offset,
+      int length,
+      boolean isV2Board,
+      boolean swapChannels,
+      double timeStep,
+      double currentScale,
+      double conductanceScale,
+      double[][] out) {
+
+    double[] time = out[0];
+    double[] outV1 = out[1];
+    double[] outV2 = out[2];
+    double[] vMemristor = out[3];
+    double[] current = out[4];
+    double[] conductance = out[5];
+    boolean swap = isV2Board && swapChannels;
+
+    int i = 0;
+    for (int upperBound = SPECIES.loopBound(length); i < upperBound; i += LANES) {
+
+      DoubleVector a = DoubleVector.fromArray(SPECIES, v1, offset + i);
+      DoubleVector b = DoubleVector.fromArray(SPECIES, v2, offset + i);
+
+      DoubleVector dv;
+      DoubleVector vm;
+      if (isV2Board) {
+        dv = a.sub(b);
+        vm = a.neg();
+      } else {
+        dv = b;
+        vm = a.sub(b);
+      }
+      DoubleVector g = dv.div(vm).mul(conductanceScale);
+
+      LANE_INDEX.add(i).mul(timeStep).intoArray(time, i);
+      (swap ? b.neg() : a).intoArray(outV1, i);
+      (swap ? a.neg() : b).intoArray(outV2, i);
+      vm.intoArray(vMemristor, i);
+      dv.mul(currentScale).intoArray(current, i);
+      g.blend(0, g.compare(VectorOperators.LT, 0)).intoArray(conductance, i);
+    }
+
+    for (; i < length; i++) {
+
+      double a = v1[offset + i];
+      double b = v2[offset + i];
+
+      double dv;
+      double vm;
+      if (isV2Board) {
+        dv = a - b;
+        vm = -a;
+      } else {
+        dv = b;
+        vm = a - b;
+      }
+      double g = dv / vm * conductanceScale;
+
+      time[i] = i * timeStep;
+      outV1[i] = swap ? -b : a;
+      outV2[i] = swap ? -a : b;
+      vMemristor[i] = vm;
+      current[i] = dv * currentScale;
+      conductance[i] = g < 0 ? 0 : g;
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.core.dwf.SampleBufferPool;
+import org.knowm.memristor.discovery.core.dwf.WaitResult;
+import org.knowm.memristor.discovery.core.dwf.sim.SimulatedAD2Device;
+import org.knowm.memristor.discovery.core.dwf.sim.SimulatedBoard;
+import org.knowm.memristor.discovery.core.experiment_common.ParallelBoards;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * Headless write/read/erase cycling against the simulated AD2 and V2 board. Needs no hardware or
+ * display, so it can run on a build server to track the throughput of the capture path.
+ */
+public class SimulatedPulseCapture {
+
+  private static final int BOARD_VERSION = 2;
+  private static final double SERIES_RESISTANCE = 10_000;
+
+  private final DWFProxy dwfProxy;
+
+  public SimulatedPulseCapture() {
+
+    this(0);
+  }
+
+  /**
+   * @param deviceIndex - also the noise seed, so every simulated board is a little different
+   */
+  public SimulatedPulseCapture(int deviceIndex) {
+
+    SimulatedAD2Device device =
+        new SimulatedAD2Device(new SimulatedBoard(BOARD_VERSION, deviceIndex));
+    device.getBoard().setSeriesResistance(SERIES_RESISTANCE);
+    dwfProxy = new DWFProxy(BOARD_VERSION, device, deviceIndex);
+  }
+
+  public static void main(String[] args) throws Exception {
+
+    int cycles = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+
+    SimulatedPulseCapture simulatedPulseCapture = new SimulatedPulseCapture();
+    simulatedPulseCapture.go(cycles);
+
+    parallel(1, cycles);
+    parallel(4, cycles);
+  }
+
+  /** Cycle several simulated boards at once, each behind its own proxy and hardware thread. */
+  private static void parallel(int boards, int cycles) throws Exception {
+
+    List<SimulatedPulseCapture> captures = new ArrayList<>();
+    List<DWFProxy> dwfProxies = new ArrayList<>();
+    for (int i = 0; i < boards; i++) {
+      SimulatedPulseCapture capture = new SimulatedPulseCapture(i);
+      capture.dwfProxy.openAD2();
+      capture.dwfProxy.setAllIOStates(0b0000_0000_0000_0001);
+      captures.add(capture);
+      dwfProxies.add(capture.dwfProxy);
+    }
+
+    long startTime = System.nanoTime();
+    try (ParallelBoards parallelBoards = new ParallelBoards(dwfProxies)) {
+      parallelBoards.runOnAll(
+          (boardIndex, dwfProxy) -> captures.get(boardIndex).cycle(cycles, false));
+    }
+    long elapsedNanos = System.nanoTime() - startTime;
+
+    System.out.printf(
+        "%d boards x %d cycles in %.1f ms, %.1f cycles/s%n",
+        boards, cycles, elapsedNanos / 1E6, boards * cycles / (elapsedNanos / 1E9));
+
+    for (DWFProxy dwfProxy : dwfProxies) {
+      dwfProxy.shutdownAD2();
+      dwfProxy.dispose();
+    }
+  }
+
+  public void go(int cycles) {
+
+    System.out.println("device open: " + dwfProxy.openAD2());
+    dwfProxy.setAllIOStates(0b0000_0000_0000_0001); // switch 1 only
+
+    long startTime = System.nanoTime();
+    long captureNanos = cycle(cycles, true);
+    long elapsedNanos = System.nanoTime() - startTime;
+
+    System.out.printf(
+        "%d cycles in %.1f ms, %.3f ms per read capture%n",
+        cycles, elapsedNanos / 1E6, captureNanos / 1E6 / (2 * cycles));
+    System.out.println("AWG uploads avoided: " + dwfProxy.getAvoidedAwgUploads());
+
+    pooledReads(1000, 10_000);
+    System.out.print(dwfProxy.getHardwareMetricsReport());
+
+    dwfProxy.shutdownAD2();
+    dwfProxy.dispose();
+  }
+
+  /**
+   * Write, read, erase, read.
+   *
+   * @param cycles
+   * @param verbose - print the first few resistances
+   * @return the time spent in read captures
+   */
+  private long cycle(int cycles, boolean verbose) {
+
+    long captureNanos = 0;
+    for (int i = 0; i < cycles; i++) {
+
+      // V2 boards have the memristor upside down, so negative AWG voltages write
+      pulse(-1.0, 10_000);
+      long t0 = System.nanoTime();
+      double rWritten = read(-0.1, 10_000);
+      captureNanos += System.nanoTime() - t0;
+
+      pulse(1.5, 10_000);
+      t0 = System.nanoTime();
+      double rErased = read(-0.1, 10_000);
+      captureNanos += System.nanoTime() - t0;
+
+      if (verbose && i < 5) {
+        System.out.printf("cycle %d: Rwrite = %.0f Ohm, Rerase = %.0f Ohm%n", i, rWritten, rErased);
+      }
+    }
+    return captureNanos;
+  }
+
+  /**
+   * Capture read pulses into pooled arrays and check that the pool's steady state doesn't allocate.
+   * The simulated device reads in place; on hardware the DWF binding still allocates per read.
+   */
+  private void pooledReads(int reads, double frequency) {
+
+    int samplesPerPulse = 300;
+    SampleBufferPool pool = dwfProxy.getSampleBufferPool();
+    long warmUpAllocations = 0;
+    for (int i = 0; i < reads; i++) {
+      dwfProxy.armScopeOnWaveformGenerator(
+          DWF.WAVEFORM_CHANNEL_1, frequency * samplesPerPulse, samplesPerPulse, true);
+      pulse(-0.1, frequency);
+      dwfProxy.capturePulseData(frequency, 1);
+      pool.release(dwfProxy.fetchPooledSamples());
+      if (i == 0) {
+        warmUpAllocations = pool.getAllocations();
+      }
+    }
+    System.out.printf(
+        "%d pooled reads (simulated device): %d arrays handed out, %d pool allocations after the"
+            + " first read%n",
+        reads, pool.getAcquisitions(), pool.getAllocations() - warmUpAllocations);
+  }
+
+  private void pulse(double amplitude, double frequency) {
+
+    double[] waveform = WaveformUtils.generateCustomWaveform(Waveform.Square, amplitude, frequency);
+    dwfProxy.startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, frequency, 0, 1, waveform);
+  }
+
+  /**
+   * @return the memristor resistance from the plateau of a square read pulse
+   */
+  private double read(double amplitude, double frequency) {
+
+    int samplesPerPulse = 300;
+    WaitResult armed =
+        dwfProxy.armScopeOnWaveformGenerator(
+            DWF.WAVEFORM_CHANNEL_1, frequency * samplesPerPulse, samplesPerPulse, true);
+    if (!armed.isDone()) {
+      return Double.NaN;
+    }
+    pulse(amplitude, frequency);
+    if (!dwfProxy.capturePulseData(frequency, 1)) {
+      return Double.NaN;
+    }
+    double[][] samples = dwfProxy.fetchSamples();
+
+    // channel 1 is the memristor node, channel 2 the AWG. Average the back half of the high time.
+    double vNode = 0;
+    double vSource = 0;
+    int from = samplesPerPulse / 4;
+    int to = samplesPerPulse / 2 - 5;
+    for (int i = from; i < to; i++) {
+      vNode += samples[0][i];
+      vSource += samples[1][i];
+    }
+    vNode /= (to - from);
+    vSource /= (to - from);
+
+    double current = (vSource - vNode) / SERIES_RESISTANCE;
+    return vNode / current;
+  }
+}
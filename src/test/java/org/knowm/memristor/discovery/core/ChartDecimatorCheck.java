@@ -0,0 +1,145 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import java.util.Random;
+
+/**
+ * Checks that {@link ChartDecimator} keeps what a chart needs: the first and last sample, the
+ * global min and max, and each bucket's min and max, in ascending order and within twice the width.
+ */
+public class ChartDecimatorCheck {
+
+  private static final int[] LENGTHS = {2003, 4096, 10_000, 65_537};
+  private static final int[] WIDTHS = {1, 7, 640, 1000};
+
+  public static void main(String[] args) {
+
+    new ChartDecimatorCheck().go();
+  }
+
+  public void go() {
+
+    Random random = new Random(42);
+    for (int n : LENGTHS) {
+      for (int width : WIDTHS) {
+        double[] y = series(n, random);
+        check(y, width);
+      }
+    }
+
+    // nothing to drop
+    double[] x = {0.1, 0.2, 0.3};
+    double[] y = {3, 1, 2};
+    double[][] plotted = ChartDecimator.decimate(x, y, 1);
+    if (plotted[0] != x || plotted[1] != y) {
+      throw new AssertionError("a short series should come back as is");
+    }
+
+    // a null x comes back as the 1-based numbers of the samples kept
+    y = series(5000, random);
+    int[] indices = ChartDecimator.minMaxIndices(y, 100);
+    plotted = ChartDecimator.decimate(null, y, 100);
+    for (int i = 0; i < indices.length; i++) {
+      if (plotted[0][i] != indices[i] + 1 || plotted[1][i] != y[indices[i]]) {
+        throw new AssertionError("sample numbers at " + i);
+      }
+    }
+
+    System.out.println("PASS");
+  }
+
+  /**
+   * @return noise on a slow sine, with a few one-sample spikes either way
+   */
+  private double[] series(int n, Random random) {
+
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      y[i] = Math.sin(i * 0.01) + random.nextGaussian() * 0.05;
+    }
+    for (int spike = 0; spike < 5; spike++) {
+      y[random.nextInt(n)] = (spike % 2 == 0 ? 10 : -10) + spike;
+    }
+    return y;
+  }
+
+  private void check(double[] y, int width) {
+
+    int n = y.length;
+    String name = n + " samples, " + width + " buckets";
+    int[] indices = ChartDecimator.minMaxIndices(y, width);
+
+    if (indices.length > 2 * width + 2) {
+      throw new AssertionError(name + ": kept " + indices.length);
+    }
+    if (indices[0] != 0 || indices[indices.length - 1] != n - 1) {
+      throw new AssertionError(name + ": first or last sample dropped");
+    }
+    boolean[] kept = new boolean[n];
+    for (int i = 0; i < indices.length; i++) {
+      if (i > 0 && indices[i] <= indices[i - 1]) {
+        throw new AssertionError(name + ": indices not ascending at " + i);
+      }
+      kept[indices[i]] = true;
+    }
+
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (int i : indices) {
+      min = Math.min(min, y[i]);
+      max = Math.max(max, y[i]);
+    }
+    double globalMin = Double.POSITIVE_INFINITY;
+    double globalMax = Double.NEGATIVE_INFINITY;
+    for (double value : y) {
+      globalMin = Math.min(globalMin, value);
+      globalMax = Math.max(globalMax, value);
+    }
+    if (min != globalMin || max != globalMax) {
+      throw new AssertionError(name + ": global min or max dropped");
+    }
+
+    // every bucket's extremes, wherever the bucket edges fall
+    for (int bucket = 0; bucket < width; bucket++) {
+      int from = (int) ((long) bucket * n / width);
+      int to = (int) ((long) (bucket + 1) * n / width);
+      double bucketMin = Double.POSITIVE_INFINITY;
+      double bucketMax = Double.NEGATIVE_INFINITY;
+      boolean minKept = false;
+      boolean maxKept = false;
+      for (int i = from; i < to; i++) {
+        bucketMin = Math.min(bucketMin, y[i]);
+        bucketMax = Math.max(bucketMax, y[i]);
+      }
+      for (int i = from; i < to; i++) {
+        minKept |= kept[i] && y[i] == bucketMin;
+        maxKept |= kept[i] && y[i] == bucketMax;
+      }
+      if (!minKept || !maxKept) {
+        throw new AssertionError(name + ": bucket " + bucket + " lost its min or max");
+      }
+    }
+  }
+}
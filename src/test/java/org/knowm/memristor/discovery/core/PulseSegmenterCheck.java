@@ -0,0 +1,156 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks {@link PulseSegmenter} on synthetic pulse trains: it must find every pulse with the right
+ * edges and metrics, keep a pulse whose top sags between the thresholds in one piece, and ignore
+ * glitches narrower than {@link PulseSegmenter#MIN_WIDTH} samples.
+ */
+public class PulseSegmenterCheck {
+
+  private static final double TIME_STEP = 1E-6;
+  private static final double CURRENT_DIVISOR = 1E6; // current in µA
+  private static final double RESISTANCE = 10_000;
+  private static final double AMPLITUDE = 1.0;
+  private static final double NOISE = 0.02;
+
+  private static final int PULSES = 20;
+  private static final int WIDTH = 40;
+  private static final int PERIOD = 150;
+
+  public static void main(String[] args) {
+
+    new PulseSegmenterCheck().go();
+  }
+
+  public void go() {
+
+    PulseSegmenter segmenter = new PulseSegmenter(TIME_STEP, CURRENT_DIVISOR);
+    Random random = new Random(42);
+
+    // a train of alternating pulses, with a glitch of 1 and 2 samples in each gap
+    int length = PULSES * PERIOD;
+    double[] drive = new double[length + 500]; // longer, like a pooled buffer
+    for (int i = 0; i < length; i++) {
+      drive[i] = random.nextGaussian() * NOISE;
+    }
+    for (int p = 0; p < PULSES; p++) {
+      double sign = p % 2 == 0 ? 1 : -1;
+      int start = p * PERIOD + 10;
+      for (int i = start; i < start + WIDTH; i++) {
+        drive[i] = sign * AMPLITUDE + random.nextGaussian() * NOISE;
+      }
+      int glitch = start + WIDTH + 30;
+      drive[glitch] = AMPLITUDE;
+      drive[glitch + 20] = -AMPLITUDE;
+      drive[glitch + 21] = -AMPLITUDE;
+    }
+    // past the length looked at: must be ignored, and must not set the thresholds
+    Arrays.fill(drive, length, drive.length, 10 * AMPLITUDE);
+
+    PulseSegmenter.Pulses pulses = segment(segmenter, drive, length);
+    if (pulses.getCount() != PULSES) {
+      throw new AssertionError("found " + pulses.getCount() + " pulses, expected " + PULSES);
+    }
+    double expectedCurrent = AMPLITUDE / RESISTANCE * CURRENT_DIVISOR;
+    double expectedCharge = AMPLITUDE / RESISTANCE * WIDTH * TIME_STEP;
+    double expectedEnergy = AMPLITUDE * AMPLITUDE / RESISTANCE * WIDTH * TIME_STEP;
+    for (int p = 0; p < PULSES; p++) {
+      double sign = p % 2 == 0 ? 1 : -1;
+      int start = p * PERIOD + 10;
+      String name = "pulse " + p;
+      assertEquals(name + " start", start, pulses.getStart(p));
+      assertEquals(name + " end", start + WIDTH, pulses.getEnd(p));
+      if (pulses.getPeakIndex(p) < start || pulses.getPeakIndex(p) >= start + WIDTH) {
+        throw new AssertionError(name + " peak outside the pulse");
+      }
+      assertClose(name + " peak current", sign * expectedCurrent, pulses.getPeakCurrent(p), 0.1);
+      assertClose(name + " charge", sign * expectedCharge, pulses.getCharge(p), 0.02);
+      assertClose(name + " energy", expectedEnergy, pulses.getEnergy(p), 0.02);
+      assertClose(name + " end conductance", 1 / RESISTANCE, pulses.getEndConductance(p), 1E-9);
+    }
+    assertClose("total energy", PULSES * expectedEnergy, pulses.getTotalEnergy(), 0.01);
+
+    // exactly MIN_WIDTH samples is a pulse, one fewer is a glitch
+    double[] edge = new double[100];
+    Arrays.fill(edge, 10, 10 + PulseSegmenter.MIN_WIDTH, AMPLITUDE);
+    Arrays.fill(edge, 50, 50 + PulseSegmenter.MIN_WIDTH - 1, AMPLITUDE);
+    pulses = segment(segmenter, edge, edge.length);
+    assertEquals("pulses at the minimum width", 1, pulses.getCount());
+    assertEquals("minimum width pulse start", 10, pulses.getStart(0));
+
+    // a top sagging between the thresholds doesn't split the pulse, one that never reaches the high
+    // threshold isn't a pulse, and one cut off by the end of the capture still counts
+    double[] sag = new double[200];
+    Arrays.fill(sag, 10, 60, AMPLITUDE);
+    Arrays.fill(sag, 30, 40, 0.3 * AMPLITUDE);
+    Arrays.fill(sag, 80, 120, 0.4 * AMPLITUDE);
+    Arrays.fill(sag, 180, 200, -AMPLITUDE);
+    pulses = segment(segmenter, sag, sag.length);
+    assertEquals("pulses with a sag", 2, pulses.getCount());
+    assertEquals("sagging pulse end", 60, pulses.getEnd(0));
+    assertEquals("truncated pulse start", 180, pulses.getStart(1));
+    assertEquals("truncated pulse end", 200, pulses.getEnd(1));
+
+    // all noise
+    double[] idle = new double[1000];
+    for (int i = 0; i < idle.length; i++) {
+      idle[i] = random.nextGaussian() * NOISE / 4;
+    }
+    assertEquals("pulses in noise", 0, segment(segmenter, idle, idle.length).getCount());
+
+    System.out.println("PASS");
+  }
+
+  /** Segment a drive into a series resistance, with the current in µA. */
+  private PulseSegmenter.Pulses segment(PulseSegmenter segmenter, double[] drive, int length) {
+
+    double[] current = new double[drive.length];
+    double[] conductance = new double[drive.length];
+    for (int i = 0; i < drive.length; i++) {
+      current[i] = drive[i] / RESISTANCE * CURRENT_DIVISOR;
+      conductance[i] = 1 / RESISTANCE;
+    }
+    return segmenter.segment(drive, current, conductance, length);
+  }
+
+  private void assertEquals(String name, int expected, int actual) {
+
+    if (expected != actual) {
+      throw new AssertionError(name + ": expected " + expected + " but was " + actual);
+    }
+  }
+
+  /** @param tolerance - relative to expected */
+  private void assertClose(String name, double expected, double actual, double tolerance) {
+
+    if (!(Math.abs(expected - actual) <= tolerance * Math.abs(expected))) {
+      throw new AssertionError(name + ": expected " + expected + " but was " + actual);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+/**
+ * Checks {@link RunningStats} against an exact BigDecimal reference on samples with a large offset,
+ * where the textbook sum-of-squares variance falls apart, and checks that merging accumulators over
+ * pieces of the data gives the same answer as a single pass.
+ */
+public class RunningStatsCheck {
+
+  private static final int SAMPLES = 100_000;
+  private static final double OFFSET = 1E6;
+
+  public static void main(String[] args) {
+
+    new RunningStatsCheck().go();
+  }
+
+  public void go() {
+
+    Random random = new Random(42);
+    double[] values = new double[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      values[i] = OFFSET + random.nextGaussian();
+    }
+
+    BigDecimal[] reference = reference(values);
+    double mean = reference[0].doubleValue();
+    double var = reference[1].doubleValue();
+
+    RunningStats single = RunningStats.of(values, 0, SAMPLES);
+    System.out.printf(
+        "single pass: mean error %.3e, variance error %.3e%n",
+        single.getAve() - mean, single.getVar() - var);
+    assertClose("single pass mean", mean, single.getAve(), 1E-14);
+    assertClose("single pass variance", var, single.getVar(), 1E-10);
+    checkExtremes("single pass", values, single);
+
+    // uneven pieces, including an empty one
+    int[] cuts = {0, 1, 1, 777, 50_000, 99_999, SAMPLES};
+    RunningStats merged = new RunningStats();
+    for (int c = 1; c < cuts.length; c++) {
+      merged.merge(RunningStats.of(values, cuts[c - 1], cuts[c]));
+    }
+    System.out.printf(
+        "merged:      mean error %.3e, variance error %.3e%n",
+        merged.getAve() - mean, merged.getVar() - var);
+    if (merged.getCount() != single.getCount()) {
+      throw new AssertionError("merged count " + merged.getCount());
+    }
+    assertClose("merged mean", single.getAve(), merged.getAve(), 1E-14);
+    assertClose("merged variance", single.getVar(), merged.getVar(), 1E-10);
+    checkExtremes("merged", values, merged);
+
+    RunningStats empty = new RunningStats();
+    empty.merge(new RunningStats());
+    if (empty.getCount() != 0 || !Double.isNaN(empty.getMin()) || empty.getVar() != 0) {
+      throw new AssertionError("merging two empty accumulators");
+    }
+
+    System.out.println("PASS");
+  }
+
+  /**
+   * @return {mean, population variance}, computed exactly
+   */
+  private BigDecimal[] reference(double[] values) {
+
+    MathContext mathContext = MathContext.DECIMAL128;
+    BigDecimal n = BigDecimal.valueOf(values.length);
+    BigDecimal sum = BigDecimal.ZERO;
+    for (double value : values) {
+      sum = sum.add(new BigDecimal(value));
+    }
+    BigDecimal mean = sum.divide(n, mathContext);
+    BigDecimal squares = BigDecimal.ZERO;
+    for (double value : values) {
+      BigDecimal deviation = new BigDecimal(value).subtract(mean);
+      squares = squares.add(deviation.multiply(deviation));
+    }
+    return new BigDecimal[] {mean, squares.divide(n, mathContext)};
+  }
+
+  private void checkExtremes(String name, double[] values, RunningStats runningStats) {
+
+    int minIndex = 0;
+    int maxIndex = 0;
+    for (int i = 1; i < values.length; i++) {
+      if (values[i] < values[minIndex]) {
+        minIndex = i;
+      }
+      if (values[i] > values[maxIndex]) {
+        maxIndex = i;
+      }
+    }
+    if (runningStats.getMin() != values[minIndex] || runningStats.getMinIndex() != minIndex) {
+      throw new AssertionError(name + " min");
+    }
+    if (runningStats.getMax() != values[maxIndex] || runningStats.getMaxIndex() != maxIndex) {
+      throw new AssertionError(name + " max");
+    }
+  }
+
+  /** @param tolerance - relative to expected */
+  private void assertClose(String name, double expected, double actual, double tolerance) {
+
+    if (!(Math.abs(expected - actual) <= tolerance * Math.abs(expected))) {
+      throw new AssertionError(name + ": expected " + expected + " but was " + actual);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the {@link SampleKernels} this runtime picked against the scalar ones and times both on
+ * capture sized buffers. To exercise the SIMD kernels, run it on JDK 17+ against the packaged jar
+ * with {@code --add-modules jdk.incubator.vector}; otherwise both columns are the scalar code.
+ */
+public class SampleKernelsBenchmark {
+
+  private static final int[] SIZES = {8192, 16384, 32768, 65536};
+  private static final int ROUNDS = 2000;
+
+  private final SampleKernels scalar = SampleKernels.scalar();
+  private final SampleKernels kernels = SampleKernels.get();
+
+  public static void main(String[] args) {
+
+    new SampleKernelsBenchmark().go();
+  }
+
+  public void go() {
+
+    System.out.println("kernels: " + kernels.getName());
+    for (int size : SIZES) {
+      double[][] capture = capture(size, size);
+      check(capture[0], capture[1]);
+    }
+    System.out.println("all kernels match the scalar ones");
+
+    System.out.printf(
+        "%8s %-14s %12s %12s %8s%n", "samples", "kernel", "scalar_us", "picked_us", "speedup");
+    for (int size : SIZES) {
+      double[][] capture = capture(size, 42);
+      double[] v1 = capture[0];
+      double[] v2 = capture[1];
+      double[] out = new double[size];
+      double[][] series = new double[6][size];
+
+      time(size, "negate", k -> k.negate(v1, out, size));
+      time(size, "subtract", k -> k.subtract(v1, v2, out, size));
+      time(size, "zeroIdle", k -> k.zeroIdle(v1, v2, 0.05, out));
+      time(size, "maxAbs", k -> k.maxAbs(v1));
+      time(
+          size,
+          "deriveSeries",
+          k -> k.deriveSeries(v1, v2, 0, size, true, false, 1E-6, 1E2, 1E3, series));
+    }
+  }
+
+  /**
+   * @return a pulse train with idle stretches and the odd sample that makes the conductance blow up
+   */
+  private double[][] capture(int size, long seed) {
+
+    Random random = new Random(seed);
+    double[] v1 = new double[size];
+    double[] v2 = new double[size];
+    for (int i = 0; i < size; i++) {
+      boolean pulse = (i / 97) % 3 != 0;
+      v1[i] = (pulse ? 0.5 : 0) + random.nextGaussian() * 0.01;
+      v2[i] = (pulse ? 0.4 : 0) + random.nextGaussian() * 0.01;
+      if (random.nextInt(500) == 0) {
+        v1[i] = 0;
+      }
+    }
+    return new double[][] {v1, v2};
+  }
+
+  private void check(double[] v1, double[] v2) {
+
+    int n = v1.length;
+    double[] expected = new double[n];
+    double[] actual = new double[n];
+
+    scalar.negate(v1, expected, n);
+    kernels.negate(v1, actual, n);
+    assertEquals("negate", expected, actual);
+
+    scalar.subtract(v1, v2, expected, n);
+    kernels.subtract(v1, v2, actual, n);
+    assertEquals("subtract", expected, actual);
+
+    // every length around the vector width, to cover the tail handling
+    for (int length = 0; length < 20; length++) {
+      double[] shortV1 = Arrays.copyOf(v1, Math.max(1, length));
+      double[] shortV2 = Arrays.copyOf(v2, Math.max(1, length));
+      double[] shortExpected = new double[shortV1.length];
+      double[] shortActual = new double[shortV1.length];
+      scalar.zeroIdle(shortV1, shortV2, 0.05, shortExpected);
+      kernels.zeroIdle(shortV1, shortV2, 0.05, shortActual);
+      assertEquals("zeroIdle " + length, shortExpected, shortActual);
+      if (scalar.maxAbs(shortV1) != kernels.maxAbs(shortV1)) {
+        throw new AssertionError("maxAbs " + length);
+      }
+    }
+    scalar.zeroIdle(v1, v2, 0.05, expected);
+    kernels.zeroIdle(v1, v2, 0.05, actual);
+    assertEquals("zeroIdle", expected, actual);
+
+    if (Double.compare(scalar.maxAbs(v1), kernels.maxAbs(v1)) != 0) {
+      throw new AssertionError("maxAbs");
+    }
+
+    for (boolean isV2Board : new boolean[] {false, true}) {
+      for (boolean swap : new boolean[] {false, true}) {
+        double[][] expectedSeries = new double[6][n - 7];
+        double[][] actualSeries = new double[6][n - 7];
+        scalar.deriveSeries(v1, v2, 7, n - 7, isV2Board, swap, 1E-6, 1E2, 1E3, expectedSeries);
+        kernels.deriveSeries(v1, v2, 7, n - 7, isV2Board, swap, 1E-6, 1E2, 1E3, actualSeries);
+        for (int i = 0; i < 6; i++) {
+          assertEquals("deriveSeries " + i, expectedSeries[i], actualSeries[i]);
+        }
+      }
+    }
+  }
+
+  private void assertEquals(String kernel, double[] expected, double[] actual) {
+
+    if (!Arrays.equals(expected, actual)) {
+      throw new AssertionError(kernel + " differs from the scalar kernel");
+    }
+  }
+
+  private void time(int size, String name, Kernel kernel) {
+
+    long scalarNanos = time(kernel, scalar);
+    long pickedNanos = time(kernel, kernels);
+    System.out.printf(
+        "%8d %-14s %12.2f %12.2f %7.2fx%n",
+        size,
+        name,
+        scalarNanos / 1E3 / ROUNDS,
+        pickedNanos / 1E3 / ROUNDS,
+        (double) scalarNanos / pickedNanos);
+  }
+
+  private long time(Kernel kernel, SampleKernels sampleKernels) {
+
+    // warm up, then measure
+    for (int i = 0; i < ROUNDS; i++) {
+      kernel.run(sampleKernels);
+    }
+    long startTime = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      kernel.run(sampleKernels);
+    }
+    return System.nanoTime() - startTime;
+  }
+
+  private interface Kernel {
+
+    void run(SampleKernels sampleKernels);
+  }
+}
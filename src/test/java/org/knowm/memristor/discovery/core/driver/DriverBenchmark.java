@@ -0,0 +1,155 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.driver;
+
+import java.util.Arrays;
+import java.util.List;
+import org.knowm.memristor.discovery.core.driver.pulse.HalfSinePulse;
+import org.knowm.memristor.discovery.core.driver.pulse.QuarterSinePulse;
+import org.knowm.memristor.discovery.core.driver.pulse.SquareDecayPulse;
+import org.knowm.memristor.discovery.core.driver.pulse.SquareLongDecayPulse;
+import org.knowm.memristor.discovery.core.driver.pulse.SquarePulse;
+import org.knowm.memristor.discovery.core.driver.pulse.SquareSmoothPulse;
+import org.knowm.memristor.discovery.core.driver.pulse.TrianglePulse;
+import org.knowm.memristor.discovery.core.driver.waveform.Arbitrary;
+import org.knowm.memristor.discovery.core.driver.waveform.DC;
+import org.knowm.memristor.discovery.core.driver.waveform.HalfSine;
+import org.knowm.memristor.discovery.core.driver.waveform.QuarterSine;
+import org.knowm.memristor.discovery.core.driver.waveform.Sawtooth;
+import org.knowm.memristor.discovery.core.driver.waveform.SawtoothUpDown;
+import org.knowm.memristor.discovery.core.driver.waveform.Sine;
+import org.knowm.memristor.discovery.core.driver.waveform.Square;
+import org.knowm.memristor.discovery.core.driver.waveform.SquareSmooth;
+import org.knowm.memristor.discovery.core.driver.waveform.Triangle;
+import org.knowm.memristor.discovery.core.driver.waveform.TriangleUpDown;
+
+/**
+ * Checks the bulk {@link Driver#getSignal(double, double, double[])} of every driver against its
+ * scalar getSignal and times both filling a capture sized buffer across several periods.
+ */
+public class DriverBenchmark {
+
+  private static final int SAMPLES = 4096;
+  private static final int PERIODS = 10;
+  private static final int ROUNDS = 2000;
+
+  /** carried phase and the modulo land on either side of a step now and then */
+  private static final double MAX_BOUNDARY_FRACTION = 0.01;
+
+  private final List<Driver> drivers =
+      Arrays.asList(
+          new HalfSinePulse("HalfSinePulse", 0, 1000, .5, 1),
+          new QuarterSinePulse("QuarterSinePulse", 0, 1000, .5, 1),
+          new SquareDecayPulse("SquareDecayPulse", 0, 1000, .5, 1),
+          new SquareLongDecayPulse("SquareLongDecayPulse", 0, 1000, .5, 1),
+          new SquarePulse("SquarePulse", 0, 1000, .5, 1),
+          new SquareSmoothPulse("SquareSmoothPulse", 0, 1000, .5, 1),
+          new TrianglePulse("TrianglePulse", 0, 1000, .5, 1),
+          new Arbitrary("Arbitrary", 0, 0, 1, 100, new double[] {0, .25, .5, .75}),
+          new DC("DC", .5),
+          new HalfSine("HalfSine", 0, 0, 1, 100),
+          new QuarterSine("QuarterSine", 0, 0, 1, 100),
+          new Sawtooth("Sawtooth", 0, 0, 1, 100),
+          new SawtoothUpDown("SawtoothUpDown", 0, 0, 1, 100),
+          new Sine("Sine", 0, 0, 1, 100),
+          new Square("Square", 0, 0, 1, 100),
+          new SquareSmooth("SquareSmooth", 0, 0, 1, 100),
+          new Triangle("Triangle", 0, 0, 1, 100),
+          new TriangleUpDown("TriangleUpDown", 0, 0, 1, 100));
+
+  public static void main(String[] args) {
+
+    new DriverBenchmark().go();
+  }
+
+  public void go() {
+
+    for (Driver driver : drivers) {
+      check(driver);
+    }
+    System.out.println("all drivers match their scalar getSignal");
+
+    System.out.printf("%-22s %12s %12s %8s%n", "driver", "scalar_us", "bulk_us", "speedup");
+    for (Driver driver : drivers) {
+      double timeStep = driver.getPeriod() * PERIODS / SAMPLES;
+      double[] signal = new double[SAMPLES];
+
+      long scalarNanos =
+          time(
+              () -> {
+                for (int i = 0; i < SAMPLES; i++) {
+                  signal[i] = driver.getSignal(i * timeStep);
+                }
+              });
+      long bulkNanos = time(() -> driver.getSignal(0, timeStep, signal));
+      System.out.printf(
+          "%-22s %12.2f %12.2f %7.2fx%n",
+          driver.getId(),
+          scalarNanos / 1E3 / ROUNDS,
+          bulkNanos / 1E3 / ROUNDS,
+          (double) scalarNanos / bulkNanos);
+    }
+  }
+
+  private void check(Driver driver) {
+
+    // one period from zero lands on exactly the same times as the scalar loop
+    double timeStep = driver.getPeriod() / SAMPLES;
+    double[] actual = new double[SAMPLES];
+    driver.getSignal(0, timeStep, actual);
+    for (int i = 0; i < SAMPLES; i++) {
+      if (Double.compare(driver.getSignal(i * timeStep), actual[i]) != 0) {
+        throw new AssertionError(driver.getId() + " differs at sample " + i);
+      }
+    }
+
+    // across many periods and from an odd start, only samples right on a step may differ
+    double startTime = driver.getPeriod() / 3;
+    timeStep = driver.getPeriod() * PERIODS / SAMPLES;
+    driver.getSignal(startTime, timeStep, actual);
+    int differing = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      double expected = driver.getSignal(startTime + i * timeStep);
+      if (Math.abs(expected - actual[i]) > 1E-9) {
+        differing++;
+      }
+    }
+    if (differing > SAMPLES * MAX_BOUNDARY_FRACTION) {
+      throw new AssertionError(driver.getId() + " differs at " + differing + " samples");
+    }
+  }
+
+  private long time(Runnable fill) {
+
+    // warm up, then measure
+    for (int i = 0; i < ROUNDS; i++) {
+      fill.run();
+    }
+    long startTime = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      fill.run();
+    }
+    return System.nanoTime() - startTime;
+  }
+}
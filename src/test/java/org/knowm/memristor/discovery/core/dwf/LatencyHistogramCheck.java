@@ -0,0 +1,131 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2020 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.dwf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that {@link LatencyHistogram}'s percentiles are never below the exact ones and within a
+ * bucket's 12.5% above them, at every bucket edge and on a wide spread of latencies recorded from
+ * several threads at once.
+ */
+public class LatencyHistogramCheck {
+
+  private static final double BUCKET_ERROR = 1.0 / 8;
+  private static final int THREADS = 4;
+  private static final int VALUES_PER_THREAD = 250_000;
+  private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100};
+
+  public static void main(String[] args) throws InterruptedException {
+
+    new LatencyHistogramCheck().go();
+  }
+
+  public void go() throws InterruptedException {
+
+    LatencyHistogram empty = new LatencyHistogram();
+    if (empty.snapshot().getPercentileNanos(50) != 0 || empty.snapshot().getMeanNanos() != 0) {
+      throw new AssertionError("an empty histogram should report 0");
+    }
+
+    // values around every power of two, each next to one far above so the max doesn't clamp
+    for (int exponent = 0; exponent < 62; exponent++) {
+      for (long delta = -2; delta <= 2; delta++) {
+        long value = (1L << exponent) + delta;
+        if (value < 0) {
+          continue;
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE / 2);
+        checkWithinBucket("edge " + value, value, histogram.snapshot().getPercentileNanos(50));
+      }
+    }
+    for (long value = 0; value < 16; value++) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(value);
+      histogram.record(1_000_000);
+      if (histogram.snapshot().getPercentileNanos(50) != value) {
+        throw new AssertionError("values below 16 ns should be exact: " + value);
+      }
+    }
+
+    // log-uniform from 10 ns to 10 s, recorded concurrently
+    LatencyHistogram histogram = new LatencyHistogram();
+    long[][] recorded = new long[THREADS][VALUES_PER_THREAD];
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      long[] values = recorded[t];
+      Random random = new Random(42 + t);
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (long) Math.pow(10, 1 + 9 * random.nextDouble());
+      }
+      threads[t] = new Thread(() -> Arrays.stream(values).forEach(histogram::record));
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    long[] all = Arrays.stream(recorded).flatMapToLong(Arrays::stream).sorted().toArray();
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    if (snapshot.getCount() != all.length || histogram.getCount() != all.length) {
+      throw new AssertionError("count " + snapshot.getCount() + ", expected " + all.length);
+    }
+    if (snapshot.getTotalNanos() != Arrays.stream(all).sum()) {
+      throw new AssertionError("total");
+    }
+    if (snapshot.getMaxNanos() != all[all.length - 1]) {
+      throw new AssertionError("max");
+    }
+    System.out.printf("%10s %14s %14s %8s%n", "percentile", "exact_ns", "reported_ns", "error");
+    for (double percentile : PERCENTILES) {
+      int rank = (int) Math.max(1, Math.ceil(percentile / 100 * all.length));
+      long exact = all[rank - 1];
+      long reported = snapshot.getPercentileNanos(percentile);
+      System.out.printf(
+          "%10s %14d %14d %7.2f%%%n",
+          percentile, exact, reported, 100.0 * (reported - exact) / exact);
+      checkWithinBucket("p" + percentile, exact, reported);
+    }
+
+    // a negative reading, e.g. from a clock step, counts as 0
+    LatencyHistogram negative = new LatencyHistogram();
+    negative.record(-5);
+    LatencyHistogram.Snapshot negativeSnapshot = negative.snapshot();
+    if (negativeSnapshot.getPercentileNanos(100) != 0 || negativeSnapshot.getMaxNanos() != 0) {
+      throw new AssertionError("negative latency");
+    }
+
+    System.out.println("PASS");
+  }
+
+  private void checkWithinBucket(String name, long exact, long reported) {
+
+    if (reported < exact || reported > exact + exact * BUCKET_ERROR) {
+      throw new AssertionError(name + ": exact " + exact + " but reported " + reported);
+    }
+  }
+}